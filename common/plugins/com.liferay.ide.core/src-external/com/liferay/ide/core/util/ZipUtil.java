@@ -133,6 +133,9 @@ public final class ZipUtil {
             int c = 0;
             boolean foundStartEntry = entryToStart == null;
 
+            // shared by all entries, large enough for most files of a plugin in one read
+            final byte[] bytes = new byte[64 * 1024];
+
             while (entries.hasMoreElements())
             {
                 final ZipEntry entry = entries.nextElement();
@@ -178,7 +181,6 @@ public final class ZipUtil {
                     in = zip.getInputStream(entry);
                     out = new FileOutputStream(f);
 
-                    final byte[] bytes = new byte[1024];
                     int count = in.read(bytes);
 
                     while (count != -1) {
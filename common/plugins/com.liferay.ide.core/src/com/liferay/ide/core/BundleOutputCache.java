@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Remembers the output jar of an {@link IBundleProject} together with a fingerprint of the content it was built from,
+ * so that the jar is only rebuilt when a source, resource or build file changed. The fingerprint hashes the path and
+ * modification stamp of every file of the project that is not filtered out by
+ * {@link IBundleProject#filterResource(IPath)}, of every file of the workspace projects on its classpath except their
+ * java output, and the size and modification time of the build files outside of the project the caller passes in
+ * (parent build scripts, parent poms). The fingerprint itself is only computed again once the workspace or one of
+ * those build files changed. The symbolic name read from the jar manifest is cached against the jar's last modified
+ * time.
+ *
+ * @author agent
+ */
+public class BundleOutputCache
+{
+
+    private static final Charset UTF8 = Charset.forName( "UTF-8" ); //$NON-NLS-1$
+
+    private static final AtomicLong workspaceGeneration = new AtomicLong();
+
+    /**
+     * Counts workspace changes, so that a fingerprint computed before the last change is not handed out again.
+     */
+    static final IResourceChangeListener workspaceListener = new IResourceChangeListener()
+    {
+        public void resourceChanged( IResourceChangeEvent event )
+        {
+            workspaceGeneration.incrementAndGet();
+        }
+    };
+
+    private final IBundleProject bundleProject;
+    private String computedFingerprint;
+    private String computedKey;
+    private String fingerprint;
+    private IPath outputJar;
+    private long outputJarModified;
+    private String symbolicName;
+    private File symbolicNameJar;
+    private long symbolicNameModified;
+
+    public BundleOutputCache( IBundleProject bundleProject )
+    {
+        this.bundleProject = bundleProject;
+    }
+
+    /**
+     * Computes the fingerprint of the current project content.
+     *
+     * @param buildFiles
+     *            build files outside of the project that the build reads
+     */
+    public String computeFingerprint( Collection<File> buildFiles ) throws CoreException
+    {
+        // taken before hashing, a change while hashing makes the next call hash again
+        final StringBuilder key = new StringBuilder( Long.toString( workspaceGeneration.get() ) );
+
+        for( File buildFile : buildFiles )
+        {
+            key.append( '|' ).append( buildFile.getAbsolutePath() );
+            key.append( ':' ).append( buildFile.length() ).append( ':' ).append( buildFile.lastModified() );
+        }
+
+        synchronized( this )
+        {
+            if( key.toString().equals( computedKey ) )
+            {
+                return computedFingerprint;
+            }
+        }
+
+        final MessageDigest digest;
+
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-1" ); //$NON-NLS-1$
+        }
+        catch( NoSuchAlgorithmException e )
+        {
+            throw new CoreException( LiferayCore.createErrorStatus( e ) );
+        }
+
+        for( File buildFile : buildFiles )
+        {
+            digest.update( buildFile.getAbsolutePath().getBytes( UTF8 ) );
+            digest.update( ( buildFile.length() + ":" + buildFile.lastModified() ).getBytes( UTF8 ) ); //$NON-NLS-1$
+        }
+
+        for( IProject requiredProject : getRequiredProjects() )
+        {
+            updateDigest( digest, requiredProject );
+        }
+
+        bundleProject.getProject().accept( new IResourceProxyVisitor()
+        {
+            public boolean visit( IResourceProxy proxy ) throws CoreException
+            {
+                if( proxy.getType() == IResource.PROJECT )
+                {
+                    return true;
+                }
+
+                final IPath path = proxy.requestFullPath().removeFirstSegments( 1 );
+
+                if( proxy.isDerived() || bundleProject.filterResource( path ) )
+                {
+                    return false;
+                }
+
+                if( proxy.getType() == IResource.FILE )
+                {
+                    digest.update( path.toPortableString().getBytes( UTF8 ) );
+                    digest.update( Long.toString( proxy.getModificationStamp() ).getBytes( UTF8 ) );
+                }
+
+                return true;
+            }
+        }, IResource.NONE );
+
+        final StringBuilder sb = new StringBuilder();
+
+        for( byte b : digest.digest() )
+        {
+            sb.append( String.format( "%02x", b ) ); //$NON-NLS-1$
+        }
+
+        synchronized( this )
+        {
+            computedKey = key.toString();
+            computedFingerprint = sb.toString();
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the workspace projects on the java classpath of the bundle project.
+     */
+    private Set<IProject> getRequiredProjects()
+    {
+        final Set<IProject> retval = new LinkedHashSet<IProject>();
+
+        final IJavaProject javaProject = JavaCore.create( bundleProject.getProject() );
+
+        if( javaProject == null || ! javaProject.exists() )
+        {
+            return retval;
+        }
+
+        try
+        {
+            for( IClasspathEntry entry : javaProject.getResolvedClasspath( true ) )
+            {
+                if( entry.getEntryKind() == IClasspathEntry.CPE_PROJECT )
+                {
+                    final IProject project =
+                        ResourcesPlugin.getWorkspace().getRoot().getProject( entry.getPath().lastSegment() );
+
+                    if( project.isAccessible() )
+                    {
+                        retval.add( project );
+                    }
+                }
+            }
+        }
+        catch( JavaModelException e )
+        {
+        }
+
+        return retval;
+    }
+
+    /**
+     * Returns the jar last built from content with the given fingerprint, or <code>null</code> if the content changed
+     * or the jar was modified or removed since.
+     */
+    public synchronized IPath getOutputJar( String fingerprint )
+    {
+        if( fingerprint == null || ! fingerprint.equals( this.fingerprint ) || outputJar == null )
+        {
+            return null;
+        }
+
+        final File file = outputJar.toFile();
+
+        if( ! file.exists() || file.lastModified() != outputJarModified )
+        {
+            return null;
+        }
+
+        return outputJar;
+    }
+
+    /**
+     * Returns the Bundle-SymbolicName of the given jar, only opening the jar if it changed since the last call.
+     */
+    public synchronized String getSymbolicName( File jar )
+    {
+        if( jar == null || ! jar.exists() )
+        {
+            return null;
+        }
+
+        if( jar.equals( symbolicNameJar ) && jar.lastModified() == symbolicNameModified )
+        {
+            return symbolicName;
+        }
+
+        String bsn = null;
+
+        try( final JarFile jarFile = new JarFile( jar ) )
+        {
+            final Manifest manifest = jarFile.getManifest();
+
+            if( manifest != null )
+            {
+                bsn = manifest.getMainAttributes().getValue( "Bundle-SymbolicName" ); //$NON-NLS-1$
+            }
+        }
+        catch( IOException e )
+        {
+            return null;
+        }
+
+        if( bsn != null && bsn.indexOf( ';' ) > 0 )
+        {
+            bsn = bsn.substring( 0, bsn.indexOf( ';' ) );
+        }
+
+        symbolicName = bsn == null ? null : bsn.trim();
+        symbolicNameJar = jar;
+        symbolicNameModified = jar.lastModified();
+
+        return symbolicName;
+    }
+
+    public synchronized void invalidate()
+    {
+        computedKey = null;
+        fingerprint = null;
+        outputJar = null;
+    }
+
+    /**
+     * Hashes the files of a project the bundle depends on, leaving out derived files and java output.
+     */
+    private static void updateDigest( final MessageDigest digest, final IProject project ) throws CoreException
+    {
+        final Set<IPath> outputLocations = new HashSet<IPath>();
+
+        final IJavaProject javaProject = JavaCore.create( project );
+
+        if( javaProject != null && javaProject.exists() )
+        {
+            outputLocations.add( javaProject.getOutputLocation() );
+
+            for( IClasspathEntry entry : javaProject.getRawClasspath() )
+            {
+                if( entry.getOutputLocation() != null )
+                {
+                    outputLocations.add( entry.getOutputLocation() );
+                }
+            }
+        }
+
+        project.accept( new IResourceProxyVisitor()
+        {
+            public boolean visit( IResourceProxy proxy ) throws CoreException
+            {
+                if( proxy.getType() == IResource.PROJECT )
+                {
+                    return true;
+                }
+
+                final IPath path = proxy.requestFullPath();
+
+                if( proxy.isDerived() || proxy.isTeamPrivateMember() || outputLocations.contains( path ) )
+                {
+                    return false;
+                }
+
+                if( proxy.getType() == IResource.FILE )
+                {
+                    digest.update( path.toPortableString().getBytes( UTF8 ) );
+                    digest.update( Long.toString( proxy.getModificationStamp() ).getBytes( UTF8 ) );
+                }
+
+                return true;
+            }
+        }, IResource.NONE );
+    }
+
+    /**
+     * Records the jar that was just built from content with the given fingerprint.
+     */
+    public synchronized void update( String fingerprint, IPath outputJar )
+    {
+        if( outputJar == null || ! outputJar.toFile().exists() )
+        {
+            invalidate();
+
+            return;
+        }
+
+        this.fingerprint = fingerprint;
+        this.outputJar = outputJar;
+        this.outputJarModified = outputJar.toFile().lastModified();
+    }
+
+}
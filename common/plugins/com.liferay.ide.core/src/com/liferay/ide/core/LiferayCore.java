@@ -14,9 +14,12 @@
 
 package com.liferay.ide.core;
 
+import com.liferay.ide.core.adapter.NoopLiferayProject;
+import com.liferay.ide.core.remote.HttpConnectionPool;
 import com.liferay.ide.core.util.CoreUtil;
 
 import org.eclipse.core.net.proxy.IProxyService;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
@@ -50,10 +53,25 @@ public class LiferayCore extends Plugin
 
     private static LiferayProjectProviderReader providerReader;
 
+    private static final LiferayProjectCache projectCache = new LiferayProjectCache();
+
     public static ILiferayProject create( Object adaptable )
     {
         ILiferayProject project = null;
 
+        final boolean cacheable = adaptable instanceof IProject && plugin != null;
+        final long generation = projectCache.getGeneration();
+
+        if( cacheable )
+        {
+            project = projectCache.get( (IProject) adaptable );
+
+            if( project != null )
+            {
+                return project;
+            }
+        }
+
         if( adaptable != null )
         {
             final ILiferayProjectProvider[] providers = getProviders( adaptable.getClass() );
@@ -78,6 +96,12 @@ public class LiferayCore extends Plugin
             }
         }
 
+        // a project without a provider yet, e.g. while it is being imported, is looked up again next time
+        if( cacheable && project != null && ! ( project instanceof NoopLiferayProject ) )
+        {
+            projectCache.put( (IProject) adaptable, project, generation );
+        }
+
         return project;
     }
 
@@ -96,7 +120,7 @@ public class LiferayCore extends Plugin
 
             if( retval == null && lrproject != null )
             {
-                retval = lrproject.adapt( type );
+                retval = projectCache.adapt( lrproject, type );
             }
         }
 
@@ -216,6 +240,15 @@ public class LiferayCore extends Plugin
         return proxyService;
     }
 
+    /**
+     * Drops every cached {@link ILiferayProject}, for changes outside the workspace that providers depend on, like
+     * runtimes and SDKs.
+     */
+    public static void invalidateProjectCache()
+    {
+        projectCache.clear();
+    }
+
     public static void logError( IStatus status )
     {
         getDefault().getLog().log( status );
@@ -262,12 +295,20 @@ public class LiferayCore extends Plugin
         super.start( context );
         plugin = this;
 
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(
+            projectCache, IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE |
+                IResourceChangeEvent.PRE_DELETE );
+
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(
+            BundleOutputCache.workspaceListener, IResourceChangeEvent.POST_CHANGE );
+
         if( liferayLanguagePropertiesListener == null )
         {
             liferayLanguagePropertiesListener = new LiferayLanguagePropertiesListener();
 
             ResourcesPlugin.getWorkspace().addResourceChangeListener(
-                liferayLanguagePropertiesListener, IResourceChangeEvent.POST_CHANGE );
+                liferayLanguagePropertiesListener, IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE |
+                    IResourceChangeEvent.PRE_DELETE );
         }
     }
 
@@ -280,6 +321,13 @@ public class LiferayCore extends Plugin
         plugin = null;
         super.stop( context );
 
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener( projectCache );
+        projectCache.clear();
+
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener( BundleOutputCache.workspaceListener );
+
+        HttpConnectionPool.getDefault().closeAll();
+
         if( liferayLanguagePropertiesListener != null )
         {
             ResourcesPlugin.getWorkspace().removeResourceChangeListener( liferayLanguagePropertiesListener );
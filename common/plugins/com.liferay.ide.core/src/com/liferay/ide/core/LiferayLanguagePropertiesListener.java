@@ -18,6 +18,12 @@ package com.liferay.ide.core;
 import com.liferay.ide.core.util.CoreUtil;
 import com.liferay.ide.core.util.PropertiesUtil;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -30,13 +36,83 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
 
 /**
  * @author Kuo Zhang
  */
 public class LiferayLanguagePropertiesListener implements IResourceChangeListener, IResourceDeltaVisitor
 {
+
+    /**
+     * Validates the queued files of one project. Files and descriptors queued while the job is waiting or running are
+     * picked up by the same job, and using the project as scheduling rule lets different projects validate in parallel.
+     */
+    private static class ValidateEncodingJob extends WorkspaceJob
+    {
+        private final Map<IFile, IFile[]> pendingDescriptors = new LinkedHashMap<IFile, IFile[]>();
+        private final Set<IFile> pendingFiles = new LinkedHashSet<IFile>();
+
+        public ValidateEncodingJob( IProject project )
+        {
+            super( "Validate Liferay language properties encoding..." );
+
+            setRule( project );
+            setSystem( true );
+        }
+
+        public synchronized void queue( IFile[] files, IFile descriptor )
+        {
+            for( IFile file : files )
+            {
+                pendingFiles.add( file );
+            }
+
+            if( descriptor != null )
+            {
+                pendingDescriptors.put( descriptor, files );
+            }
+        }
+
+        @Override
+        public IStatus runInWorkspace( IProgressMonitor monitor ) throws CoreException
+        {
+            IFile[] files = null;
+            Map<IFile, IFile[]> descriptors = null;
+
+            synchronized( this )
+            {
+                files = pendingFiles.toArray( new IFile[0] );
+                descriptors = new LinkedHashMap<IFile, IFile[]>( pendingDescriptors );
+
+                pendingFiles.clear();
+                pendingDescriptors.clear();
+            }
+
+            for( IFile file : files )
+            {
+                if( monitor.isCanceled() )
+                {
+                    return Status.CANCEL_STATUS;
+                }
+
+                if( file.exists() )
+                {
+                    LiferayLanguagePropertiesValidator.getValidator( file ).validateEncoding();
+                }
+            }
+
+            for( Map.Entry<IFile, IFile[]> descriptor : descriptors.entrySet() )
+            {
+                LiferayLanguagePropertiesValidator.clearUnusedValidatorsAndMarkers(
+                    descriptor.getKey(), descriptor.getValue() );
+            }
+
+            return Status.OK_STATUS;
+        }
+    }
+
+    private final Map<IProject, ValidateEncodingJob> validateJobs = new HashMap<IProject, ValidateEncodingJob>();
+
     public LiferayLanguagePropertiesListener()
     {
         new WorkspaceJob( "clear abondoned liferay language properties markers" )
@@ -73,7 +149,7 @@ public class LiferayLanguagePropertiesListener implements IResourceChangeListene
                     if( file.equals( portletXml ) )
                     {
                         final IFile[] files = PropertiesUtil.getLanguagePropertiesFromPortletXml( portletXml );
-                        validateLanguagePropertiesEncoding( files, CoreUtil.getLiferayProject( file ) );
+                        validateLanguagePropertiesEncoding( files, portletXml );
 
                         return;
                     }
@@ -91,7 +167,7 @@ public class LiferayLanguagePropertiesListener implements IResourceChangeListene
                     if( file.equals( liferayHookXml ) )
                     {
                         final IFile[] files = PropertiesUtil.getLanguagePropertiesFromLiferayHookXml( liferayHookXml );
-                        validateLanguagePropertiesEncoding( files, CoreUtil.getLiferayProject( file ) );
+                        validateLanguagePropertiesEncoding( files, liferayHookXml );
 
                         return;
                     }
@@ -107,6 +183,14 @@ public class LiferayLanguagePropertiesListener implements IResourceChangeListene
             return;
         }
 
+        if( event.getResource() instanceof IProject )
+        {
+            // PRE_CLOSE and PRE_DELETE
+            removeProject( (IProject) event.getResource() );
+
+            return;
+        }
+
         try
         {
             event.getDelta().accept( this );
@@ -116,6 +200,23 @@ public class LiferayLanguagePropertiesListener implements IResourceChangeListene
         }
     }
 
+    private void removeProject( IProject project )
+    {
+        ValidateEncodingJob job = null;
+
+        synchronized( validateJobs )
+        {
+            job = validateJobs.remove( project );
+        }
+
+        if( job != null )
+        {
+            job.cancel();
+        }
+
+        LiferayLanguagePropertiesValidator.removeProject( project );
+    }
+
     public boolean visit( final IResourceDelta delta ) throws CoreException
     {
         switch( delta.getResource().getType() )
@@ -135,31 +236,27 @@ public class LiferayLanguagePropertiesListener implements IResourceChangeListene
         return false;
     }
 
-    private void validateLanguagePropertiesEncoding( final IFile[] files, final IProject project )
+    private void validateLanguagePropertiesEncoding( final IFile[] files, final IFile descriptor )
     {
-        final Job job = new WorkspaceJob( "Validate Liferay language properties encoding..." )
+        final IProject project = descriptor != null ? descriptor.getProject() : files[0].getProject();
+
+        ValidateEncodingJob job = null;
+
+        synchronized( validateJobs )
         {
-            @Override
-            public IStatus runInWorkspace( IProgressMonitor monitor ) throws CoreException
-            {
-                if( files != null && files.length > 0 )
-                {
-                    for( IFile file : files )
-                    {
-                        LiferayLanguagePropertiesValidator.getValidator( file ).validateEncoding();
-                    }
-                }
+            job = validateJobs.get( project );
 
-                if( project != null )
-                {
-                    LiferayLanguagePropertiesValidator.clearUnusedValidatorsAndMarkers( project );
-                }
+            if( job == null )
+            {
+                job = new ValidateEncodingJob( project );
 
-                return Status.OK_STATUS;
+                validateJobs.put( project, job );
             }
-        };
+        }
+
+        job.queue( files, descriptor );
 
-        job.setRule( CoreUtil.getWorkspaceRoot() );
+        // a no-op while the job is waiting, and queues another run if it is already running
         job.schedule();
     }
 
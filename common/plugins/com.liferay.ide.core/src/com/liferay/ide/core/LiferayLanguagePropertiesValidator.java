@@ -19,8 +19,11 @@ import com.liferay.ide.core.util.CoreUtil;
 import com.liferay.ide.core.util.PropertiesUtil;
 
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
 
@@ -44,6 +47,9 @@ public class LiferayLanguagePropertiesValidator
     private static WeakHashMap<IFile, WeakReference<LiferayLanguagePropertiesValidator>> filesAndValidators =
         new WeakHashMap<IFile, WeakReference<LiferayLanguagePropertiesValidator>>();
 
+    // language properties files last validated for each portlet.xml or liferay-hook.xml
+    private static final Map<IFile, Set<IFile>> languageFilesByDescriptor = new HashMap<IFile, Set<IFile>>();
+
     public static final String LOCATION_ENCODING= "Properties/Resource/Text file encoding";
 
     public final static String MESSAGE_LANGUAGE_PROPERTIES_ENCODING_NOT_DEFALUT = Msgs.languagePropertiesEncodingNotDefault;
@@ -81,41 +87,56 @@ public class LiferayLanguagePropertiesValidator
         }
     }
 
-    public static void clearUnusedValidatorsAndMarkers( IProject project ) throws CoreException
+    /**
+     * Removes the validators and markers of files no longer referenced by the given descriptor, comparing against the
+     * files seen the last time the descriptor was validated. The first time a descriptor is seen only the markers of
+     * its own project are scanned, instead of every marker in the workspace.
+     */
+    public static void clearUnusedValidatorsAndMarkers( IFile descriptor, IFile[] files ) throws CoreException
     {
-        synchronized( filesAndValidators )
+        final Set<IFile> currentFiles = new HashSet<IFile>( Arrays.asList( files ) );
+
+        Set<IFile> previousFiles = null;
+
+        synchronized( languageFilesByDescriptor )
         {
-            Set<IFile> files = filesAndValidators.keySet();
+            previousFiles = languageFilesByDescriptor.put( descriptor, currentFiles );
+        }
 
-            for( Iterator<IFile> iterator = files.iterator(); iterator.hasNext(); )
-            {
-                IFile file = iterator.next();
+        if( previousFiles == null )
+        {
+            final IProject project = descriptor.getProject();
 
-                if( ! PropertiesUtil.isLanguagePropertiesFile( file ) )
+            if( project.isAccessible() )
+            {
+                for( IMarker marker : project.findMarkers(
+                    LIFERAY_LANGUAGE_PROPERTIES_MARKER_TYPE, true, IResource.DEPTH_INFINITE ) )
                 {
-                    iterator.remove();
+                    final IResource resource = marker.getResource();
+
+                    if( ! resource.exists() ||
+                        ( resource.getType() == IResource.FILE && ! currentFiles.contains( resource ) &&
+                            ! PropertiesUtil.isLanguagePropertiesFile( (IFile) resource ) ) )
+                    {
+                        removeValidator( resource );
+                        marker.delete();
+                    }
                 }
             }
 
-            final IMarker[] markers =
-                project.getWorkspace().getRoot().findMarkers(
-                    LIFERAY_LANGUAGE_PROPERTIES_MARKER_TYPE, true, IResource.DEPTH_INFINITE );
+            return;
+        }
 
-            for( IMarker marker : markers )
+        for( IFile previousFile : previousFiles )
+        {
+            if( ! currentFiles.contains( previousFile ) &&
+                ( ! previousFile.exists() || ! PropertiesUtil.isLanguagePropertiesFile( previousFile ) ) )
             {
-                if( ! marker.getResource().exists() )
-                {
-                    marker.delete();
-                }
-                else
+                removeValidator( previousFile );
+
+                if( previousFile.exists() )
                 {
-                    if( marker.getResource().getType() == IResource.FILE )
-                    {
-                        if( ! files.contains( (IFile) marker.getResource() ) )
-                        {
-                            marker.delete();
-                        }
-                    }
+                    previousFile.deleteMarkers( LIFERAY_LANGUAGE_PROPERTIES_MARKER_TYPE, true, IResource.DEPTH_ZERO );
                 }
             }
         }
@@ -147,6 +168,42 @@ public class LiferayLanguagePropertiesValidator
         }
     }
 
+    /**
+     * Forgets the validators and descriptors of a project that is being closed or deleted.
+     */
+    public static void removeProject( IProject project )
+    {
+        synchronized( filesAndValidators )
+        {
+            for( Iterator<IFile> iterator = filesAndValidators.keySet().iterator(); iterator.hasNext(); )
+            {
+                if( project.equals( iterator.next().getProject() ) )
+                {
+                    iterator.remove();
+                }
+            }
+        }
+
+        synchronized( languageFilesByDescriptor )
+        {
+            for( Iterator<IFile> iterator = languageFilesByDescriptor.keySet().iterator(); iterator.hasNext(); )
+            {
+                if( project.equals( iterator.next().getProject() ) )
+                {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static void removeValidator( IResource resource )
+    {
+        synchronized( filesAndValidators )
+        {
+            filesAndValidators.remove( resource );
+        }
+    }
+
     private LiferayLanguagePropertiesValidator( IFile file )
     {
         this.file = file;
@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Caches the {@link ILiferayProject} resolved for each workspace project, along with the results of
+ * {@link ILiferayProject#adapt(Class)}, so that repeated {@link LiferayCore#create(Object)} calls do not walk every
+ * provider again. Entries are dropped when the project metadata or build files that providers look at change, and all
+ * of them when the build properties of an SDK in the workspace change or {@link LiferayCore#invalidateProjectCache()}
+ * is called for a runtime or SDK change. A project resolved while something was invalidated is not cached.
+ *
+ * @author agent
+ */
+public class LiferayProjectCache implements IResourceChangeListener, IResourceDeltaVisitor
+{
+
+    private static final Object NULL_ADAPTER = new Object();
+
+    private static final Set<String> PROJECT_FILES = new HashSet<String>( Arrays.asList( new String[] {
+        ".project", ".classpath", "pom.xml", "build.gradle", "settings.gradle", "build.xml", "bnd.bnd" } ) ); //$NON-NLS-1$
+
+    private static final String SETTINGS_FOLDER = ".settings"; //$NON-NLS-1$
+
+    private final ConcurrentMap<IProject, Entry> entries = new ConcurrentHashMap<IProject, Entry>();
+    private final ConcurrentMap<ILiferayProject, Entry> entriesByLiferayProject =
+        new ConcurrentHashMap<ILiferayProject, Entry>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public <T> T adapt( ILiferayProject lrproject, Class<T> type )
+    {
+        if( lrproject == null || type == null )
+        {
+            return null;
+        }
+
+        final Entry entry = entriesByLiferayProject.get( lrproject );
+
+        if( entry == null )
+        {
+            return lrproject.adapt( type );
+        }
+
+        final Object cached = entry.adapters.get( type );
+
+        if( cached != null )
+        {
+            hits.incrementAndGet();
+
+            return cached == NULL_ADAPTER ? null : type.cast( cached );
+        }
+
+        misses.incrementAndGet();
+
+        final T adapted = lrproject.adapt( type );
+
+        // only remember the adapter if the entry wasn't invalidated while adapting
+        if( entries.get( entry.project ) == entry )
+        {
+            entry.adapters.put( type, adapted == null ? NULL_ADAPTER : adapted );
+        }
+
+        return adapted;
+    }
+
+    public synchronized void clear()
+    {
+        generation.incrementAndGet();
+        entries.clear();
+        entriesByLiferayProject.clear();
+    }
+
+    public ILiferayProject get( IProject project )
+    {
+        final Entry entry = entries.get( project );
+
+        if( entry != null )
+        {
+            hits.incrementAndGet();
+
+            return entry.lrproject;
+        }
+
+        misses.incrementAndGet();
+
+        return null;
+    }
+
+    /**
+     * Returns the number of invalidations so far, to be passed to {@link #put(IProject, ILiferayProject, long)}.
+     */
+    public long getGeneration()
+    {
+        return generation.get();
+    }
+
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    public long getInvalidationCount()
+    {
+        return invalidations.get();
+    }
+
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+    public synchronized void invalidate( IProject project )
+    {
+        if( project == null )
+        {
+            return;
+        }
+
+        generation.incrementAndGet();
+
+        final Entry entry = entries.remove( project );
+
+        if( entry != null )
+        {
+            entriesByLiferayProject.remove( entry.lrproject );
+            invalidations.incrementAndGet();
+        }
+    }
+
+    private boolean isSDKProperties( IResource resource )
+    {
+        final String name = resource.getName();
+
+        return resource.getProjectRelativePath().segmentCount() == 1 && name.startsWith( "build." ) && //$NON-NLS-1$
+            name.endsWith( ".properties" ); //$NON-NLS-1$
+    }
+
+    private boolean isProjectMetadata( IResourceDelta delta )
+    {
+        final IResource resource = delta.getResource();
+
+        if( resource.getType() != IResource.FILE )
+        {
+            return false;
+        }
+
+        final String firstSegment = resource.getProjectRelativePath().segment( 0 );
+
+        return SETTINGS_FOLDER.equals( firstSegment ) ||
+            ( resource.getProjectRelativePath().segmentCount() == 1 && PROJECT_FILES.contains( resource.getName() ) );
+    }
+
+    /**
+     * Caches the given project, unless anything was invalidated since {@link #getGeneration()} returned the given
+     * generation, as the project may have been resolved from what changed.
+     */
+    public synchronized void put( IProject project, ILiferayProject lrproject, long expectedGeneration )
+    {
+        if( project != null && lrproject != null && generation.get() == expectedGeneration )
+        {
+            final Entry entry = new Entry( project, lrproject );
+            final Entry previous = entries.put( project, entry );
+
+            if( previous != null )
+            {
+                entriesByLiferayProject.remove( previous.lrproject );
+            }
+
+            entriesByLiferayProject.put( lrproject, entry );
+        }
+    }
+
+    public void resourceChanged( IResourceChangeEvent event )
+    {
+        if( event == null )
+        {
+            return;
+        }
+
+        if( event.getResource() instanceof IProject )
+        {
+            // PRE_CLOSE and PRE_DELETE
+            invalidate( (IProject) event.getResource() );
+        }
+
+        if( event.getDelta() != null && ! entries.isEmpty() )
+        {
+            try
+            {
+                event.getDelta().accept( this );
+            }
+            catch( CoreException e )
+            {
+                clear();
+            }
+        }
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LiferayProjectCache[size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            ", invalidations=" + getInvalidationCount() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    public boolean visit( IResourceDelta delta ) throws CoreException
+    {
+        final IResource resource = delta.getResource();
+
+        switch( resource.getType() )
+        {
+            case IResource.ROOT:
+                return true;
+
+            case IResource.PROJECT:
+            {
+                final IProject project = (IProject) resource;
+
+                if( ! entries.containsKey( project ) )
+                {
+                    // may still be an sdk the cached plugin projects are built with
+                    return delta.getKind() == IResourceDelta.CHANGED;
+                }
+
+                final int flags = delta.getFlags();
+
+                if( delta.getKind() != IResourceDelta.CHANGED ||
+                    ( flags & ( IResourceDelta.OPEN | IResourceDelta.DESCRIPTION | IResourceDelta.MOVED_FROM |
+                        IResourceDelta.MOVED_TO ) ) != 0 )
+                {
+                    invalidate( project );
+
+                    return false;
+                }
+
+                return true;
+            }
+
+            case IResource.FOLDER:
+                return resource.getProjectRelativePath().segmentCount() == 1 &&
+                    SETTINGS_FOLDER.equals( resource.getName() );
+
+            case IResource.FILE:
+            {
+                if( isSDKProperties( resource ) )
+                {
+                    clear();
+                }
+                else if( isProjectMetadata( delta ) && entries.containsKey( resource.getProject() ) )
+                {
+                    invalidate( resource.getProject() );
+                }
+
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    private static class Entry
+    {
+        final ConcurrentMap<Class<?>, Object> adapters = new ConcurrentHashMap<Class<?>, Object>();
+        final ILiferayProject lrproject;
+        final IProject project;
+
+        Entry( IProject project, ILiferayProject lrproject )
+        {
+            this.project = project;
+            this.lrproject = lrproject;
+        }
+    }
+
+}
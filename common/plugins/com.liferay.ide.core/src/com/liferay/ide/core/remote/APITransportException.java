@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.core.remote;
+
+/**
+ * Thrown when a request failed on the way to or from the server, rather than being answered with an error: an I/O
+ * error on the connection, including read timeouts and connections dropped while waiting for the response, or a
+ * server or proxy that refuses how the request body was sent (411 Length Required, 501 Not Implemented). Except for
+ * those two status codes, the server may already have received and processed the request, so only idempotent calls
+ * can simply be sent again.
+ *
+ * @author agent
+ */
+@SuppressWarnings( "serial" )
+public class APITransportException extends APIException
+{
+
+    public APITransportException( String api, Exception e )
+    {
+        super( api, e );
+    }
+
+    public APITransportException( String api, String msg )
+    {
+        super( api, msg );
+    }
+
+}
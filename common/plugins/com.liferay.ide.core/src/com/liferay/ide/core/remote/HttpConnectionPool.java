@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.core.remote;
+
+import com.liferay.ide.core.LiferayCore;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.params.ConnRoutePNames;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Keeps one keep-alive http client per host, port and proxy, shared by every {@link RemoteConnection} pointing at the
+ * same route, so that status polling and module queries reuse open connections instead of handshaking per request.
+ * Only connections are shared: each RemoteConnection executes its requests with its own cookie store.
+ * Each route also records request counts, errors and a latency histogram.
+ *
+ * @author agent
+ */
+public class HttpConnectionPool
+{
+
+    public static final String PREF_CONNECT_TIMEOUT = "remote.http.connect.timeout"; //$NON-NLS-1$
+    public static final String PREF_KEEP_ALIVE = "remote.http.keep.alive"; //$NON-NLS-1$
+    public static final String PREF_MAX_PER_ROUTE = "remote.http.max.per.route"; //$NON-NLS-1$
+    public static final String PREF_MAX_TOTAL = "remote.http.max.total"; //$NON-NLS-1$
+    public static final String PREF_READ_TIMEOUT = "remote.http.read.timeout"; //$NON-NLS-1$
+
+    private static final HttpConnectionPool instance = new HttpConnectionPool();
+
+    private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<String, Route>();
+
+    public static HttpConnectionPool getDefault()
+    {
+        return instance;
+    }
+
+    private static int getPreference( String key, int defaultValue )
+    {
+        return Platform.getPreferencesService().getInt( LiferayCore.PLUGIN_ID, key, defaultValue, null );
+    }
+
+    public synchronized void closeAll()
+    {
+        for( Route route : routes.values() )
+        {
+            route.client.getConnectionManager().shutdown();
+        }
+
+        routes.clear();
+    }
+
+    private Route createRoute( String key, String proxyHost, int proxyPort, boolean socks )
+    {
+        final SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register( new Scheme( "http", 80, PlainSocketFactory.getSocketFactory() ) ); //$NON-NLS-1$
+
+        if( socks )
+        {
+            schemeRegistry.register( new Scheme( "socks", proxyPort, PlainSocketFactory.getSocketFactory() ) ); //$NON-NLS-1$
+        }
+
+        final PoolingClientConnectionManager cm = new PoolingClientConnectionManager( schemeRegistry );
+        cm.setMaxTotal( getPreference( PREF_MAX_TOTAL, 20 ) );
+        cm.setDefaultMaxPerRoute( getPreference( PREF_MAX_PER_ROUTE, 5 ) );
+
+        final long keepAlive = TimeUnit.SECONDS.toMillis( getPreference( PREF_KEEP_ALIVE, 30 ) );
+
+        final DefaultHttpClient client = new DefaultHttpClient( cm );
+
+        // a server that stops answering must not block the caller forever, requests that wait longer on purpose set
+        // their own read timeout
+        HttpConnectionParams.setConnectionTimeout(
+            client.getParams(), (int) TimeUnit.SECONDS.toMillis( getPreference( PREF_CONNECT_TIMEOUT, 30 ) ) );
+        HttpConnectionParams.setSoTimeout(
+            client.getParams(), (int) TimeUnit.SECONDS.toMillis( getPreference( PREF_READ_TIMEOUT, 300 ) ) );
+
+        // servers that don't send a keep-alive header are assumed to keep connections open for the configured time
+        client.setKeepAliveStrategy( new DefaultConnectionKeepAliveStrategy()
+        {
+            @Override
+            public long getKeepAliveDuration( HttpResponse response, HttpContext context )
+            {
+                final long duration = super.getKeepAliveDuration( response, context );
+
+                return duration > 0 ? duration : keepAlive;
+            }
+        });
+
+        if( proxyHost != null && socks )
+        {
+            client.getParams().setParameter( "socks.host", proxyHost ); //$NON-NLS-1$
+            client.getParams().setParameter( "socks.port", proxyPort ); //$NON-NLS-1$
+        }
+        else if( proxyHost != null )
+        {
+            client.getParams().setParameter( ConnRoutePNames.DEFAULT_PROXY, new HttpHost( proxyHost, proxyPort ) );
+        }
+
+        return new Route( key, client, cm, keepAlive );
+    }
+
+    /**
+     * Returns the shared client for the given route, creating it on first use.
+     *
+     * @param proxyHost the http or socks proxy to go through, or <code>null</code> for a direct connection
+     */
+    public Route getRoute( String host, int port, String proxyHost, int proxyPort, boolean socks )
+    {
+        final String key =
+            host + ":" + port + ( proxyHost == null ? "" : ( socks ? "|socks:" : "|proxy:" ) + proxyHost + ":" + //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+                proxyPort );
+
+        Route route = routes.get( key );
+
+        if( route == null )
+        {
+            synchronized( this )
+            {
+                route = routes.get( key );
+
+                if( route == null )
+                {
+                    route = createRoute( key, proxyHost, proxyPort, socks );
+
+                    routes.put( key, route );
+                }
+            }
+        }
+
+        route.closeIdleConnections();
+
+        return route;
+    }
+
+    public Map<String, Route> getRoutes()
+    {
+        return Collections.unmodifiableMap( new HashMap<String, Route>( routes ) );
+    }
+
+    public static class Route extends RequestStats
+    {
+
+        private final HttpClient client;
+        private final PoolingClientConnectionManager connectionManager;
+        private final String key;
+        private final long keepAlive;
+
+        Route( String key, HttpClient client, PoolingClientConnectionManager connectionManager, long keepAlive )
+        {
+            this.key = key;
+            this.client = client;
+            this.connectionManager = connectionManager;
+            this.keepAlive = keepAlive;
+        }
+
+        void closeIdleConnections()
+        {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections( keepAlive, TimeUnit.MILLISECONDS );
+        }
+
+        public HttpClient getClient()
+        {
+            return client;
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+
+        public int getOpenConnections()
+        {
+            final PoolStats stats = connectionManager.getTotalStats();
+
+            return stats.getLeased() + stats.getAvailable();
+        }
+
+        @Override
+        public String toString()
+        {
+            final StringBuilder sb = new StringBuilder( key );
+
+            sb.append( "[open=" ).append( getOpenConnections() ); //$NON-NLS-1$
+            sb.append( ", requests=" ).append( getRequestCount() ); //$NON-NLS-1$
+            sb.append( ", errors=" ).append( getErrorCount() ); //$NON-NLS-1$
+            sb.append( ", latencies=" ); //$NON-NLS-1$
+
+            final long[] histogram = getLatencyHistogram();
+
+            for( int i = 0; i < histogram.length; i++ )
+            {
+                sb.append( i < LATENCY_BUCKETS.length ? "<=" + LATENCY_BUCKETS[i] : ">" + LATENCY_BUCKETS[i - 1] ); //$NON-NLS-1$ //$NON-NLS-2$
+                sb.append( "ms:" ).append( histogram[i] ).append( i < histogram.length - 1 ? " " : "]" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+
+            return sb.toString();
+        }
+    }
+
+}
@@ -21,32 +21,35 @@ import com.liferay.ide.core.LiferayCore;
 import com.liferay.ide.core.util.CoreUtil;
 import com.liferay.ide.core.util.StringPool;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
-import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.HttpClient;
+import org.apache.http.client.CookieStore;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.ClientContext;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.conn.params.ConnRoutePNames;
-import org.apache.http.conn.scheme.PlainSocketFactory;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.conn.scheme.SchemeRegistry;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.eclipse.core.net.proxy.IProxyData;
 import org.eclipse.core.net.proxy.IProxyService;
@@ -62,10 +65,28 @@ import org.json.JSONObject;
 public class RemoteConnection implements IRemoteConnection
 {
 
+    // bytes read past the requested length to keep the connection, when a server sends more than asked for
+    private static final int MAX_CACHED_RESPONSES = 64;
+    private static final long MAX_SKIPPED_BYTES = 256 * 1024;
+
+    private volatile String authorizationHeader;
+    // the least recently used responses are dropped, as every query string is an entry of its own
+    @SuppressWarnings( "serial" )
+    private final Map<String, CachedResponse> cachedResponses =
+        Collections.synchronizedMap( new LinkedHashMap<String, CachedResponse>( 16, 0.75f, true )
+        {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, CachedResponse> eldest )
+            {
+                return size() > MAX_CACHED_RESPONSES;
+            }
+        } );
+    private final CookieStore cookieStore = new BasicCookieStore();
     private String hostname;
-    private HttpClient httpClient;
+    private volatile HttpConnectionPool.Route httpRoute;
     private int httpPort;
     private String password;
+    private final RequestStats requestStats = new RequestStats();
     private String username;
 
     protected Object deleteJSONAPI( Object... args ) throws APIException
@@ -80,16 +101,163 @@ public class RemoteConnection implements IRemoteConnection
         return httpJSONAPI( deleteAPIMethod, args );
     }
 
+    /**
+     * Reads at most <code>maxLength</code> bytes of a raw (non json) api. Returns <code>null</code> if the server
+     * answers that the requested range is not satisfiable, i.e. there is nothing new to read.
+     *
+     * @param params name and value pairs added to the query
+     */
+    protected byte[] getBytesAPI( String api, int maxLength, String... params ) throws APIException
+    {
+        final HttpGet request = new HttpGet();
+        final HttpConnectionPool.Route route = getHttpRoute();
+        final long start = System.currentTimeMillis();
+
+        boolean error = true;
+
+        try
+        {
+            final URIBuilder builder = new URIBuilder();
+            builder.setScheme( "http" ); //$NON-NLS-1$
+            builder.setHost( getHost() );
+            builder.setPort( getHttpPort() );
+            builder.setPath( api );
+
+            for( int i = 0; i + 1 < params.length; i += 2 )
+            {
+                builder.setParameter( params[i], params[i + 1] );
+            }
+
+            request.setURI( builder.build() );
+
+            final String authorization = getAuthorizationHeader();
+
+            if( authorization != null )
+            {
+                request.setHeader( "Authorization", authorization );
+            }
+
+            // only what fits, so that the rest of the response doesn't have to be thrown away with the connection
+            request.setHeader( "Range", "bytes=0-" + ( maxLength - 1 ) ); //$NON-NLS-1$ //$NON-NLS-2$
+
+            final HttpResponse response = execute( route, request );
+            final int statusCode = response.getStatusLine().getStatusCode();
+            final HttpEntity entity = response.getEntity();
+
+            if( statusCode == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE )
+            {
+                EntityUtils.consume( entity );
+
+                error = false;
+
+                return null;
+            }
+            else if( statusCode != HttpStatus.SC_OK && statusCode != HttpStatus.SC_PARTIAL_CONTENT )
+            {
+                EntityUtils.consume( entity );
+
+                throw new APIException( api, response.getStatusLine().getReasonPhrase() );
+            }
+
+            final byte[] buffer = new byte[maxLength];
+
+            int length = 0;
+
+            if( entity != null )
+            {
+                final InputStream in = entity.getContent();
+
+                int read = 0;
+
+                while( length < maxLength && ( read = in.read( buffer, length, maxLength - length ) ) != -1 )
+                {
+                    length += read;
+                }
+
+                if( length == maxLength && in.read() != -1 && ! skip( in, MAX_SKIPPED_BYTES ) )
+                {
+                    // the server ignored the range and the rest is large, it is cheaper to reconnect than to read it
+                    request.abort();
+                }
+                else
+                {
+                    EntityUtils.consume( entity );
+                }
+            }
+
+            error = false;
+
+            final byte[] retval = new byte[length];
+            System.arraycopy( buffer, 0, retval, 0, length );
+
+            return retval;
+        }
+        catch( APIException e )
+        {
+            throw e;
+        }
+        catch( Exception e )
+        {
+            throw new APIException( api, e );
+        }
+        finally
+        {
+            request.releaseConnection();
+
+            final long millis = System.currentTimeMillis() - start;
+
+            route.record( millis, error );
+            requestStats.record( millis, error );
+        }
+    }
+
+    /**
+     * Executes the request on the shared client of the route, but with the cookies of this connection, so that the
+     * session of one server definition is never sent with the requests of another one on the same host and port.
+     */
+    private HttpResponse execute( HttpConnectionPool.Route route, HttpUriRequest request ) throws IOException
+    {
+        final HttpContext context = new BasicHttpContext();
+        context.setAttribute( ClientContext.COOKIE_STORE, cookieStore );
+
+        return route.getClient().execute( request, context );
+    }
+
     public String getHost()
     {
         return hostname;
     }
 
-    private HttpClient getHttpClient()
+    private String getAuthorizationHeader()
+    {
+        String retval = this.authorizationHeader;
+
+        if( retval == null && !CoreUtil.isNullOrEmpty( getUsername() ) && !CoreUtil.isNullOrEmpty( getPassword() ) )
+        {
+            final String encoding = getUsername() + ":" + getPassword();
+
+            retval = "Basic " + Base64.encodeBase64String( encoding.getBytes() );
+
+            this.authorizationHeader = retval;
+        }
+
+        return retval;
+    }
+
+    public HttpConnectionPool.Route getHttpRoute()
     {
-        if( this.httpClient == null )
+        HttpConnectionPool.Route retval = this.httpRoute;
+
+        if( retval != null )
         {
-            DefaultHttpClient newDefaultHttpClient = null;
+            // the pool only does this when it is asked for the route
+            retval.closeIdleConnections();
+        }
+        else
+        {
+            String proxyHost = null;
+            int proxyPort = -1;
+            boolean socks = false;
 
             if( getUsername() != null || getPassword() != null )
             {
@@ -104,25 +272,13 @@ public class RemoteConnection implements IRemoteConnection
                     {
                         if( data.getHost() != null && data.getPort() > 0 )
                         {
-                            SchemeRegistry schemeRegistry = new SchemeRegistry();
-                            schemeRegistry.register( new Scheme(
-                                "http", data.getPort(), PlainSocketFactory.getSocketFactory() ) ); //$NON-NLS-1$
-
-                            PoolingClientConnectionManager cm = new PoolingClientConnectionManager( schemeRegistry );
-                            cm.setMaxTotal( 200 );
-                            cm.setDefaultMaxPerRoute( 20 );
-
-                            DefaultHttpClient newHttpClient = new DefaultHttpClient( cm );
-                            HttpHost proxy = new HttpHost( data.getHost(), data.getPort() );
-
-                            newHttpClient.getParams().setParameter( ConnRoutePNames.DEFAULT_PROXY, proxy );
-
-                            newDefaultHttpClient = newHttpClient;
+                            proxyHost = data.getHost();
+                            proxyPort = data.getPort();
                             break;
                         }
                     }
 
-                    if( newDefaultHttpClient == null )
+                    if( proxyHost == null )
                     {
                         uri = new URI( "SOCKS://" + getHost() + ":" + getHttpPort() ); //$NON-NLS-1$ //$NON-NLS-2$
                         proxyDataForHost = proxyService.select( uri );
@@ -131,13 +287,9 @@ public class RemoteConnection implements IRemoteConnection
                         {
                             if( data.getHost() != null )
                             {
-                                DefaultHttpClient newHttpClient = new DefaultHttpClient();
-                                newHttpClient.getParams().setParameter( "socks.host", data.getHost() ); //$NON-NLS-1$
-                                newHttpClient.getParams().setParameter( "socks.port", data.getPort() ); //$NON-NLS-1$
-                                newHttpClient.getConnectionManager().getSchemeRegistry().register(
-                                    new Scheme( "socks", data.getPort(), PlainSocketFactory.getSocketFactory() ) ); //$NON-NLS-1$
-
-                                newDefaultHttpClient = newHttpClient;
+                                proxyHost = data.getHost();
+                                proxyPort = data.getPort();
+                                socks = true;
                                 break;
                             }
                         }
@@ -147,21 +299,14 @@ public class RemoteConnection implements IRemoteConnection
                 {
                     LiferayCore.logError( "Unable to read proxy data", e ); //$NON-NLS-1$
                 }
+            }
 
-                if( newDefaultHttpClient == null )
-                {
-                    newDefaultHttpClient = new DefaultHttpClient();
-                }
+            retval = HttpConnectionPool.getDefault().getRoute( getHost(), getHttpPort(), proxyHost, proxyPort, socks );
 
-                this.httpClient = newDefaultHttpClient;
-            }
-            else
-            {
-                this.httpClient = new DefaultHttpClient();
-            }
+            this.httpRoute = retval;
         }
 
-        return this.httpClient;
+        return retval;
     }
 
     public int getHttpPort()
@@ -171,29 +316,84 @@ public class RemoteConnection implements IRemoteConnection
 
     protected String getHttpResponse( HttpUriRequest request ) throws Exception
     {
-        if( !CoreUtil.isNullOrEmpty( getUsername() ) && !CoreUtil.isNullOrEmpty( getPassword() ) )
+        final String authorization = getAuthorizationHeader();
+
+        if( authorization != null )
         {
-            String encoding = getUsername() + ":" + getPassword();
+            request.setHeader( "Authorization", authorization );
+        }
 
-            request.setHeader( "Authorization", "Basic " + Base64.encodeBase64String( encoding.getBytes() ) );
+        // GETs answered with an etag before are revalidated instead of downloaded again
+        final String cacheKey = request instanceof HttpGet ? request.getURI().toString() : null;
+        final CachedResponse cached = cacheKey != null ? cachedResponses.get( cacheKey ) : null;
+
+        if( cached != null )
+        {
+            request.setHeader( "If-None-Match", cached.etag );
         }
 
-        HttpResponse response = getHttpClient().execute( request );
-        int statusCode = response.getStatusLine().getStatusCode();
+        final HttpConnectionPool.Route route = getHttpRoute();
+        final long start = System.currentTimeMillis();
 
-        if( statusCode == HttpStatus.SC_OK )
+        boolean error = true;
+
+        try
         {
+            HttpResponse response = execute( route, request );
+            int statusCode = response.getStatusLine().getStatusCode();
+
             HttpEntity entity = response.getEntity();
 
-            String body = CoreUtil.readStreamToString( entity.getContent(), false );
+            if( statusCode == HttpStatus.SC_NOT_MODIFIED && cached != null )
+            {
+                EntityUtils.consume( entity );
+
+                error = false;
+
+                return cached.body;
+            }
+            else if( statusCode == HttpStatus.SC_OK )
+            {
+                String body = CoreUtil.readStreamToString( entity.getContent(), false );
+
+                EntityUtils.consume( entity );
 
-            EntityUtils.consume( entity );
+                final Header etag = response.getFirstHeader( "ETag" );
 
-            return body;
+                if( cacheKey != null && etag != null )
+                {
+                    cachedResponses.put( cacheKey, new CachedResponse( etag.getValue(), body ) );
+                }
+                else if( cached != null )
+                {
+                    cachedResponses.remove( cacheKey );
+                }
+
+                error = false;
+
+                return body;
+            }
+            else
+            {
+                // consume the entity so the connection can go back to the pool
+                EntityUtils.consume( entity );
+
+                if( statusCode == HttpStatus.SC_LENGTH_REQUIRED || statusCode == HttpStatus.SC_NOT_IMPLEMENTED )
+                {
+                    // the request body could not be sent the way it was
+                    throw new APITransportException(
+                        request.getURI().getPath(), response.getStatusLine().getReasonPhrase() );
+                }
+
+                return response.getStatusLine().getReasonPhrase();
+            }
         }
-        else
+        finally
         {
-            return response.getStatusLine().getReasonPhrase();
+            final long millis = System.currentTimeMillis() - start;
+
+            route.record( millis, error );
+            requestStats.record( millis, error );
         }
     }
 
@@ -236,6 +436,14 @@ public class RemoteConnection implements IRemoteConnection
         return password;
     }
 
+    /**
+     * Returns the statistics of the requests made through this connection only, unlike those of its shared route.
+     */
+    public RequestStats getRequestStats()
+    {
+        return requestStats;
+    }
+
     public String getUsername()
     {
         return username;
@@ -340,6 +548,10 @@ public class RemoteConnection implements IRemoteConnection
         {
             throw e;
         }
+        catch( IOException e )
+        {
+            throw new APITransportException( api, e );
+        }
         catch( Exception e )
         {
             throw new APIException( api, e );
@@ -371,6 +583,31 @@ public class RemoteConnection implements IRemoteConnection
         return httpJSONAPI( post, args );
     }
 
+    /**
+     * Reads the stream up to its end, unless that is more than <code>limit</code> bytes away.
+     *
+     * @return <code>true</code> if the end of the stream was reached
+     */
+    private static boolean skip( InputStream in, long limit ) throws IOException
+    {
+        final byte[] buffer = new byte[8192];
+
+        long skipped = 0;
+        int read = 0;
+
+        while( ( read = in.read( buffer ) ) != -1 )
+        {
+            skipped += read;
+
+            if( skipped > limit )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     public void setHost( String host )
     {
         this.hostname = host;
@@ -406,12 +643,27 @@ public class RemoteConnection implements IRemoteConnection
         releaseHttpClient();
     }
 
+    /**
+     * Forgets the route and credentials of this connection, the pooled client itself stays open for other connections
+     * to the same route until {@link HttpConnectionPool#closeAll()}.
+     */
     public void releaseHttpClient()
     {
-        if( httpClient != null )
+        this.httpRoute = null;
+        this.authorizationHeader = null;
+        this.cachedResponses.clear();
+        this.cookieStore.clear();
+    }
+
+    private static class CachedResponse
+    {
+        final String body;
+        final String etag;
+
+        CachedResponse( String etag, String body )
         {
-            this.httpClient.getConnectionManager().shutdown();
-            this.httpClient = null;
+            this.etag = etag;
+            this.body = body;
         }
     }
 }
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.core.remote;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Request counts, errors and a latency histogram, recorded for a whole {@link HttpConnectionPool.Route} as well as
+ * for each {@link RemoteConnection}.
+ *
+ * @author agent
+ */
+public class RequestStats
+{
+
+    /**
+     * Upper bounds in milliseconds of the latency histogram buckets, the last bucket counts everything slower.
+     */
+    public static final long[] LATENCY_BUCKETS = { 10, 50, 100, 250, 500, 1000, 5000 };
+
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLongArray latencies = new AtomicLongArray( LATENCY_BUCKETS.length + 1 );
+    private final AtomicLong requests = new AtomicLong();
+    private final long since = System.currentTimeMillis();
+    private final AtomicLong totalLatency = new AtomicLong();
+
+    public long getAverageLatency()
+    {
+        final long count = requests.get();
+
+        return count == 0 ? 0 : totalLatency.get() / count;
+    }
+
+    public long getErrorCount()
+    {
+        return errors.get();
+    }
+
+    public long[] getLatencyHistogram()
+    {
+        final long[] retval = new long[latencies.length()];
+
+        for( int i = 0; i < retval.length; i++ )
+        {
+            retval[i] = latencies.get( i );
+        }
+
+        return retval;
+    }
+
+    public long getRequestCount()
+    {
+        return requests.get();
+    }
+
+    public double getRequestsPerMinute()
+    {
+        final long elapsed = Math.max( System.currentTimeMillis() - since, 1 );
+
+        return requests.get() * 60000d / elapsed;
+    }
+
+    void record( long millis, boolean error )
+    {
+        requests.incrementAndGet();
+        totalLatency.addAndGet( millis );
+
+        if( error )
+        {
+            errors.incrementAndGet();
+        }
+
+        int bucket = 0;
+
+        while( bucket < LATENCY_BUCKETS.length && millis > LATENCY_BUCKETS[bucket] )
+        {
+            bucket++;
+        }
+
+        latencies.incrementAndGet( bucket );
+    }
+
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.core.util;
+
+import com.liferay.ide.core.ILiferayProject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Matches language properties files of one project against all the patterns declared in its portlet.xml and
+ * liferay-hook.xml with a single combined regular expression. A matcher stays valid as long as the project resolves
+ * to the same {@link ILiferayProject} and neither descriptor has been modified.
+ *
+ * @author agent
+ */
+class LanguagePropertiesMatcher
+{
+
+    private final IFile liferayHookXml;
+    private final long liferayHookXmlStamp;
+    private final ILiferayProject lrproject;
+    private final Pattern pattern;
+    private final IFile portletXml;
+    private final long portletXmlStamp;
+    private final IPath[] srcFolderLocations;
+
+    LanguagePropertiesMatcher(
+        ILiferayProject lrproject, IFile portletXml, IFile liferayHookXml, IFolder[] srcFolders, List<Pattern> patterns )
+    {
+        this.lrproject = lrproject;
+        this.portletXml = portletXml;
+        this.portletXmlStamp = stamp( portletXml );
+        this.liferayHookXml = liferayHookXml;
+        this.liferayHookXmlStamp = stamp( liferayHookXml );
+
+        final List<IPath> locations = new ArrayList<IPath>();
+
+        if( srcFolders != null )
+        {
+            for( IFolder srcFolder : srcFolders )
+            {
+                if( srcFolder.getLocation() != null )
+                {
+                    locations.add( srcFolder.getLocation() );
+                }
+            }
+        }
+
+        this.srcFolderLocations = locations.toArray( new IPath[0] );
+
+        if( patterns.isEmpty() )
+        {
+            this.pattern = null;
+        }
+        else
+        {
+            final StringBuilder regex = new StringBuilder();
+
+            for( Pattern p : patterns )
+            {
+                if( regex.length() > 0 )
+                {
+                    regex.append( '|' );
+                }
+
+                regex.append( "(?:" ).append( p.pattern() ).append( ')' ); //$NON-NLS-1$
+            }
+
+            this.pattern = Pattern.compile( regex.toString() );
+        }
+    }
+
+    private static long stamp( IFile file )
+    {
+        return file == null ? IResource.NULL_STAMP : file.getModificationStamp();
+    }
+
+    boolean isValid( ILiferayProject current )
+    {
+        return current == lrproject && stamp( portletXml ) == portletXmlStamp &&
+            stamp( liferayHookXml ) == liferayHookXmlStamp;
+    }
+
+    boolean matches( IPath fileLocation )
+    {
+        if( pattern == null || fileLocation == null )
+        {
+            return false;
+        }
+
+        for( IPath srcFolderLocation : srcFolderLocations )
+        {
+            if( srcFolderLocation.isPrefixOf( fileLocation ) )
+            {
+                final IPath relativeLocation =
+                    fileLocation.removeFirstSegments( srcFolderLocation.segmentCount() ).setDevice( null );
+                final String relativePath =
+                    relativeLocation.makeRelative().toString().replace( PropertiesUtil.PROPERTIES_FILE_SUFFIX, "" ); //$NON-NLS-1$
+
+                if( pattern.matcher( relativePath ).matches() )
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -25,8 +25,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
@@ -59,6 +64,7 @@ public class PropertiesUtil
     private static class LanguageFileInfo
     {
         private final IFile liferayHookXml;
+        private final List<Pattern> matchers = new ArrayList<Pattern>();
         private final long modificationStamp;
         private final List<String> vals = new ArrayList<String>();
 
@@ -71,6 +77,12 @@ public class PropertiesUtil
         public void addLanguagePropertiesPattern( String languagePropertiesVal )
         {
             vals.add(languagePropertiesVal);
+            addMatcher( matchers, languagePropertiesVal );
+        }
+
+        public List<Pattern> getLanguagePropertyMatchers()
+        {
+            return matchers;
         }
 
         public String[] getLanguagePropertyPatterns()
@@ -147,7 +159,9 @@ public class PropertiesUtil
         private final long modificationStamp;
         private final IFile portletXml;
         private final Set<String> resourceBundles = new HashSet<String>();
+        private final List<Pattern> resourceBundlesMatchers = new ArrayList<Pattern>();
         private final List<String> resourceBundlesPatterns = new ArrayList<String>();
+        private final List<Pattern> supportedLocaleMatchers = new ArrayList<Pattern>();
         private final List<String> supportedLocalePatterns = new ArrayList<String>();
 
         public ResourceNodeInfo( IFile file )
@@ -158,10 +172,12 @@ public class PropertiesUtil
         public void addResourceBundlePattern( String resourceBundlePattern )
         {
             this.resourceBundlesPatterns.add( resourceBundlePattern );
+            addMatcher( this.resourceBundlesMatchers, resourceBundlePattern );
         }
         public void addSupportedLocalePattern( String supportedLocalePattern )
         {
             this.supportedLocalePatterns.add( supportedLocalePattern );
+            addMatcher( this.supportedLocaleMatchers, supportedLocalePattern );
         }
 
         public long getModificationStamp()
@@ -179,11 +195,21 @@ public class PropertiesUtil
             return this.resourceBundles;
         }
 
+        public List<Pattern> getResourceBundleMatchers()
+        {
+            return this.resourceBundlesMatchers;
+        }
+
         public String[] getResourceBundlePatterns()
         {
             return this.resourceBundlesPatterns.toArray( new String[0] );
         }
 
+        public List<Pattern> getSupportedLocaleMatchers()
+        {
+            return this.supportedLocaleMatchers;
+        }
+
         public String[] getSupportedLocalePatterns()
         {
             return this.supportedLocalePatterns.toArray( new String[0] );
@@ -207,11 +233,47 @@ public class PropertiesUtil
 
     public final static String PROPERTIES_FILE_SUFFIX = ".properties";
 
+    // descriptors of this many projects are kept parsed, beyond that the cache starts evicting entries
+    private final static int MAX_CACHED_DESCRIPTORS = 128;
+
     private final static SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
 
-    private static LanguageFileInfo tmpLanguageFileInfo = null;
+    private final static ConcurrentMap<IPath, LanguageFileInfo> languageFileInfos =
+        new ConcurrentHashMap<IPath, LanguageFileInfo>();
+
+    private final static ConcurrentMap<IPath, LanguagePropertiesMatcher> languagePropertiesMatchers =
+        new ConcurrentHashMap<IPath, LanguagePropertiesMatcher>();
+
+    private final static ConcurrentMap<IPath, ResourceNodeInfo> resourceNodeInfos =
+        new ConcurrentHashMap<IPath, ResourceNodeInfo>();
+
+    private static void addMatcher( List<Pattern> matchers, String regex )
+    {
+        try
+        {
+            matchers.add( Pattern.compile( regex ) );
+        }
+        catch( PatternSyntaxException e )
+        {
+            // descriptor values that are not valid regular expressions can never match a file
+        }
+    }
+
+    private static <T> void cacheDescriptorInfo( ConcurrentMap<IPath, T> cache, IPath key, T info )
+    {
+        if( cache.size() >= MAX_CACHED_DESCRIPTORS )
+        {
+            final Iterator<IPath> keys = cache.keySet().iterator();
+
+            while( keys.hasNext() && cache.size() >= MAX_CACHED_DESCRIPTORS )
+            {
+                keys.next();
+                keys.remove();
+            }
+        }
 
-    private static ResourceNodeInfo tmpResourceNodeInfo = null;
+        cache.put( key, info );
+    }
 
     public static void encodeLanguagePropertiesFilesToDefault( IResource resource, final IProgressMonitor monitor )
     {
@@ -424,10 +486,14 @@ public class PropertiesUtil
         }
     }
 
-    private static synchronized LanguageFileInfo getLanguageFileInfo( IFile liferayHookXml )
+    private static LanguageFileInfo getLanguageFileInfo( IFile liferayHookXml )
     {
-        if( tmpLanguageFileInfo == null || ! tmpLanguageFileInfo.getLiferayHookXml().equals( liferayHookXml ) ||
-            tmpLanguageFileInfo.getModificationStamp() != liferayHookXml.getModificationStamp() )
+        final IPath key = liferayHookXml.getFullPath();
+
+        LanguageFileInfo languageFileInfo = languageFileInfos.get( key );
+
+        if( languageFileInfo == null || ! languageFileInfo.getLiferayHookXml().equals( liferayHookXml ) ||
+            languageFileInfo.getModificationStamp() != liferayHookXml.getModificationStamp() )
         {
             final LanguageFileInfo retval = new LanguageFileInfo( liferayHookXml );
 
@@ -495,10 +561,48 @@ public class PropertiesUtil
                 LiferayCore.logError( "Error resolving " + ILiferayConstants.LIFERAY_HOOK_XML_FILE, e );
             }
 
-            tmpLanguageFileInfo = retval;
+            cacheDescriptorInfo( languageFileInfos, key, retval );
+
+            languageFileInfo = retval;
+        }
+
+        return languageFileInfo;
+    }
+
+    private static LanguagePropertiesMatcher getLanguagePropertiesMatcher(
+        IProject project, ILiferayProject liferayProject )
+    {
+        final IPath key = project.getFullPath();
+
+        LanguagePropertiesMatcher matcher = languagePropertiesMatchers.get( key );
+
+        if( matcher == null || ! matcher.isValid( liferayProject ) )
+        {
+            final IFile portletXml = liferayProject.getDescriptorFile( ILiferayConstants.PORTLET_XML_FILE );
+            final IFile liferayHookXml = liferayProject.getDescriptorFile( ILiferayConstants.LIFERAY_HOOK_XML_FILE );
+            final List<Pattern> patterns = new ArrayList<Pattern>();
+
+            if( portletXml != null && portletXml.exists() )
+            {
+                final ResourceNodeInfo resourceNodeInfo = getResourceNodeInfo( portletXml );
+
+                patterns.addAll( resourceNodeInfo.getResourceBundleMatchers() );
+                patterns.addAll( resourceNodeInfo.getSupportedLocaleMatchers() );
+            }
+
+            if( liferayHookXml != null && liferayHookXml.exists() )
+            {
+                patterns.addAll( getLanguageFileInfo( liferayHookXml ).getLanguagePropertyMatchers() );
+            }
+
+            matcher =
+                new LanguagePropertiesMatcher(
+                    liferayProject, portletXml, liferayHookXml, liferayProject.getSourceFolders(), patterns );
+
+            cacheDescriptorInfo( languagePropertiesMatchers, key, matcher );
         }
 
-        return tmpLanguageFileInfo;
+        return matcher;
     }
 
     // Search all language properties files referenced by liferay-hook.xml
@@ -593,10 +697,14 @@ public class PropertiesUtil
         return retval.toArray( new IFile[0] );
     }
 
-    private static synchronized ResourceNodeInfo getResourceNodeInfo( IFile portletXml )
+    private static ResourceNodeInfo getResourceNodeInfo( IFile portletXml )
     {
-        if( tmpResourceNodeInfo == null || ! tmpResourceNodeInfo.getPortletXml().equals( portletXml ) ||
-            tmpResourceNodeInfo.getModificationStamp() != portletXml.getModificationStamp() )
+        final IPath key = portletXml.getFullPath();
+
+        ResourceNodeInfo resourceNodeInfo = resourceNodeInfos.get( key );
+
+        if( resourceNodeInfo == null || ! resourceNodeInfo.getPortletXml().equals( portletXml ) ||
+            resourceNodeInfo.getModificationStamp() != portletXml.getModificationStamp() )
         {
             final ResourceNodeInfo retval = new ResourceNodeInfo( portletXml );
 
@@ -716,10 +824,12 @@ public class PropertiesUtil
                 LiferayCore.logError( "Error resolving" + ILiferayConstants.PORTLET_XML_FILE, e );
             }
 
-            tmpResourceNodeInfo = retval;
+            cacheDescriptorInfo( resourceNodeInfos, key, retval );
+
+            resourceNodeInfo = retval;
         }
 
-        return tmpResourceNodeInfo;
+        return resourceNodeInfo;
     }
 
     public static boolean hasNonDefaultEncodingLanguagePropertiesFile( IProject project )
@@ -784,68 +894,20 @@ public class PropertiesUtil
         }
 
         final ILiferayProject liferayProject = LiferayCore.create( project );
-        final IFile portletXml = liferayProject.getDescriptorFile( ILiferayConstants.PORTLET_XML_FILE );
-        final IFile liferayHookXml = liferayProject.getDescriptorFile( ILiferayConstants.LIFERAY_HOOK_XML_FILE );
-        final IFolder[] srcFolders = liferayProject.getSourceFolders();
-        final IPath targetFileLocation = targetFile.getLocation();
 
-        try
+        if( liferayProject == null )
         {
-            if( portletXml != null && portletXml.exists() )
-            {
-                final String[] resourceBundleValues = getResourceNodeInfo( portletXml ).getResourceBundlePatterns();
-
-                for( String resourceBundleValue : resourceBundleValues )
-                {
-                    for( IFolder srcFolder : srcFolders )
-                    {
-                        if( targetFileLocation.makeRelativeTo( srcFolder.getLocation() ).toString().replace(
-                            PROPERTIES_FILE_SUFFIX, "" ).matches( resourceBundleValue ) )
-                        {
-                            return true;
-                        }
-                    }
-                }
-
-                final String[] supportedLocaleValues = getResourceNodeInfo( portletXml ).getSupportedLocalePatterns();
-
-                for( String suportedLocaleValue : supportedLocaleValues )
-                {
-                    for( IFolder srcFolder : srcFolders )
-                    {
-                        if( targetFileLocation.makeRelativeTo( srcFolder.getLocation() ).toString().replace(
-                            PROPERTIES_FILE_SUFFIX, "" ).matches( suportedLocaleValue ) )
-                        {
-                            return true;
-                        }
-                    }
-                }
-            }
-
-            if( liferayHookXml != null && liferayHookXml.exists() )
-            {
-                final String[] languagePropertyValues =
-                    getLanguageFileInfo( liferayHookXml ).getLanguagePropertyPatterns();
+            return false;
+        }
 
-                for( String languagePropertyValue : languagePropertyValues )
-                {
-                    for( IFolder srcFolder : srcFolders )
-                    {
-                        if( targetFileLocation.makeRelativeTo( srcFolder.getLocation() ).toString().replace(
-                            PROPERTIES_FILE_SUFFIX, "" ).matches( languagePropertyValue ) )
-                        {
-                            return true;
-                        }
-                    }
-                }
-            }
+        try
+        {
+            return getLanguagePropertiesMatcher( project, liferayProject ).matches( targetFile.getLocation() );
         }
         catch( Exception e )
         {
             return false;
         }
-
-        return false;
     }
 
     public static IFile[] visitPropertiesFiles( IResource container, String relativePath )
@@ -16,18 +16,25 @@
 package com.liferay.ide.gradle.core;
 
 import static org.springsource.ide.eclipse.gradle.core.util.JobUtil.NO_RULE;
-import aQute.bnd.osgi.Jar;
 
 import com.liferay.ide.core.BaseLiferayProject;
+import com.liferay.ide.core.BundleOutputCache;
 import com.liferay.ide.core.IBundleProject;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.model.IProcess;
 import org.springsource.ide.eclipse.gradle.core.GradleCore;
 import org.springsource.ide.eclipse.gradle.core.GradleProject;
 import org.springsource.ide.eclipse.gradle.core.launch.GradleLaunchConfigurationDelegate;
@@ -41,6 +48,10 @@ public class GradleBundleProject extends BaseLiferayProject implements IBundlePr
 {
     private static final String[] ignorePaths = new String[] { ".gradle", "build" };
 
+    private static final String[] parentBuildFiles = new String[] { "build.gradle", "gradle.properties", "settings.gradle" };
+
+    private final BundleOutputCache outputCache = new BundleOutputCache( this );
+
     public GradleBundleProject( IProject project )
     {
         super( project );
@@ -72,40 +83,96 @@ public class GradleBundleProject extends BaseLiferayProject implements IBundlePr
     @Override
     public IPath getOutputJar( boolean buildIfNeeded, IProgressMonitor monitor ) throws CoreException
     {
-        IPath retval = null;
+        final String fingerprint = outputCache.computeFingerprint( getParentBuildFiles() );
 
-        final GradleProject gradleProject = GradleCore.create( getProject() );
+        final IPath cachedJar = outputCache.getOutputJar( fingerprint );
+
+        if( cachedJar != null )
+        {
+            return cachedJar;
+        }
 
-        // need to rerun the jar task to make sure the jar is correct
+        final GradleProject gradleProject = GradleCore.create( getProject() );
 
-        final String task = "jar";
-        final ILaunchConfiguration conf =
-            GradleLaunchConfigurationDelegate.createDefault( gradleProject, task, false );
+        boolean built = false;
 
-        final GradleRunnable gradleRunnable = new GradleRunnable( task )
+        if( buildIfNeeded )
         {
-            @Override
-            public void doit( IProgressMonitor mon ) throws Exception
+            // the project changed since the jar was last built, rerun the jar task
+
+            final String task = "jar";
+            final ILaunchConfiguration conf =
+                GradleLaunchConfigurationDelegate.createDefault( gradleProject, task, false );
+
+            final ILaunch[] launch = new ILaunch[1];
+
+            final GradleRunnable gradleRunnable = new GradleRunnable( task )
+            {
+                @Override
+                public void doit( IProgressMonitor mon ) throws Exception
+                {
+                    launch[0] = conf.launch( "run", mon, false, false );
+                }
+            };
+
+            try
+            {
+                JobUtil.schedule( NO_RULE, gradleRunnable ).join();
+
+                built = isSuccessful( launch[0] );
+            }
+            catch( InterruptedException e )
             {
-                conf.launch( "run", mon, false, false );
+                return null;
             }
-        };
+        }
 
-        try
-        {
-            JobUtil.schedule( NO_RULE, gradleRunnable ).join();
+        final IPath outputJar = GradleProjectMethods.getOutputJar( gradleProject );
 
-            retval = GradleProjectMethods.getOutputJar( gradleProject );
+        if( outputJar == null || ! outputJar.toFile().exists() )
+        {
+            return null;
         }
-        catch( InterruptedException e )
+
+        // also after an UP-TO-DATE run that left the jar as it was, but not after a failed one
+        if( built )
         {
-        };
+            outputCache.update( fingerprint, outputJar );
+        }
 
-        final IPath outputJar = GradleProjectMethods.getOutputJar( gradleProject );
+        return outputJar;
+    }
+
+    /**
+     * Returns the build files of the enclosing gradle builds, up to the one with the settings.gradle.
+     */
+    private List<File> getParentBuildFiles()
+    {
+        final List<File> retval = new ArrayList<File>();
+
+        final IPath location = getProject().getLocation();
+
+        if( location == null )
+        {
+            return retval;
+        }
 
-        if( outputJar.toFile().exists() )
+        for( File dir = location.toFile().getParentFile(); dir != null; dir = dir.getParentFile() )
         {
-            retval = outputJar;
+            for( String name : parentBuildFiles )
+            {
+                final File file = new File( dir, name );
+
+                if( file.exists() )
+                {
+                    retval.add( file );
+                }
+            }
+
+            if( new File( dir, "settings.gradle" ).exists() )
+            {
+                break;
+            }
         }
 
         return retval;
@@ -117,25 +184,45 @@ public class GradleBundleProject extends BaseLiferayProject implements IBundlePr
         return null;
     }
 
-    @Override
-    public String getSymbolicName() throws CoreException
+    /**
+     * Waits for the processes of the launch to end and returns whether all of them succeeded.
+     */
+    private static boolean isSuccessful( ILaunch launch ) throws InterruptedException
     {
-        String retval = null;
+        if( launch == null || launch.getProcesses().length == 0 )
+        {
+            return false;
+        }
 
-        final IPath outputJar = getOutputJar( false, new NullProgressMonitor() );
+        while( ! launch.isTerminated() )
+        {
+            Thread.sleep( 100 );
+        }
 
-        if( outputJar != null && outputJar.toFile().exists() )
+        try
         {
-            try( final Jar jar = new Jar( outputJar.toFile() ) )
-            {
-                retval = jar.getBsn();
-            }
-            catch( Exception e )
+            for( IProcess process : launch.getProcesses() )
             {
+                if( process.getExitValue() != 0 )
+                {
+                    return false;
+                }
             }
         }
+        catch( DebugException e )
+        {
+            return false;
+        }
 
-        return retval;
+        return true;
+    }
+
+    @Override
+    public String getSymbolicName() throws CoreException
+    {
+        final IPath outputJar = getOutputJar( false, new NullProgressMonitor() );
+
+        return outputJar != null ? outputCache.getSymbolicName( outputJar.toFile() ) : null;
     }
 
 }
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.gradle.core;
+
+import com.liferay.ide.core.util.CoreUtil;
+import com.liferay.ide.core.util.FileUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.FileLocator;
+import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.ModelBuilder;
+import org.gradle.tooling.ProjectConnection;
+
+/**
+ * Keeps one tooling api connection per gradle project directory open for the whole session and caches the models
+ * built through it. Cached models are dropped when a build script, settings script or gradle.properties at or above
+ * the project directory changes, and the connection is closed when its project is closed or deleted.
+ *
+ * @author agent
+ */
+class GradleToolingModelCache implements IResourceChangeListener, IResourceDeltaVisitor
+{
+
+    private static final Set<String> BUILD_FILES = new HashSet<String>( Arrays.asList( new String[] {
+        "build.gradle", "settings.gradle", "gradle.properties" } ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+    private final ConcurrentMap<File, ProjectConnection> connections = new ConcurrentHashMap<File, ProjectConnection>();
+    private File initScript;
+    private final ConcurrentMap<File, Map<Class<?>, Object>> models =
+        new ConcurrentHashMap<File, Map<Class<?>, Object>>();
+
+    synchronized void close()
+    {
+        for( ProjectConnection connection : connections.values() )
+        {
+            connection.close();
+        }
+
+        connections.clear();
+        models.clear();
+    }
+
+    private void closeConnection( File projectDir )
+    {
+        final ProjectConnection connection = connections.remove( projectDir );
+
+        if( connection != null )
+        {
+            connection.close();
+        }
+
+        models.remove( projectDir );
+    }
+
+    private ProjectConnection getConnection( File projectDir )
+    {
+        ProjectConnection connection = connections.get( projectDir );
+
+        if( connection == null )
+        {
+            synchronized( this )
+            {
+                connection = connections.get( projectDir );
+
+                if( connection == null )
+                {
+                    final GradleConnector connector = GradleConnector.newConnector();
+                    connector.forProjectDirectory( projectDir );
+
+                    connection = connector.connect();
+
+                    connections.put( projectDir, connection );
+                }
+            }
+        }
+
+        return connection;
+    }
+
+    /**
+     * Writes the init script pointing at the bundled model repository into the state location, once per session.
+     */
+    private synchronized File getInitScript() throws IOException
+    {
+        if( initScript == null )
+        {
+            final File localRepo =
+                new File( FileLocator.toFileURL( LRGradleCore.getDefault().getBundle().getEntry( "repo" ) ).getFile() );
+
+            final String initScriptTemplate =
+                CoreUtil.readStreamToString( new FileInputStream( new File( localRepo, "init.gradle" ) ) );
+
+            final String initScriptContents =
+                initScriptTemplate.replaceFirst( "%repo%", localRepo.getAbsolutePath() );
+
+            final File scriptFile = LRGradleCore.getDefault().getStateLocation().append( "init.gradle" ).toFile();
+
+            FileUtil.writeFileFromStream( scriptFile, new ByteArrayInputStream( initScriptContents.getBytes() ) );
+
+            initScript = scriptFile;
+        }
+
+        return initScript;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    <T> T getModel( Class<T> modelClass, File projectDir ) throws IOException
+    {
+        Map<Class<?>, Object> projectModels = models.get( projectDir );
+
+        if( projectModels != null && projectModels.containsKey( modelClass ) )
+        {
+            return (T) projectModels.get( modelClass );
+        }
+
+        final ProjectConnection connection = getConnection( projectDir );
+
+        final T model;
+
+        try
+        {
+            final ModelBuilder<T> modelBuilder = connection.model( modelClass );
+
+            modelBuilder.withArguments( "--init-script", getInitScript().getAbsolutePath() );
+
+            model = modelBuilder.get();
+        }
+        catch( RuntimeException e )
+        {
+            // the daemon may have gone away, start over with a new connection next time
+            closeConnection( projectDir );
+
+            throw e;
+        }
+
+        if( model != null )
+        {
+            projectModels = models.get( projectDir );
+
+            if( projectModels == null )
+            {
+                models.putIfAbsent( projectDir, new ConcurrentHashMap<Class<?>, Object>() );
+                projectModels = models.get( projectDir );
+            }
+
+            projectModels.put( modelClass, model );
+        }
+
+        return model;
+    }
+
+    void invalidate( File dir )
+    {
+        final String path = dir.getAbsolutePath();
+
+        for( File projectDir : models.keySet() )
+        {
+            final String projectPath = projectDir.getAbsolutePath();
+
+            if( projectPath.equals( path ) || projectPath.startsWith( path + File.separator ) )
+            {
+                models.remove( projectDir );
+            }
+        }
+    }
+
+    public void resourceChanged( IResourceChangeEvent event )
+    {
+        if( event.getResource() != null && event.getResource().getType() == IResource.PROJECT )
+        {
+            // PRE_CLOSE and PRE_DELETE
+            if( event.getResource().getLocation() != null )
+            {
+                closeConnection( event.getResource().getLocation().toFile() );
+            }
+
+            return;
+        }
+
+        if( event.getDelta() != null && ! models.isEmpty() )
+        {
+            try
+            {
+                event.getDelta().accept( this );
+            }
+            catch( CoreException e )
+            {
+                models.clear();
+            }
+        }
+    }
+
+    public boolean visit( IResourceDelta delta ) throws CoreException
+    {
+        final IResource resource = delta.getResource();
+
+        if( resource.getType() == IResource.FILE )
+        {
+            if( BUILD_FILES.contains( resource.getName() ) && resource.getParent().getLocation() != null )
+            {
+                invalidate( resource.getParent().getLocation().toFile() );
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+}
@@ -15,21 +15,11 @@
 
 package com.liferay.ide.gradle.core;
 
-import com.liferay.ide.core.util.CoreUtil;
-import com.liferay.ide.core.util.FileUtil;
-
-import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.FileInputStream;
-
-import org.eclipse.core.runtime.FileLocator;
-import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
-import org.gradle.tooling.GradleConnector;
-import org.gradle.tooling.ModelBuilder;
-import org.gradle.tooling.ProjectConnection;
 import org.osgi.framework.BundleContext;
 import org.springsource.ide.eclipse.gradle.core.GradleProject;
 
@@ -47,6 +37,8 @@ public class LRGradleCore extends Plugin
     // The plugin ID
     public static final String PLUGIN_ID = "com.liferay.ide.gradle.core";
 
+    private final GradleToolingModelCache modelCache = new GradleToolingModelCache();
+
     public static IStatus createErrorStatus( Exception ex )
     {
         return new Status( IStatus.ERROR, PLUGIN_ID, ex.getMessage(), ex );
@@ -85,44 +77,7 @@ public class LRGradleCore extends Plugin
 
         try
         {
-            GradleConnector connector = GradleConnector.newConnector();
-            connector.forProjectDirectory( gradleProject.getLocation() );
-            ProjectConnection connection = null;
-
-            try
-            {
-                connection = connector.connect();
-                ModelBuilder<T> modelBuilder = (ModelBuilder<T>) connection.model( modelClass );
-
-                final File localRepo =
-                    new File( FileLocator.toFileURL(
-                        getDefault().getBundle().getEntry( "repo" ) ).getFile() );
-
-                final String initScriptTemplate =
-                    CoreUtil.readStreamToString(
-                        new FileInputStream( new File( localRepo, "init.gradle" ) ) );
-
-                final String initScriptContents =
-                    initScriptTemplate.replaceFirst( "%repo%", localRepo.getAbsolutePath() );
-
-                final IPath scriptPath = getDefault().getStateLocation().append( "init.gradle" );
-
-                final File scriptFile = scriptPath.toFile();
-
-                FileUtil.writeFileFromStream(
-                    scriptFile, new ByteArrayInputStream( initScriptContents.getBytes() ) );
-
-                modelBuilder.withArguments( "--init-script", scriptFile.getAbsolutePath() );
-
-                retval = modelBuilder.get();
-            }
-            finally
-            {
-                if( connection != null )
-                {
-                    connection.close();
-                }
-            }
+            retval = (T) getDefault().modelCache.getModel( modelClass, gradleProject.getLocation() );
         }
         catch( Exception e )
         {
@@ -161,6 +116,10 @@ public class LRGradleCore extends Plugin
     {
         super.start( context );
         plugin = this;
+
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(
+            modelCache,
+            IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE );
     }
 
     /*
@@ -169,6 +128,9 @@ public class LRGradleCore extends Plugin
      */
     public void stop( BundleContext context ) throws Exception
     {
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener( modelCache );
+        modelCache.close();
+
         plugin = null;
         super.stop( context );
     }
@@ -14,12 +14,15 @@
  *******************************************************************************/
 package com.liferay.ide.maven.core;
 
+import com.liferay.ide.core.BundleOutputCache;
 import com.liferay.ide.core.IBundleProject;
 import com.liferay.ide.maven.core.util.DefaultMaven2OsgiConverter;
 import com.liferay.ide.project.core.IProjectBuilder;
 import com.liferay.ide.server.remote.IRemoteServerPublisher;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.project.MavenProject;
@@ -41,6 +44,8 @@ public class MavenBundlePluginProject extends LiferayMavenProject implements IBu
 {
     private final String[] ignorePaths = new String[] { "target" };
 
+    private final BundleOutputCache outputCache = new BundleOutputCache( this );
+
     public MavenBundlePluginProject( IProject project )
     {
         super( project );
@@ -93,6 +98,15 @@ public class MavenBundlePluginProject extends LiferayMavenProject implements IBu
     {
         IPath outputJar = null;
 
+        final String fingerprint = outputCache.computeFingerprint( getParentPoms( monitor ) );
+
+        final IPath cachedJar = outputCache.getOutputJar( fingerprint );
+
+        if( cachedJar != null )
+        {
+            return cachedJar;
+        }
+
         if( buildIfNeeded )
         {
             final MavenProjectBuilder mavenProjectBuilder = new MavenProjectBuilder( this.getProject() );
@@ -118,6 +132,8 @@ public class MavenBundlePluginProject extends LiferayMavenProject implements IBu
                     if( targetFile.toFile().exists() )
                     {
                         outputJar = targetFile;
+
+                        outputCache.update( fingerprint, outputJar );
                     }
                 }
             }
@@ -130,6 +146,32 @@ public class MavenBundlePluginProject extends LiferayMavenProject implements IBu
         return outputJar;
     }
 
+    /**
+     * Returns the pom files of the parents of this project, the build inherits from them.
+     */
+    private List<File> getParentPoms( IProgressMonitor monitor ) throws CoreException
+    {
+        final List<File> retval = new ArrayList<File>();
+
+        final IMavenProjectFacade projectFacade = MavenUtil.getProjectFacade( getProject(), monitor );
+
+        if( projectFacade == null )
+        {
+            return retval;
+        }
+
+        for( MavenProject parent = projectFacade.getMavenProject( monitor ).getParent(); parent != null;
+             parent = parent.getParent() )
+        {
+            if( parent.getFile() != null )
+            {
+                retval.add( parent.getFile() );
+            }
+        }
+
+        return retval;
+    }
+
     @Override
     public String getSymbolicName() throws CoreException
     {
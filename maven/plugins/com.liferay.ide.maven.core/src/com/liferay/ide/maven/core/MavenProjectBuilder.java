@@ -18,9 +18,11 @@ import com.liferay.ide.core.ILiferayConstants;
 import com.liferay.ide.core.util.CoreUtil;
 import com.liferay.ide.core.util.LaunchHelper;
 import com.liferay.ide.project.core.AbstractProjectBuilder;
+import com.liferay.ide.project.core.util.GeneratedFileTracker;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -111,6 +113,20 @@ public class MavenProjectBuilder extends AbstractProjectBuilder
 
         final IMavenProjectFacade facade = MavenUtil.getProjectFacade( serviceProject , monitor );
 
+        final String trackerName = goal.substring( goal.lastIndexOf( ':' ) + 1 );
+
+        final GeneratedFileTracker tracker = new GeneratedFileTracker( serviceProject, trackerName );
+        tracker.begin();
+
+        final IProject siblingProject = getSiblingProject( facade, monitor );
+        final GeneratedFileTracker siblingTracker =
+            siblingProject != null ? new GeneratedFileTracker( siblingProject, trackerName ) : null;
+
+        if( siblingTracker != null )
+        {
+            siblingTracker.begin();
+        }
+
         monitor.worked( 10 );
 
         final ICallable<IStatus> callable = new ICallable<IStatus>()
@@ -147,11 +163,22 @@ public class MavenProjectBuilder extends AbstractProjectBuilder
 
         monitor.worked( 70 );
 
-        refreshSiblingProject( facade, monitor );
+        if( siblingTracker != null )
+        {
+            // outside of the scheduling rule of the build service job
+            GeneratedFileTracker.scheduleRefresh( siblingProject, siblingTracker.end() );
+        }
 
         monitor.worked( 10 );
 
-        serviceProject.refreshLocal( IResource.DEPTH_INFINITE, monitor );
+        final Set<IPath> changedPaths = tracker.end();
+
+        GeneratedFileTracker.refresh( serviceProject, changedPaths, monitor );
+
+        if( ! changedPaths.isEmpty() )
+        {
+            GeneratedFileTracker.scheduleBuild( serviceProject );
+        }
 
         monitor.worked( 10 );
         monitor.done();
@@ -320,9 +347,12 @@ public class MavenProjectBuilder extends AbstractProjectBuilder
         return retval;
     }
 
-    public void refreshSiblingProject( IMavenProjectFacade projectFacade, IProgressMonitor monitor ) throws CoreException
+    /**
+     * Returns the *-service project that service builder generates the api of this project into, if it is in the
+     * workspace.
+     */
+    protected IProject getSiblingProject( IMavenProjectFacade projectFacade, IProgressMonitor monitor )
     {
-        // need to look up project configuration and refresh the *-service project associated with this project
         try
         {
             // not doing any null checks since this is in large try/catch
@@ -337,12 +367,26 @@ public class MavenProjectBuilder extends AbstractProjectBuilder
                     new Path( apiBaseDirValue ).append( IMavenConstants.POM_FILE_NAME ) );
             final IMavenProjectFacade apiBaseFacade = this.projectManager.create( apiBasePomFile, true, monitor );
 
-            apiBaseFacade.getProject().refreshLocal( IResource.DEPTH_INFINITE, monitor );
+            return apiBaseFacade.getProject();
         }
         catch( Exception e )
         {
             LiferayMavenCore.logError( "Could not refresh sibling service project.", e ); //$NON-NLS-1$
         }
+
+        return null;
+    }
+
+    public void refreshSiblingProject( IMavenProjectFacade projectFacade, IProgressMonitor monitor ) throws CoreException
+    {
+        // need to look up project configuration and refresh the *-service project associated with this project
+        final IProject siblingProject = getSiblingProject( projectFacade, monitor );
+
+        if( siblingProject != null )
+        {
+            // the caller may only hold the rule of this project
+            GeneratedFileTracker.scheduleRefresh( siblingProject, null );
+        }
     }
 
     public boolean runMavenGoal( final IProject project, final String goal, final IProgressMonitor monitor )
@@ -18,11 +18,19 @@ package com.liferay.ide.portlet.core.job;
 import com.liferay.ide.core.ILiferayProject;
 import com.liferay.ide.core.LiferayCore;
 import com.liferay.ide.portlet.core.PortletCore;
+import com.liferay.ide.portlet.core.util.LanguagePropertiesSynchronizer;
 import com.liferay.ide.project.core.IProjectBuilder;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceDescription;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
@@ -30,6 +38,7 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
@@ -53,6 +62,24 @@ public class BuildLanguageJob extends Job
     @Override
     protected IStatus run( IProgressMonitor monitor )
     {
+        try
+        {
+            final IStatus status = synchronizeLanguageFiles( monitor );
+
+            if( status != null )
+            {
+                return status;
+            }
+        }
+        catch( CharacterCodingException e )
+        {
+            // a bundle that isn't UTF-8, let the build-lang target deal with it
+        }
+        catch( Exception e )
+        {
+            PortletCore.logError( e );
+        }
+
         IStatus retval = null;
 
         IWorkspaceDescription desc = ResourcesPlugin.getWorkspace().getDescription();
@@ -154,6 +181,72 @@ public class BuildLanguageJob extends Job
         monitor.worked( 90 );
     }
 
+    /**
+     * Synchronizes the localized bundles with the default bundle in process and refreshes the ones that changed.
+     *
+     * @return the result, or <code>null</code> if there are no localized bundles yet and the build-lang target has to
+     *         create them
+     * @throws CharacterCodingException if a bundle isn't UTF-8 encoded
+     */
+    protected IStatus synchronizeLanguageFiles( IProgressMonitor monitor ) throws CoreException, IOException
+    {
+        if( this.langFile.getLocation() == null )
+        {
+            return null;
+        }
+
+        final LanguagePropertiesSynchronizer synchronizer =
+            new LanguagePropertiesSynchronizer( this.langFile.getLocation().toFile() );
+
+        final List<File> localeFiles = synchronizer.getLocaleFiles();
+
+        if( localeFiles.isEmpty() )
+        {
+            return null;
+        }
+
+        monitor.beginTask( Msgs.buildingLanguages, localeFiles.size() + 1 );
+
+        final List<IFile> changedFiles = new ArrayList<IFile>();
+
+        IStatus retval = Status.OK_STATUS;
+
+        for( File localeFile : localeFiles )
+        {
+            if( monitor.isCanceled() )
+            {
+                retval = Status.CANCEL_STATUS;
+                break;
+            }
+
+            if( synchronizer.synchronize( localeFile ) )
+            {
+                changedFiles.add( this.langFile.getParent().getFile( new Path( localeFile.getName() ) ) );
+            }
+
+            monitor.worked( 1 );
+        }
+
+        if( ! changedFiles.isEmpty() )
+        {
+            // refresh what was written even when cancelled, so no monitor
+            ResourcesPlugin.getWorkspace().run( new IWorkspaceRunnable()
+            {
+                public void run( IProgressMonitor monitor ) throws CoreException
+                {
+                    for( IFile file : changedFiles )
+                    {
+                        file.refreshLocal( IResource.DEPTH_ZERO, monitor );
+                    }
+                }
+            }, this.langFile.getParent(), IWorkspace.AVOID_UPDATE, null );
+        }
+
+        monitor.done();
+
+        return retval;
+    }
+
     private IProject getProject()
     {
         return this.langFile.getProject();
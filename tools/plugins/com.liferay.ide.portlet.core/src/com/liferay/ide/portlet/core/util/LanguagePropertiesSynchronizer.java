@@ -0,0 +1,391 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.portlet.core.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings the localized bundles next to a default Language.properties in line with it, the way the build-lang target
+ * does, without starting Ant. Keys missing from a localized bundle are appended with the default value marked as an
+ * automatic copy, keys that are no longer in the default bundle are removed, and everything else is kept as it is.
+ * Bundles are streamed through line by line and written with non-ASCII characters escaped and their own line
+ * separator; bundles without missing or removed keys are not touched.
+ *
+ * @author agent
+ */
+public class LanguagePropertiesSynchronizer
+{
+
+    public static final String AUTOMATIC_COPY = " (Automatic Copy)"; //$NON-NLS-1$
+
+    private static final Charset UTF8 = Charset.forName( "UTF-8" ); //$NON-NLS-1$
+
+    private final Map<String, List<String>> defaultEntries;
+    private final File defaultFile;
+
+    public LanguagePropertiesSynchronizer( File defaultFile ) throws IOException
+    {
+        this.defaultFile = defaultFile;
+        this.defaultEntries = readEntries( defaultFile );
+    }
+
+    /**
+     * Appends the backslash escaped form of the given line to the writer.
+     */
+    private static void escape( String line, Writer writer ) throws IOException
+    {
+        for( int i = 0; i < line.length(); i++ )
+        {
+            final char c = line.charAt( i );
+
+            if( c > 0x7e )
+            {
+                final String hex = Integer.toHexString( c );
+
+                writer.write( "\\u" ); //$NON-NLS-1$
+
+                for( int j = hex.length(); j < 4; j++ )
+                {
+                    writer.write( '0' );
+                }
+
+                writer.write( hex );
+            }
+            else
+            {
+                writer.write( c );
+            }
+        }
+    }
+
+    /**
+     * Returns the unescaped key of the logical line starting with the given physical line, or <code>null</code> for
+     * comments and blank lines.
+     */
+    private static String getKey( String line )
+    {
+        int i = 0;
+
+        while( i < line.length() && Character.isWhitespace( line.charAt( i ) ) )
+        {
+            i++;
+        }
+
+        if( i == line.length() || line.charAt( i ) == '#' || line.charAt( i ) == '!' )
+        {
+            return null;
+        }
+
+        final StringBuilder key = new StringBuilder();
+
+        for( ; i < line.length(); i++ )
+        {
+            char c = line.charAt( i );
+
+            if( c == '=' || c == ':' || Character.isWhitespace( c ) )
+            {
+                break;
+            }
+
+            if( c == '\\' && i + 1 < line.length() )
+            {
+                c = line.charAt( ++i );
+
+                if( c == 'u' && i + 4 < line.length() )
+                {
+                    try
+                    {
+                        c = (char) Integer.parseInt( line.substring( i + 1, i + 5 ), 16 );
+                        i += 4;
+                    }
+                    catch( NumberFormatException e )
+                    {
+                    }
+                }
+                else if( c == 't' )
+                {
+                    c = '\t';
+                }
+                else if( c == 'n' )
+                {
+                    c = '\n';
+                }
+                else if( c == 'r' )
+                {
+                    c = '\r';
+                }
+                else if( c == 'f' )
+                {
+                    c = '\f';
+                }
+            }
+
+            key.append( c );
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Returns the separator after the first line of the given file, or <code>null</code> if it has a single line.
+     */
+    private static String getLineSeparator( File file ) throws IOException
+    {
+        try( InputStream in = Files.newInputStream( file.toPath() ) )
+        {
+            final byte[] buffer = new byte[8192];
+
+            boolean cr = false;
+            int read = 0;
+
+            while( ( read = in.read( buffer ) ) != -1 )
+            {
+                for( int i = 0; i < read; i++ )
+                {
+                    if( cr )
+                    {
+                        return buffer[i] == '\n' ? "\r\n" : "\r"; //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                    else if( buffer[i] == '\r' )
+                    {
+                        cr = true;
+                    }
+                    else if( buffer[i] == '\n' )
+                    {
+                        return "\n"; //$NON-NLS-1$
+                    }
+                }
+            }
+
+            return cr ? "\r" : null; //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Returns the localized bundles next to the default bundle, i.e. all <code>&lt;name&gt;_*.properties</code> files.
+     */
+    public List<File> getLocaleFiles()
+    {
+        final List<File> retval = new ArrayList<File>();
+
+        final String name = defaultFile.getName();
+        final String prefix = name.substring( 0, name.length() - ".properties".length() ) + "_"; //$NON-NLS-1$ //$NON-NLS-2$
+
+        final File[] files = defaultFile.getParentFile().listFiles();
+
+        if( files != null )
+        {
+            for( File file : files )
+            {
+                if( file.isFile() && file.getName().startsWith( prefix ) && file.getName().endsWith( ".properties" ) ) //$NON-NLS-1$
+                {
+                    retval.add( file );
+                }
+            }
+        }
+
+        return retval;
+    }
+
+    private static boolean isContinued( String line )
+    {
+        int backslashes = 0;
+
+        for( int i = line.length() - 1; i >= 0 && line.charAt( i ) == '\\'; i-- )
+        {
+            backslashes++;
+        }
+
+        return backslashes % 2 == 1;
+    }
+
+    /**
+     * Reads the physical lines of the next logical line, or returns <code>null</code> at the end of the file.
+     */
+    private static List<String> readEntry( BufferedReader reader ) throws IOException
+    {
+        String line = reader.readLine();
+
+        if( line == null )
+        {
+            return null;
+        }
+
+        final List<String> lines = new ArrayList<String>( 1 );
+
+        lines.add( line );
+
+        if( getKey( line ) != null )
+        {
+            while( isContinued( line ) && ( line = reader.readLine() ) != null )
+            {
+                lines.add( line );
+            }
+        }
+
+        return lines;
+    }
+
+    private static Map<String, List<String>> readEntries( File file ) throws IOException
+    {
+        final Map<String, List<String>> entries = new LinkedHashMap<String, List<String>>();
+
+        try( BufferedReader reader = Files.newBufferedReader( file.toPath(), UTF8 ) )
+        {
+            List<String> lines = null;
+
+            while( ( lines = readEntry( reader ) ) != null )
+            {
+                final String key = getKey( lines.get( 0 ) );
+
+                if( key != null )
+                {
+                    entries.put( key, lines );
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    private static Set<String> readKeys( File file ) throws IOException
+    {
+        final Set<String> keys = new HashSet<String>();
+
+        try( BufferedReader reader = Files.newBufferedReader( file.toPath(), UTF8 ) )
+        {
+            List<String> lines = null;
+
+            while( ( lines = readEntry( reader ) ) != null )
+            {
+                final String key = getKey( lines.get( 0 ) );
+
+                if( key != null )
+                {
+                    keys.add( key );
+                }
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * Adds the keys of the default bundle that are missing from the given localized bundle and removes the ones the
+     * default bundle doesn't have anymore.
+     *
+     * @return <code>true</code> if the localized bundle was changed
+     */
+    public boolean synchronize( File localeFile ) throws IOException
+    {
+        final Set<String> keys = readKeys( localeFile );
+
+        final List<String> missingKeys = new ArrayList<String>();
+
+        for( String key : defaultEntries.keySet() )
+        {
+            if( ! keys.contains( key ) )
+            {
+                missingKeys.add( key );
+            }
+        }
+
+        keys.removeAll( defaultEntries.keySet() );
+
+        if( missingKeys.isEmpty() && keys.isEmpty() )
+        {
+            return false;
+        }
+
+        String lineSeparator = getLineSeparator( localeFile );
+
+        if( lineSeparator == null )
+        {
+            lineSeparator = getLineSeparator( defaultFile );
+        }
+
+        if( lineSeparator == null )
+        {
+            lineSeparator = System.getProperty( "line.separator" ); //$NON-NLS-1$
+        }
+
+        final File tempFile = new File( localeFile.getParentFile(), localeFile.getName() + ".tmp" ); //$NON-NLS-1$
+
+        try( BufferedReader reader = Files.newBufferedReader( localeFile.toPath(), UTF8 );
+             BufferedWriter writer = Files.newBufferedWriter( tempFile.toPath(), UTF8 ) )
+        {
+            List<String> lines = null;
+
+            while( ( lines = readEntry( reader ) ) != null )
+            {
+                final String key = getKey( lines.get( 0 ) );
+
+                if( key != null && keys.contains( key ) )
+                {
+                    continue;
+                }
+
+                for( String line : lines )
+                {
+                    escape( line, writer );
+                    writer.write( lineSeparator );
+                }
+            }
+
+            for( String key : missingKeys )
+            {
+                final List<String> defaultLines = defaultEntries.get( key );
+
+                for( int i = 0; i < defaultLines.size(); i++ )
+                {
+                    escape( defaultLines.get( i ), writer );
+
+                    if( i == defaultLines.size() - 1 )
+                    {
+                        writer.write( AUTOMATIC_COPY );
+                    }
+
+                    writer.write( lineSeparator );
+                }
+            }
+        }
+        catch( IOException e )
+        {
+            tempFile.delete();
+
+            throw e;
+        }
+
+        Files.move( tempFile.toPath(), localeFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+
+        return true;
+    }
+
+}
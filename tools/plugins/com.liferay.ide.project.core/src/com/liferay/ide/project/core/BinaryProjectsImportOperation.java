@@ -22,8 +22,6 @@ import com.liferay.ide.project.core.util.ProjectImportUtil;
 import com.liferay.ide.sdk.core.SDK;
 import com.liferay.ide.sdk.core.SDKManager;
 
-import java.io.IOException;
-
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.CoreException;
@@ -78,25 +76,8 @@ public class BinaryProjectsImportOperation extends AbstractDataModelOperation
                     SDK liferaySDK = sdkManager.getSDK( new Path( sdkLocation ) );
                     Object[] seleBinaryRecords = (Object[]) projects;
                     monitor.beginTask( Msgs.creatingSDKProjects, seleBinaryRecords.length );
-                    ProjectRecord[] projectRecords = new ProjectRecord[seleBinaryRecords.length];
-
-                    for( int i = 0; i < seleBinaryRecords.length; i++ )
-                    {
-                        BinaryProjectRecord pluginBinaryRecord = (BinaryProjectRecord) seleBinaryRecords[i];
-
-                        try
-                        {
-                            monitor.subTask( Msgs.creatingPlugin + pluginBinaryRecord.getLiferayPluginName() );
-                            projectRecords[i] =
-                                ProjectImportUtil.createSDKPluginProject( bridgedRuntime, pluginBinaryRecord, liferaySDK );
-                            monitor.worked( 1 );
-                        }
-                        catch( IOException e )
-                        {
-                            throw new CoreException( ProjectCore.createErrorStatus( "Error creating project.", e ) ); //$NON-NLS-1$
-                        }
-
-                    }
+                    ProjectRecord[] projectRecords =
+                        ProjectImportUtil.createSDKPluginProjects( bridgedRuntime, seleBinaryRecords, liferaySDK, monitor );
 
                     monitor.done();
 
@@ -116,7 +97,6 @@ public class BinaryProjectsImportOperation extends AbstractDataModelOperation
 
     private static class Msgs extends NLS
     {
-        public static String creatingPlugin;
         public static String creatingSDKProjects;
         public static String importingBinaryProjectPlugins;
 
@@ -279,6 +279,11 @@ public class ProjectCore extends Plugin
         getDefault().getLog().log( new Status( IStatus.ERROR, PLUGIN_ID, t.getMessage(), t ) );
     }
 
+    public static void logInfo( String msg )
+    {
+        getDefault().getLog().log( new Status( IStatus.INFO, PLUGIN_ID, msg ) );
+    }
+
     public static IStatus operate( IProject project, Class<? extends IDescriptorOperation> type, Object... params )
     {
         IStatus status = Status.OK_STATUS;
@@ -16,15 +16,16 @@
 package com.liferay.ide.project.core;
 
 import com.liferay.ide.core.ILiferayConstants;
+import com.liferay.ide.project.core.util.GeneratedFileTracker;
 import com.liferay.ide.sdk.core.ISDKConstants;
 import com.liferay.ide.sdk.core.SDK;
 
+import java.util.Set;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.IncrementalProjectBuilder;
-import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -94,24 +95,15 @@ public class SDKProjectBuilder extends AbstractProjectBuilder
             return status;
         }
 
+        final GeneratedFileTracker tracker = new GeneratedFileTracker( getProject(), "build-service" ); //$NON-NLS-1$
+
+        tracker.begin();
+
         IStatus retval =
             sdk.buildService(
                 getProject(), serviceXmlFile, null );
 
-        try
-        {
-            getProject().refreshLocal( IResource.DEPTH_INFINITE, monitor );
-        }
-        catch( Exception e )
-        {
-            retval = ProjectCore.createErrorStatus( e );
-        }
-
-        ResourcesPlugin.getWorkspace().build( IncrementalProjectBuilder.INCREMENTAL_BUILD, monitor );
-
-        updateClasspath( getProject() );
-
-        getProject().refreshLocal( IResource.DEPTH_INFINITE, monitor );
+        retval = refreshGeneratedFiles( tracker.end(), retval, monitor );
 
         return retval;
     }
@@ -142,27 +134,51 @@ public class SDKProjectBuilder extends AbstractProjectBuilder
             return status;
         }
 
+        final GeneratedFileTracker tracker = new GeneratedFileTracker( getProject(), "build-wsdd" ); //$NON-NLS-1$
+
+        tracker.begin();
+
         IStatus retval =
             sdk.buildWSDD( getProject(), serviceXmlFile, null );
 
+        retval = refreshGeneratedFiles( tracker.end(), retval, monitor );
+
+        return retval;
+    }
+
+    /**
+     * Refreshes the files the SDK target changed and leaves compiling them to the incremental build. The classpath
+     * container only needs an update if the service jar changed.
+     */
+    private IStatus refreshGeneratedFiles( Set<IPath> changedPaths, IStatus retval, IProgressMonitor monitor )
+        throws CoreException
+    {
         try
         {
-            getProject().refreshLocal( IResource.DEPTH_INFINITE, monitor );
+            GeneratedFileTracker.refresh( getProject(), changedPaths, monitor );
         }
         catch( Exception e )
         {
             retval = ProjectCore.createErrorStatus( e );
         }
 
-        getProject().build( IncrementalProjectBuilder.INCREMENTAL_BUILD, monitor );
-
-        try
+        if( changedPaths.isEmpty() )
         {
-            getProject().refreshLocal( IResource.DEPTH_INFINITE, monitor );
+            return retval;
         }
-        catch( Exception e )
+
+        GeneratedFileTracker.scheduleBuild( getProject() );
+
+        final String serviceJarName = getProject().getName() + "-service.jar"; //$NON-NLS-1$
+
+        for( IPath path : changedPaths )
         {
-            ProjectCore.logError( e );
+            if( serviceJarName.equals( path.lastSegment() ) )
+            {
+                updateClasspath( getProject() );
+
+                break;
+            }
         }
 
         return retval;
@@ -19,6 +19,7 @@ import com.liferay.ide.project.core.util.ProjectImportUtil;
 
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -63,6 +64,11 @@ public class SDKProjectsImportOperation extends AbstractDataModelOperation
                 {
                     ProjectImportUtil.createWorkspaceProjects( projects, runtime, sdkLocation, monitor );
                 }
+                catch( CoreException ex )
+                {
+                    // keeps the problems of the projects that were skipped
+                    return ex.getStatus();
+                }
                 catch( Exception ex )
                 {
                     return ProjectCore.createErrorStatus( ex );
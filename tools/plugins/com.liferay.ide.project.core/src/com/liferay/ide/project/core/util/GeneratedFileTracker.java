@@ -0,0 +1,454 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.project.core.util;
+
+import com.liferay.ide.project.core.ProjectCore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Finds the files of a project that a generator like service builder actually changed, so that only those need to be
+ * refreshed and rebuilt. The project is scanned before and after every run, and only files whose size or time changed
+ * during the run are hashed and compared. The hashes are kept in the project's working location between runs, where
+ * they serve as a cache for files whose size and time are still the same. Jars are hashed by the names and
+ * CRCs of their entries, so a jar rebuilt from the same classes counts as unchanged. Hidden folders, derived folders and
+ * the java output folders are not tracked.
+ *
+ * @author agent
+ */
+public class GeneratedFileTracker
+{
+
+    private static final String JAR_EXTENSION = "jar"; //$NON-NLS-1$
+
+    private final Map<String, FileState> before = new HashMap<String, FileState>();
+    private Set<IPath> excludedPaths;
+    private final IProject project;
+    private final File stateFile;
+
+    /**
+     * @param name
+     *            name of the generator, one record is kept per project and name
+     */
+    public GeneratedFileTracker( IProject project, String name )
+    {
+        this.project = project;
+        this.stateFile = project.getWorkingLocation( ProjectCore.PLUGIN_ID ).append( name + ".files" ).toFile(); //$NON-NLS-1$
+    }
+
+    /**
+     * Refreshes the given project relative paths. Paths below folders that aren't in the workspace yet refresh the
+     * nearest folder that is.
+     */
+    public static void refresh( IProject project, Set<IPath> paths, IProgressMonitor monitor ) throws CoreException
+    {
+        final Set<IResource> resources = new LinkedHashSet<IResource>();
+
+        for( IPath path : paths )
+        {
+            IResource resource = project.getFile( path );
+
+            while( ! resource.getParent().exists() && resource.getParent().getType() != IResource.PROJECT )
+            {
+                resource = resource.getParent();
+            }
+
+            resources.add( resource );
+        }
+
+        for( IResource resource : resources )
+        {
+            resource.refreshLocal( IResource.DEPTH_INFINITE, monitor );
+        }
+    }
+
+    /**
+     * Builds the project in a job of its own if auto-build is off, as the caller usually holds a narrower scheduling
+     * rule than a build needs.
+     */
+    public static void scheduleBuild( final IProject project )
+    {
+        if( ResourcesPlugin.getWorkspace().isAutoBuilding() )
+        {
+            return;
+        }
+
+        final WorkspaceJob job = new WorkspaceJob( "Building " + project.getName() ) //$NON-NLS-1$
+        {
+            @Override
+            public IStatus runInWorkspace( IProgressMonitor monitor ) throws CoreException
+            {
+                project.build( IncrementalProjectBuilder.INCREMENTAL_BUILD, monitor );
+
+                return Status.OK_STATUS;
+            }
+        };
+
+        job.setRule( ResourcesPlugin.getWorkspace().getRuleFactory().buildRule() );
+        job.schedule();
+    }
+
+    /**
+     * Refreshes the given project relative paths, or the whole project for <code>null</code>, in a job of its own. For
+     * projects other than the one the caller's scheduling rule covers.
+     */
+    public static void scheduleRefresh( final IProject project, final Set<IPath> paths )
+    {
+        if( paths != null && paths.isEmpty() )
+        {
+            return;
+        }
+
+        final WorkspaceJob job = new WorkspaceJob( "Refreshing " + project.getName() ) //$NON-NLS-1$
+        {
+            @Override
+            public IStatus runInWorkspace( IProgressMonitor monitor ) throws CoreException
+            {
+                if( paths == null )
+                {
+                    project.refreshLocal( IResource.DEPTH_INFINITE, monitor );
+                }
+                else
+                {
+                    refresh( project, paths, monitor );
+
+                    scheduleBuild( project );
+                }
+
+                return Status.OK_STATUS;
+            }
+        };
+
+        job.setRule( paths == null ? ResourcesPlugin.getWorkspace().getRuleFactory().refreshRule( project ) : project );
+        job.schedule();
+    }
+
+    /**
+     * Starts a run: records the current state of the project, taking the hashes of unchanged files from the record of
+     * the previous run.
+     */
+    public void begin()
+    {
+        final Map<String, FileState> saved = new HashMap<String, FileState>();
+
+        if( stateFile.exists() )
+        {
+            final Properties properties = new Properties();
+
+            try( InputStream in = new FileInputStream( stateFile ) )
+            {
+                properties.load( in );
+
+                for( String path : properties.stringPropertyNames() )
+                {
+                    final FileState state = FileState.parse( properties.getProperty( path ) );
+
+                    if( state != null )
+                    {
+                        saved.put( path, state );
+                    }
+                }
+            }
+            catch( IOException e )
+            {
+                saved.clear();
+            }
+        }
+
+        before.clear();
+
+        // files changed since the previous run are not hashed yet, only if they change again during this run
+        scan( project.getLocation().toFile(), Path.EMPTY, before, saved, false );
+    }
+
+    /**
+     * Finishes a run: compares the project with the state at {@link #begin()}, saves the new state for the next run and
+     * returns the project relative paths of all added, changed and removed files.
+     */
+    public Set<IPath> end()
+    {
+        final Map<String, FileState> after = new HashMap<String, FileState>();
+
+        scan( project.getLocation().toFile(), Path.EMPTY, after, before, true );
+
+        final Set<IPath> changed = new LinkedHashSet<IPath>();
+
+        for( Map.Entry<String, FileState> entry : after.entrySet() )
+        {
+            final FileState previous = before.get( entry.getKey() );
+
+            if( previous == null || ! previous.isSameContent( entry.getValue() ) )
+            {
+                changed.add( new Path( entry.getKey() ) );
+            }
+        }
+
+        final Set<String> removed = new HashSet<String>( before.keySet() );
+        removed.removeAll( after.keySet() );
+
+        for( String path : removed )
+        {
+            changed.add( new Path( path ) );
+        }
+
+        final Properties properties = new Properties();
+
+        for( Map.Entry<String, FileState> entry : after.entrySet() )
+        {
+            properties.setProperty( entry.getKey(), entry.getValue().toString() );
+        }
+
+        try( OutputStream out = new FileOutputStream( stateFile ) )
+        {
+            properties.store( out, null );
+        }
+        catch( IOException e )
+        {
+            ProjectCore.logError( "Could not save generated files of " + project.getName(), e ); //$NON-NLS-1$
+        }
+
+        return changed;
+    }
+
+    private Set<IPath> getExcludedPaths()
+    {
+        if( excludedPaths == null )
+        {
+            excludedPaths = new HashSet<IPath>();
+
+            final IJavaProject javaProject = JavaCore.create( project );
+
+            if( javaProject != null && javaProject.exists() )
+            {
+                try
+                {
+                    excludedPaths.add( javaProject.getOutputLocation().removeFirstSegments( 1 ) );
+
+                    for( IClasspathEntry entry : javaProject.getRawClasspath() )
+                    {
+                        if( entry.getOutputLocation() != null )
+                        {
+                            excludedPaths.add( entry.getOutputLocation().removeFirstSegments( 1 ) );
+                        }
+                    }
+                }
+                catch( CoreException e )
+                {
+                }
+            }
+        }
+
+        return excludedPaths;
+    }
+
+    private static String hash( File file )
+    {
+        try
+        {
+            final MessageDigest digest = MessageDigest.getInstance( "SHA-1" ); //$NON-NLS-1$
+
+            if( JAR_EXTENSION.equals( new Path( file.getName() ).getFileExtension() ) )
+            {
+                try( ZipFile zipFile = new ZipFile( file ) )
+                {
+                    final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+                    while( entries.hasMoreElements() )
+                    {
+                        final ZipEntry entry = entries.nextElement();
+
+                        digest.update( ( entry.getName() + ":" + entry.getCrc() + ":" + entry.getSize() ).getBytes() ); //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                }
+            }
+            else
+            {
+                try( InputStream in = new FileInputStream( file ) )
+                {
+                    final byte[] buffer = new byte[8192];
+
+                    int read = 0;
+
+                    while( ( read = in.read( buffer ) ) != -1 )
+                    {
+                        digest.update( buffer, 0, read );
+                    }
+                }
+            }
+
+            final StringBuilder sb = new StringBuilder();
+
+            for( byte b : digest.digest() )
+            {
+                sb.append( String.format( "%02x", b ) ); //$NON-NLS-1$
+            }
+
+            return sb.toString();
+        }
+        catch( IOException e )
+        {
+            return null;
+        }
+        catch( NoSuchAlgorithmException e )
+        {
+            return null;
+        }
+    }
+
+    private boolean isExcluded( File dir, IPath path )
+    {
+        if( dir.getName().startsWith( "." ) || getExcludedPaths().contains( path ) ) //$NON-NLS-1$
+        {
+            return true;
+        }
+
+        final IContainer folder = project.getFolder( path );
+
+        return folder.exists() && folder.isDerived();
+    }
+
+    /**
+     * Records the state of all files below the given folder. Files that are the same as in the given previous state
+     * keep its hash, the others are hashed if <code>hashChanged</code> is set.
+     */
+    private void scan(
+        File dir, IPath path, Map<String, FileState> states, Map<String, FileState> previous, boolean hashChanged )
+    {
+        final File[] files = dir.listFiles();
+
+        if( files == null )
+        {
+            return;
+        }
+
+        for( File file : files )
+        {
+            final IPath filePath = path.append( file.getName() );
+
+            if( file.isDirectory() )
+            {
+                if( ! isExcluded( file, filePath ) )
+                {
+                    scan( file, filePath, states, previous, hashChanged );
+                }
+
+                continue;
+            }
+
+            final String key = filePath.toPortableString();
+
+            FileState state = new FileState( file.length(), file.lastModified(), null );
+
+            final FileState previousState = previous.get( key );
+
+            if( previousState != null && previousState.isSameFile( state ) )
+            {
+                state = previousState;
+            }
+            else if( hashChanged )
+            {
+                state = new FileState( state.length, state.lastModified, hash( file ) );
+            }
+
+            states.put( key, state );
+        }
+    }
+
+    private static class FileState
+    {
+
+        final String hash;
+        final long lastModified;
+        final long length;
+
+        FileState( long length, long lastModified, String hash )
+        {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        static FileState parse( String value )
+        {
+            final String[] values = value.split( "," ); //$NON-NLS-1$
+
+            try
+            {
+                return new FileState(
+                    Long.parseLong( values[0] ), Long.parseLong( values[1] ),
+                    values.length > 2 && values[2].length() > 0 ? values[2] : null );
+            }
+            catch( RuntimeException e )
+            {
+                return null;
+            }
+        }
+
+        boolean isSameContent( FileState other )
+        {
+            if( isSameFile( other ) )
+            {
+                return true;
+            }
+
+            return hash != null && hash.equals( other.hash );
+        }
+
+        boolean isSameFile( FileState other )
+        {
+            return length == other.length && lastModified == other.lastModified;
+        }
+
+        @Override
+        public String toString()
+        {
+            return length + "," + lastModified + "," + ( hash == null ? "" : hash ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+    }
+
+}
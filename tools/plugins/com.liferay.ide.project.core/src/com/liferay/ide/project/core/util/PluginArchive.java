@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.project.core.util;
+
+import com.liferay.ide.core.ILiferayConstants;
+import com.liferay.ide.project.core.BinaryProjectRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The descriptors of a plugin archive, read in one pass over its central directory without inflating any entry.
+ *
+ * @author agent
+ */
+public class PluginArchive
+{
+
+    private static final String WEB_INF = "WEB-INF/"; //$NON-NLS-1$
+
+    private final Set<String> descriptors = new HashSet<String>();
+    private final File file;
+
+    private PluginArchive( File file )
+    {
+        this.file = file;
+    }
+
+    public static PluginArchive read( File file ) throws IOException
+    {
+        final PluginArchive archive = new PluginArchive( file );
+
+        try( ZipFile zipFile = new ZipFile( file ) )
+        {
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+            while( entries.hasMoreElements() )
+            {
+                final String name = entries.nextElement().getName();
+
+                // only the files right in WEB-INF
+                if( name.startsWith( WEB_INF ) && name.indexOf( '/', WEB_INF.length() ) == -1 )
+                {
+                    archive.descriptors.add( name.substring( WEB_INF.length() ) );
+                }
+            }
+        }
+
+        return archive;
+    }
+
+    /**
+     * @param fileName
+     *            name of a file in WEB-INF
+     */
+    public boolean hasDescriptor( String fileName )
+    {
+        return descriptors.contains( fileName );
+    }
+
+    /**
+     * Whether the archive has the descriptors a Liferay plugin of the type its name suggests needs.
+     */
+    public boolean isValidLiferayPlugin()
+    {
+        final BinaryProjectRecord record = new BinaryProjectRecord( file );
+
+        // Check for liferay-plugin-package.properties or liferay-plugin-package.xml
+        final boolean hasPluginPackage =
+            hasDescriptor( ILiferayConstants.LIFERAY_PLUGIN_PACKAGE_PROPERTIES_FILE ) ||
+                hasDescriptor( ILiferayConstants.LIFERAY_PLUGIN_PACKAGE_PROPERTIES_XML_FILE );
+
+        if( record.isHook() )
+        {
+            return hasPluginPackage && hasDescriptor( ILiferayConstants.LIFERAY_HOOK_XML_FILE );
+        }
+        else if( record.isLayoutTpl() )
+        {
+            return hasPluginPackage || hasDescriptor( ILiferayConstants.LIFERAY_LAYOUTTPL_XML_FILE );
+        }
+        else if( record.isPortlet() )
+        {
+            return hasPluginPackage && hasDescriptor( ILiferayConstants.LIFERAY_PORTLET_XML_FILE );
+        }
+        else if( record.isTheme() )
+        {
+            return hasPluginPackage || hasDescriptor( ILiferayConstants.LIFERAY_LOOK_AND_FEEL_XML_FILE );
+        }
+
+        return hasPluginPackage;
+    }
+
+}
@@ -0,0 +1,357 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.project.core.util;
+
+import com.liferay.ide.sdk.core.ISDKConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.commons.io.FilenameUtils;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Finds Plugins SDK projects or binary plugins below a directory. The directories close to the start are scanned as
+ * fork/join tasks of their own, everything below them is walked with {@link Files#walkFileTree} inside the task.
+ * Directories with a pruned name are skipped, and the scan doesn't descend into a plugin project once its root is
+ * found. Symbolic links are followed, every directory is only visited once. Results are passed to the listener as soon
+ * as they are found, from the scanning threads.
+ *
+ * @author agent
+ */
+public class PluginDirectoryScanner
+{
+
+    /**
+     * Directories of version control systems
+     */
+    public static final Set<String> VCS_DIRECTORIES =
+        Collections.unmodifiableSet( new HashSet<String>( Arrays.asList( ".bzr", ".git", ".hg", ".svn", "CVS" ) ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+    /**
+     * Directories that never contain plugins: version control, workspace metadata, build output and javascript
+     * dependencies
+     */
+    public static final Set<String> DEFAULT_PRUNED_DIRECTORIES;
+
+    // directories this close to the start of a scan are scanned as tasks of their own
+    private static final int SPLIT_DEPTH = 3;
+
+    private static final ForkJoinPool scanPool =
+        new ForkJoinPool( Math.min( 4, Runtime.getRuntime().availableProcessors() ) );
+
+    static
+    {
+        final Set<String> pruned = new HashSet<String>( VCS_DIRECTORIES );
+
+        pruned.addAll( Arrays.asList(
+            ProjectUtil.METADATA_FOLDER, ".sass-cache", "bower_components", "classes", "node_modules" ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+        DEFAULT_PRUNED_DIRECTORIES = Collections.unmodifiableSet( pruned );
+    }
+
+    /**
+     * Receives the results of a scan. Called from several threads at once.
+     */
+    public interface Listener
+    {
+
+        /**
+         * @param file
+         *            a plugin project directory, the .project file of a plugin project or a plugin archive
+         */
+        void found( File file );
+    }
+
+    private boolean binaries;
+    private Listener listener;
+    private int maxDepth;
+    private IProgressMonitor monitor;
+    private final Set<String> prunedDirectories;
+    private final Set<Object> visited = Collections.newSetFromMap( new ConcurrentHashMap<Object, Boolean>() );
+
+    public PluginDirectoryScanner()
+    {
+        this( DEFAULT_PRUNED_DIRECTORIES );
+    }
+
+    /**
+     * @param prunedDirectories
+     *            names of the directories to skip
+     */
+    public PluginDirectoryScanner( Set<String> prunedDirectories )
+    {
+        this.prunedDirectories = prunedDirectories;
+    }
+
+    private Object getKey( Path dir, BasicFileAttributes attrs )
+    {
+        if( attrs.fileKey() != null )
+        {
+            return attrs.fileKey();
+        }
+
+        try
+        {
+            return dir.toRealPath();
+        }
+        catch( IOException e )
+        {
+            return dir.toAbsolutePath().normalize();
+        }
+    }
+
+    private static boolean isPluginArchive( String fileName )
+    {
+        for( String wildcard : ISDKConstants.BINARY_PLUGIN_PROJECT_WILDCARDS )
+        {
+            if( FilenameUtils.wildcardMatch( fileName, wildcard ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void scan( File directory, Listener listener, IProgressMonitor monitor )
+    {
+        this.listener = listener;
+        this.monitor = monitor;
+
+        visited.clear();
+
+        scanPool.invoke( new ScanTask( directory.toPath(), 0 ) );
+    }
+
+    /**
+     * Finds the plugin archives below the given directory that are valid Liferay plugins.
+     */
+    public synchronized void scanBinaries( File directory, Listener listener, IProgressMonitor monitor )
+    {
+        binaries = true;
+        maxDepth = Integer.MAX_VALUE;
+
+        scan( directory, listener, monitor );
+    }
+
+    /**
+     * Finds the Plugins SDK projects below the given directory. Projects with a .project file are reported by that
+     * file, all others by their directory.
+     *
+     * @param recurse
+     *            whether to look further than the direct children of the directory
+     */
+    public synchronized void scanProjects( File directory, boolean recurse, Listener listener, IProgressMonitor monitor )
+    {
+        binaries = false;
+        maxDepth = recurse ? Integer.MAX_VALUE : 1;
+
+        scan( directory, listener, monitor );
+    }
+
+    private FileVisitResult visitDirectory( Path dir, BasicFileAttributes attrs, int depth )
+    {
+        if( monitor.isCanceled() )
+        {
+            return FileVisitResult.TERMINATE;
+        }
+
+        if( depth > 0 && prunedDirectories.contains( dir.getFileName().toString() ) )
+        {
+            return FileVisitResult.SKIP_SUBTREE;
+        }
+
+        if( ! visited.add( getKey( dir, attrs ) ) )
+        {
+            // already been here through a link
+            return FileVisitResult.SKIP_SUBTREE;
+        }
+
+        if( ! binaries && ProjectUtil.isLiferaySDKProjectDir( dir.toFile() ) )
+        {
+            final File projectFile = dir.resolve( IProjectDescription.DESCRIPTION_FILE_NAME ).toFile();
+
+            listener.found( projectFile.isFile() ? projectFile : dir.toFile() );
+
+            // can't have nested projects
+            return FileVisitResult.SKIP_SUBTREE;
+        }
+
+        return depth < maxDepth ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+    }
+
+    private void visitFile( Path file )
+    {
+        if( binaries && isPluginArchive( file.getFileName().toString() ) &&
+            ProjectImportUtil.isValidLiferayPlugin( file.toFile() ) )
+        {
+            listener.found( file.toFile() );
+        }
+    }
+
+    /**
+     * Scans the directories close to the start, handing each subdirectory to a task of its own.
+     */
+    private class ScanTask extends RecursiveAction
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int depth;
+        private final Path dir;
+
+        ScanTask( Path dir, int depth )
+        {
+            this.dir = dir;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if( depth >= SPLIT_DEPTH )
+            {
+                walk();
+
+                return;
+            }
+
+            try
+            {
+                if( visitDirectory( dir, Files.readAttributes( dir, BasicFileAttributes.class ), depth ) !=
+                    FileVisitResult.CONTINUE )
+                {
+                    return;
+                }
+            }
+            catch( IOException e )
+            {
+                return;
+            }
+
+            monitor.subTask( NLS.bind( Msgs.checking, dir.toString() ) );
+
+            final List<ScanTask> tasks = new ArrayList<ScanTask>();
+
+            try( DirectoryStream<Path> children = Files.newDirectoryStream( dir ) )
+            {
+                for( Path child : children )
+                {
+                    if( Files.isDirectory( child ) )
+                    {
+                        tasks.add( new ScanTask( child, depth + 1 ) );
+                    }
+                    else if( Files.isRegularFile( child ) )
+                    {
+                        visitFile( child );
+                    }
+                }
+            }
+            catch( IOException e )
+            {
+                // unreadable directory
+            }
+
+            invokeAll( tasks );
+        }
+
+        private void walk()
+        {
+            try
+            {
+                Files.walkFileTree(
+                    dir, EnumSet.of( FileVisitOption.FOLLOW_LINKS ), Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
+                    {
+                        private int walkDepth = depth - 1;
+
+                        @Override
+                        public FileVisitResult postVisitDirectory( Path visitedDir, IOException e )
+                        {
+                            walkDepth--;
+
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult preVisitDirectory( Path visitedDir, BasicFileAttributes attrs )
+                        {
+                            final FileVisitResult result = visitDirectory( visitedDir, attrs, ++walkDepth );
+
+                            if( result != FileVisitResult.CONTINUE )
+                            {
+                                walkDepth--;
+                            }
+
+                            return result;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFile( Path file, BasicFileAttributes attrs )
+                        {
+                            if( attrs.isRegularFile() )
+                            {
+                                PluginDirectoryScanner.this.visitFile( file );
+                            }
+
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed( Path file, IOException e )
+                        {
+                            // unreadable or a link loop
+                            return FileVisitResult.CONTINUE;
+                        }
+                    } );
+            }
+            catch( IOException e )
+            {
+            }
+        }
+    }
+
+    private static class Msgs extends NLS
+    {
+
+        public static String checking;
+
+        static
+        {
+            initializeMessages( PluginDirectoryScanner.class.getName(), Msgs.class );
+        }
+    }
+
+}
@@ -17,7 +17,7 @@
 
 package com.liferay.ide.project.core.util;
 
-import com.liferay.ide.core.ILiferayConstants;
+import com.liferay.ide.core.util.FileUtil;
 import com.liferay.ide.core.util.ZipUtil;
 import com.liferay.ide.project.core.BinaryProjectRecord;
 import com.liferay.ide.project.core.IPortletFramework;
@@ -33,24 +33,29 @@ import com.liferay.ide.sdk.core.SDKUtil;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.DirectoryFileFilter;
-import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.common.project.facet.core.runtime.IRuntime;
 import org.eclipse.wst.common.project.facet.core.runtime.internal.BridgedRuntime;
@@ -63,46 +68,62 @@ import org.eclipse.wst.common.project.facet.core.runtime.internal.BridgedRuntime
 public class ProjectImportUtil
 {
 
+    private static final boolean DEBUG_IMPORT =
+        "true".equalsIgnoreCase( Platform.getDebugOption( ProjectCore.PLUGIN_ID + "/debug/import" ) ); //$NON-NLS-1$ //$NON-NLS-2$
 
 
     /**
      * This method was added as part of the IDE-381 fix, this method will collect all the binaries based on the binaries
      * list
      *
-     * @return true if the directory has some binaries
+     * @return false if the search was canceled
      */
     public static boolean collectBinariesFromDirectory(
-        Collection<File> binaryProjectFiles, File directory, boolean recurse, IProgressMonitor monitor )
+        final Collection<File> binaryProjectFiles, File directory, boolean recurse, IProgressMonitor monitor )
     {
         if( monitor.isCanceled() )
         {
             return false;
         }
 
-        monitor.subTask( NLS.bind( Msgs.checking, directory.getPath() ) );
-
-        List<String> wildCards = Arrays.asList( ISDKConstants.BINARY_PLUGIN_PROJECT_WILDCARDS );
-
-        WildcardFileFilter wildcardFileFilter = new WildcardFileFilter( wildCards );
-
-        Collection<File> contents = FileUtils.listFiles( directory, wildcardFileFilter, DirectoryFileFilter.INSTANCE );
-
-        if( contents == null )
-        {
-            return false;
-        }
-        else
+        new PluginDirectoryScanner().scanBinaries( directory, new PluginDirectoryScanner.Listener()
         {
-            for( File file : contents )
+            @Override
+            public void found( File file )
             {
-                if( !binaryProjectFiles.contains( file ) && isValidLiferayPlugin( file ) )
+                synchronized( binaryProjectFiles )
                 {
-                    binaryProjectFiles.add( file );
+                    if( ! binaryProjectFiles.contains( file ) )
+                    {
+                        binaryProjectFiles.add( file );
+                    }
                 }
             }
+        }, monitor );
+
+        return ! monitor.isCanceled();
+    }
+
+    /**
+     * Creates the project a plugin archive is extracted into. The skeleton is copied from the SDK's template where the
+     * SDK allows it, otherwise the create script is run, one at a time per SDK as the script works in the SDK's own
+     * folders.
+     */
+    private static IPath createPluginProject(
+        SDK liferaySDK, String displayName, ArrayList<String> arguments, String type, String framework,
+        IPath pluginFolder, IProgressMonitor monitor ) throws CoreException
+    {
+        final IPath projectPath = liferaySDK.createNewProjectSkeleton( displayName, displayName, type, framework );
+
+        if( projectPath != null )
+        {
+            return projectPath;
         }
 
-        return true;
+        synchronized( liferaySDK )
+        {
+            return liferaySDK.createNewProject( displayName, arguments, type, pluginFolder.toOSString(), monitor );
+        }
     }
 
     /**
@@ -140,8 +161,7 @@ public class ProjectImportUtil
                 try
                 {
                     projectPath =
-                        liferaySDK.createNewProject(
-                            displayName, arguments, "hook", sdkPluginProjectFolder.toOSString(), npm );
+                        createPluginProject( liferaySDK, displayName, arguments, "hook", null, sdkPluginProjectFolder, npm );
                 }
                 catch( CoreException e )
                 {
@@ -173,8 +193,7 @@ public class ProjectImportUtil
                 try
                 {
                     projectPath =
-                        liferaySDK.createNewProject(
-                            displayName, arguments, "portlet", sdkPluginProjectFolder.toOSString(), npm );
+                        createPluginProject( liferaySDK, displayName, arguments, "portlet", portletFrameworkName, sdkPluginProjectFolder, npm );
                 }
                 catch( CoreException e )
                 {
@@ -190,8 +209,7 @@ public class ProjectImportUtil
                 try
                 {
                     projectPath =
-                        liferaySDK.createNewProject(
-                            displayName, arguments, "theme", sdkPluginProjectFolder.toOSString(), npm );
+                        createPluginProject( liferaySDK, displayName, arguments, "theme", null, sdkPluginProjectFolder, npm );
                 }
                 catch( CoreException e )
                 {
@@ -207,8 +225,7 @@ public class ProjectImportUtil
                 try
                 {
                     projectPath =
-                        liferaySDK.createNewProject(
-                            displayName, arguments, "layouttpl", sdkPluginProjectFolder.toOSString(), npm );
+                        createPluginProject( liferaySDK, displayName, arguments, "layouttpl", null, sdkPluginProjectFolder, npm );
                 }
                 catch( CoreException e )
                 {
@@ -224,8 +241,7 @@ public class ProjectImportUtil
                 try
                 {
                     projectPath =
-                        liferaySDK.createNewProject(
-                            displayName, arguments, "ext", sdkPluginProjectFolder.toOSString(), npm );
+                        createPluginProject( liferaySDK, displayName, arguments, "ext", null, sdkPluginProjectFolder, npm );
                 }
                 catch( CoreException e )
                 {
@@ -241,8 +257,7 @@ public class ProjectImportUtil
                 try
                 {
                     projectPath =
-                        liferaySDK.createNewProject(
-                            displayName, arguments, "web", sdkPluginProjectFolder.toOSString(), npm );
+                        createPluginProject( liferaySDK, displayName, arguments, "web", null, sdkPluginProjectFolder, npm );
                 }
                 catch( CoreException e )
                 {
@@ -254,7 +269,18 @@ public class ProjectImportUtil
 
             // Extract the contents
             File webappRoot = new File( projectPath.toFile(), webappRootFolder );
-            ZipUtil.unzip( binaryFile, webappRoot );
+
+            try
+            {
+                ZipUtil.unzip( binaryFile, webappRoot );
+            }
+            catch( IOException e )
+            {
+                // don't leave a half extracted plugin in the SDK
+                FileUtil.deleteDir( projectPath.toFile(), true );
+
+                throw e;
+            }
 
             // IDE-569 check to see if the project already has .project
             File projectFile = new File( projectPath.toFile(), ".project" ); //$NON-NLS-1$
@@ -275,10 +301,95 @@ public class ProjectImportUtil
     }
 
     /**
-     * This will create the Eclipse Workspace projects
+     * Creates the SDK projects of the given plugin archives and extracts the archives into them. The archives are
+     * extracted in parallel; the records are returned in the order of the archives. If the operation is cancelled or
+     * one archive fails, the archives that are being extracted are allowed to finish and all created projects are
+     * removed from the SDK again.
+     */
+    public static ProjectRecord[] createSDKPluginProjects(
+        final BridgedRuntime bridgedRuntime, Object[] binaryRecords, final SDK liferaySDK, IProgressMonitor monitor )
+        throws CoreException
+    {
+        final ProjectRecord[] projectRecords = new ProjectRecord[binaryRecords.length];
+
+        if( binaryRecords.length == 0 )
+        {
+            return projectRecords;
+        }
+
+        final int threads = Math.min( binaryRecords.length, Math.min( 4, Runtime.getRuntime().availableProcessors() ) );
+
+        final ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, threads ) );
+
+        final List<Future<ProjectRecord>> results = new ArrayList<Future<ProjectRecord>>();
+
+        boolean completed = false;
+
+        try
+        {
+            for( Object binaryRecord : binaryRecords )
+            {
+                final BinaryProjectRecord pluginBinaryRecord = (BinaryProjectRecord) binaryRecord;
+
+                results.add( executor.submit( new Callable<ProjectRecord>()
+                {
+                    @Override
+                    public ProjectRecord call() throws Exception
+                    {
+                        return createSDKPluginProject( bridgedRuntime, pluginBinaryRecord, liferaySDK );
+                    }
+                } ) );
+            }
+
+            // progress is reported from this thread, as the archives finish
+            for( int i = 0; i < results.size(); i++ )
+            {
+                if( monitor.isCanceled() )
+                {
+                    throw new CoreException( Status.CANCEL_STATUS );
+                }
+
+                monitor.subTask(
+                    NLS.bind( Msgs.creatingPlugin, ( (BinaryProjectRecord) binaryRecords[i] ).getLiferayPluginName() ) );
+
+                projectRecords[i] = results.get( i ).get();
+
+                monitor.worked( 1 );
+            }
+
+            completed = true;
+        }
+        catch( InterruptedException e )
+        {
+            throw new CoreException( Status.CANCEL_STATUS );
+        }
+        catch( ExecutionException e )
+        {
+            throw new CoreException(
+                ProjectCore.createErrorStatus( ProjectCore.PLUGIN_ID, "Error creating project.", e.getCause() ) ); //$NON-NLS-1$
+        }
+        finally
+        {
+            // interrupting an extraction would leave a half written plugin behind
+            executor.shutdown();
+
+            if( ! completed )
+            {
+                deleteSDKPluginProjects( results );
+            }
+        }
+
+        return projectRecords;
+    }
+
+    /**
+     * This will create the Eclipse Workspace projects. The selected records are checked in parallel first, then all
+     * projects are created in a single workspace operation so that the workspace is only built once, after the last
+     * one. Records that fail the check are skipped.
      *
      * @param monitor
      * @throws CoreException
+     *             with the problems of the skipped records, after the other projects were created
      */
     public static void createWorkspaceProjects(
         final Object[] projects, final IRuntime runtime, final String sdkLocation, IProgressMonitor monitor )
@@ -286,7 +397,9 @@ public class ProjectImportUtil
     {
         final List<IProject> createdProjects = new ArrayList<IProject>();
 
-        monitor.beginTask( Msgs.creatingSDKWorkspaceProjects, projects.length );
+        monitor.beginTask( Msgs.creatingSDKWorkspaceProjects, projects.length + 1 );
+
+        final long start = System.nanoTime();
 
         if( projects != null && projects.length > 0 )
         {
@@ -304,19 +417,102 @@ public class ProjectImportUtil
             }
         }
 
-        for( int i = 0; i < projects.length; i++ )
+        final MultiStatus problems =
+            new MultiStatus( ProjectCore.PLUGIN_ID, 0, Msgs.cannotImportProjects, null );
+
+        final List<ProjectRecord> projectRecords = prepareProjectRecords( projects, problems );
+
+        final long prepared = System.nanoTime();
+
+        final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+
+        // one operation for all projects, auto-build and resource change events wait until it ends
+        workspace.run( new IWorkspaceRunnable()
         {
-            if( projects[i] instanceof ProjectRecord )
+            @Override
+            public void run( IProgressMonitor monitor ) throws CoreException
             {
-                IProject project =
-                    ProjectImportUtil.importProject( (ProjectRecord) projects[i], runtime, sdkLocation, monitor );
+                for( ProjectRecord projectRecord : projectRecords )
+                {
+                    if( monitor.isCanceled() )
+                    {
+                        break;
+                    }
+
+                    IProject project =
+                        ProjectImportUtil.importProject(
+                            projectRecord, runtime, sdkLocation, new SubProgressMonitor( monitor, 1 ) );
 
-                if( project != null )
+                    if( project != null )
+                    {
+                        createdProjects.add( project );
+                    }
+                }
+            }
+        }, workspace.getRoot(), IWorkspace.AVOID_UPDATE, monitor );
+
+        final long created = System.nanoTime();
+
+        if( ! createdProjects.isEmpty() && workspace.isAutoBuilding() )
+        {
+            // build now instead of in the auto-build job so that the build is part of the import
+            workspace.build( IncrementalProjectBuilder.INCREMENTAL_BUILD, new SubProgressMonitor( monitor, 1 ) );
+        }
+
+        if( DEBUG_IMPORT )
+        {
+            final long built = System.nanoTime();
+
+            ProjectCore.logInfo( NLS.bind(
+                "Imported {0} projects in {1} ms: prepare {2} ms, create {3} ms, build {4} ms", //$NON-NLS-1$
+                new Object[] { createdProjects.size(), toMillis( built - start ), toMillis( prepared - start ),
+                    toMillis( created - prepared ), toMillis( built - created ) } ) );
+        }
+
+        monitor.done();
+
+        if( ! problems.isOK() )
+        {
+            throw new CoreException( problems );
+        }
+    }
+
+    /**
+     * Removes the projects created by the given tasks from the SDK, after waiting for the tasks that already started.
+     */
+    private static void deleteSDKPluginProjects( List<Future<ProjectRecord>> results )
+    {
+        for( Future<ProjectRecord> result : results )
+        {
+            result.cancel( false );
+        }
+
+        for( Future<ProjectRecord> result : results )
+        {
+            if( result.isCancelled() )
+            {
+                continue;
+            }
+
+            try
+            {
+                final ProjectRecord projectRecord = result.get();
+
+                if( projectRecord != null )
                 {
-                    createdProjects.add( project );
-                    monitor.worked( createdProjects.size() );
+                    FileUtil.deleteDir( projectRecord.getProjectLocation().toFile(), true );
                 }
             }
+            catch( InterruptedException e )
+            {
+                ProjectCore.logError( "Could not remove the created projects from the SDK", e ); //$NON-NLS-1$
+
+                return;
+            }
+            catch( ExecutionException e )
+            {
+                // the task cleaned up after itself
+            }
         }
     }
 
@@ -425,81 +621,125 @@ public class ProjectImportUtil
      */
     public static boolean isValidLiferayPlugin( File binaryFile )
     {
-        boolean isValid = false;
-
-        JarFile pluginBinary = null;
-
         try
         {
-            pluginBinary = new JarFile( binaryFile );
+            return PluginArchive.read( binaryFile ).isValidLiferayPlugin();
+        }
+        catch( IOException e )
+        {
+            return false;
+        }
+    }
 
-            BinaryProjectRecord tempRecord = new BinaryProjectRecord( binaryFile );
 
-            // Check for liferay-plugin-package.properties or liferay-plugin-package.xml
-            JarEntry lfrPluginPkgPropsEntry =
-                pluginBinary.getJarEntry( getConfigFileLocation( ILiferayConstants.LIFERAY_PLUGIN_PACKAGE_PROPERTIES_FILE ) );
-            JarEntry lfrPluginPkgXmlEntry =
-                pluginBinary.getJarEntry( getConfigFileLocation( ILiferayConstants.LIFERAY_PLUGIN_PACKAGE_PROPERTIES_XML_FILE ) );
+    /**
+     * Checks the records before anything is created: every record needs a plugin type and must not be in the workspace
+     * yet. The records only need to be read from disk, so they are checked in parallel. Facets are still computed when
+     * the projects are created, as faceted project working copies are bound to the workspace.
+     *
+     * @return the records that passed the check; the problems of the others are added to <code>problems</code>
+     */
+    private static List<ProjectRecord> prepareProjectRecords( Object[] projects, MultiStatus problems )
+        throws CoreException
+    {
+        final List<ProjectRecord> projectRecords = new ArrayList<ProjectRecord>();
+        final List<ProjectRecord> validRecords = new ArrayList<ProjectRecord>();
 
-            if( lfrPluginPkgPropsEntry != null || lfrPluginPkgXmlEntry != null )
-            {
-                isValid = true;
-            }
+        if( projects == null )
+        {
+            return validRecords;
+        }
 
-            if( tempRecord.isHook() )
-            {
-                isValid =
-                    ( isValid && pluginBinary.getJarEntry( getConfigFileLocation( ILiferayConstants.LIFERAY_HOOK_XML_FILE ) ) != null );
-            }
-            else if( tempRecord.isLayoutTpl() )
-            {
-                isValid =
-                    ( isValid || pluginBinary.getJarEntry( getConfigFileLocation( ILiferayConstants.LIFERAY_LAYOUTTPL_XML_FILE ) ) != null );
-            }
-            else if( tempRecord.isPortlet() )
-            {
-                isValid =
-                    ( isValid && pluginBinary.getJarEntry( getConfigFileLocation( ILiferayConstants.LIFERAY_PORTLET_XML_FILE ) ) != null );
-            }
-            else if( tempRecord.isTheme() )
-            {
-                isValid =
-                    ( isValid || pluginBinary.getJarEntry( getConfigFileLocation( ILiferayConstants.LIFERAY_LOOK_AND_FEEL_XML_FILE ) ) != null );
-            }
+        final List<Callable<IStatus>> tasks = new ArrayList<Callable<IStatus>>();
 
-            if( !isValid )
-            {
-                return isValid;
-            }
-            else
+        for( Object project : projects )
+        {
+            if( project instanceof ProjectRecord )
             {
-                // check if its a valid web Archieve
-                isValid =
-                    isValid ||
-                        pluginBinary.getJarEntry( getConfigFileLocation( ILiferayConstants.WEB_XML_FILE ) ) != null;
+                final ProjectRecord projectRecord = (ProjectRecord) project;
+
+                projectRecords.add( projectRecord );
+
+                tasks.add( new Callable<IStatus>()
+                {
+                    @Override
+                    public IStatus call() throws Exception
+                    {
+                        return validateProjectRecord( projectRecord );
+                    }
+                } );
             }
         }
-        catch( IOException e )
+
+        if( tasks.isEmpty() )
         {
-            isValid = false;
+            return validRecords;
         }
-        finally
+
+        final int threads = Math.min( tasks.size(), Math.min( 4, Runtime.getRuntime().availableProcessors() ) );
+
+        final ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, threads ) );
+
+        try
         {
-            if( pluginBinary != null )
+            final List<Future<IStatus>> results = executor.invokeAll( tasks );
+
+            for( int i = 0; i < results.size(); i++ )
             {
-                try
+                final IStatus recordStatus = results.get( i ).get();
+
+                if( recordStatus.isOK() )
                 {
-                    pluginBinary.close();
+                    validRecords.add( projectRecords.get( i ) );
                 }
-                catch( IOException e )
+                else
                 {
+                    problems.add( recordStatus );
                 }
             }
         }
+        catch( InterruptedException e )
+        {
+            throw new CoreException( Status.CANCEL_STATUS );
+        }
+        catch( ExecutionException e )
+        {
+            throw new CoreException( ProjectCore.createErrorStatus( ProjectCore.PLUGIN_ID, e.getCause() ) );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
 
-        return isValid;
+        return validRecords;
     }
 
+    private static long toMillis( long nanos )
+    {
+        return nanos / 1000000;
+    }
+
+    private static IStatus validateProjectRecord( ProjectRecord projectRecord )
+    {
+        final String projectName = projectRecord.getProjectName();
+
+        if( projectName == null )
+        {
+            return ProjectCore.createErrorStatus( NLS.bind( Msgs.unknownPluginType, projectRecord.getProjectLocation() ) );
+        }
+
+        if( ResourcesPlugin.getWorkspace().getRoot().getProject( projectName ).exists() )
+        {
+            return ProjectCore.createErrorStatus( NLS.bind( Msgs.projectAlreadyExists, projectName ) );
+        }
+
+        if( ProjectUtil.guessPluginType( projectName, projectRecord.getProjectLocation() ) == null )
+        {
+            return ProjectCore.createErrorStatus( NLS.bind( Msgs.unknownPluginType, projectName ) );
+        }
+
+        return Status.OK_STATUS;
+    }
 
     public static IStatus validateSDKProjectPath(final String currentPath)
     {
@@ -583,8 +823,11 @@ public class ProjectImportUtil
 
     private static class Msgs extends NLS
     {
-        public static String checking;
+        public static String cannotImportProjects;
+        public static String creatingPlugin;
         public static String creatingSDKWorkspaceProjects;
+        public static String projectAlreadyExists;
+        public static String unknownPluginType;
 
         static
         {
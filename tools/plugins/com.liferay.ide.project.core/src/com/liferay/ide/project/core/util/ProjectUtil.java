@@ -37,10 +37,8 @@ import com.liferay.ide.server.util.ServerUtil;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -103,110 +101,44 @@ public class ProjectUtil
 {
     public static final String METADATA_FOLDER = ".metadata"; //$NON-NLS-1$
 
+    /**
+     * Collects the Plugins SDK projects below the given directory, see
+     * {@link PluginDirectoryScanner#scanProjects(File, boolean, PluginDirectoryScanner.Listener, IProgressMonitor)}.
+     *
+     * @return false if the search was canceled
+     */
     public static boolean collectProjectsFromDirectory(
-        Collection<File> eclipseProjectFiles, Collection<File> liferayProjectDirs, File directory,
-        Set<String> directoriesVisited, boolean recurse, IProgressMonitor monitor )
+        final Collection<File> eclipseProjectFiles, final Collection<File> liferayProjectDirs, File directory,
+        boolean recurse, IProgressMonitor monitor )
     {
         if( monitor.isCanceled() )
         {
             return false;
         }
 
-        monitor.subTask( NLS.bind( Msgs.checking, directory.getPath() ) );
-
-        File[] contents = directory.listFiles();
-
-        if( contents == null )
-        {
-            return false;
-        }
-
-        // Initialize recursion guard for recursive symbolic links
-        if( directoriesVisited == null )
-        {
-            directoriesVisited = new HashSet<String>();
-
-            try
-            {
-                directoriesVisited.add( directory.getCanonicalPath() );
-            }
-            catch( IOException exception )
-            {
-                ProjectCore.logError( exception.getLocalizedMessage(), exception );
-            }
-        }
-
-        // first look for project description files
-        final String dotProject = IProjectDescription.DESCRIPTION_FILE_NAME;
-
-        for( int i = 0; i < contents.length; i++ )
-        {
-            File file = contents[i];
-
-            if( isLiferaySDKProjectDir( file ) )
-            {
-                // recurse to see if it has project file
-                int currentSize = eclipseProjectFiles.size();
-
-                collectProjectsFromDirectory(
-                    eclipseProjectFiles, liferayProjectDirs, contents[i], directoriesVisited, false, monitor );
-
-                int newSize = eclipseProjectFiles.size();
-
-                if( newSize == currentSize )
-                {
-                    liferayProjectDirs.add( file );
-                }
-            }
-            else if( file.isFile() && file.getName().equals( dotProject ) )
-            {
-                if( ! eclipseProjectFiles.contains( file ) && isLiferaySDKProjectDir( file.getParentFile() ) )
-                {
-                    eclipseProjectFiles.add( file );
-
-                    // don't search sub-directories since we can't have nested
-                    // projects
-
-                    return true;
-                }
-            }
-        }
-
-        // no project description found, so recurse into sub-directories
-        for( int i = 0; i < contents.length; i++ )
+        new PluginDirectoryScanner().scanProjects( directory, recurse, new PluginDirectoryScanner.Listener()
         {
-            if( contents[i].isDirectory() )
+            @Override
+            public void found( File file )
             {
-                if( ! contents[i].getName().equals( METADATA_FOLDER ) )
+                if( file.isDirectory() )
                 {
-                    try
-                    {
-                        String canonicalPath = contents[i].getCanonicalPath();
-
-                        if( ! directoriesVisited.add( canonicalPath ) )
-                        {
-
-                            // already been here --> do not recurse
-                            continue;
-                        }
-                    }
-                    catch( IOException exception )
+                    synchronized( liferayProjectDirs )
                     {
-                        ProjectCore.logError( exception.getLocalizedMessage(), exception );
+                        liferayProjectDirs.add( file );
                     }
-
-                    // dont recurse directories that we have already determined
-                    // are Liferay projects
-                    if( ! liferayProjectDirs.contains( contents[i] ) && recurse )
+                }
+                else
+                {
+                    synchronized( eclipseProjectFiles )
                     {
-                        collectProjectsFromDirectory(
-                            eclipseProjectFiles, liferayProjectDirs, contents[i], directoriesVisited, recurse, monitor );
+                        eclipseProjectFiles.add( file );
                     }
                 }
             }
-        }
+        }, monitor );
 
-        return true;
+        return ! monitor.isCanceled();
     }
 
     public static String convertToDisplayName( String name )
@@ -1068,11 +1000,14 @@ public class ProjectUtil
     }
 
     public static String guessPluginType( IFacetedProjectWorkingCopy fpwc )
+    {
+        return guessPluginType( fpwc.getProjectName(), fpwc.getProjectLocation() );
+    }
+
+    public static String guessPluginType( String projName, IPath location )
     {
         String pluginType = null;
 
-        String projName = fpwc.getProjectName();
-        IPath location = fpwc.getProjectLocation();
         String directoryName = StringPool.EMPTY;
 
         if( location != null )
@@ -1486,7 +1421,6 @@ public class ProjectUtil
 
     private static class Msgs extends NLS
     {
-        public static String checking;
         public static String importingProject;
 
         static
@@ -19,14 +19,13 @@ import com.liferay.ide.core.util.CoreUtil;
 import com.liferay.ide.core.util.StringPool;
 import com.liferay.ide.project.core.BinaryProjectRecord;
 import com.liferay.ide.project.core.ISDKProjectsImportDataModelProperties;
-import com.liferay.ide.project.core.util.ProjectImportUtil;
+import com.liferay.ide.project.core.util.PluginDirectoryScanner;
 import com.liferay.ide.project.ui.ProjectUI;
 import com.liferay.ide.ui.util.SWTUtil;
 
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -369,6 +368,12 @@ public class BinaryProjectsImportWizardPage extends SDKProjectsImportWizardPage
 
         final boolean dirSelected = true;
 
+        selectedProjects = new BinaryProjectRecord[0];
+
+        projectsList.refresh( true );
+
+        final Object scan = startScan();
+
         try
         {
             getContainer().run( true, true, new IRunnableWithProgress()
@@ -384,36 +389,35 @@ public class BinaryProjectsImportWizardPage extends SDKProjectsImportWizardPage
 
                     monitor.beginTask( StringPool.EMPTY, 100 );
 
-                    selectedProjects = new BinaryProjectRecord[0];
-
-                    Collection<File> projectBinaries = new ArrayList<File>();
+                    final List<BinaryProjectRecord> binaryRecords = new ArrayList<BinaryProjectRecord>();
 
                     monitor.worked( 10 );
 
                     if( dirSelected && directory.isDirectory() )
                     {
-
-                        if( !ProjectImportUtil.collectBinariesFromDirectory( projectBinaries, directory, true, monitor ) )
+                        new PluginDirectoryScanner().scanBinaries( directory, new PluginDirectoryScanner.Listener()
                         {
-                            return;
-                        }
+                            public void found( File file )
+                            {
+                                final BinaryProjectRecord binaryRecord = new BinaryProjectRecord( file );
 
-                        selectedProjects = new BinaryProjectRecord[projectBinaries.size()];
+                                synchronized( binaryRecords )
+                                {
+                                    binaryRecords.add( binaryRecord );
+                                }
 
-                        int index = 0;
+                                showFoundProject( scan, binaryRecord );
+                            }
+                        }, monitor );
 
-                        monitor.worked( 50 );
-
-                        monitor.subTask( StringPool.EMPTY );
-
-                        for( File binaryFile : projectBinaries )
+                        if( monitor.isCanceled() )
                         {
-                            selectedProjects[index++] = new BinaryProjectRecord( binaryFile );
+                            return;
                         }
 
-                        // for ( File liferayProjectDir : liferayProjectDirs ) {
-                        // selectedProjects[index++] = new ProjectRecord( liferayProjectDir );
-                        // }
+                        selectedProjects = binaryRecords.toArray( new BinaryProjectRecord[binaryRecords.size()] );
+
+                        monitor.worked( 50 );
                     }
                     else
                     {
@@ -434,6 +438,8 @@ public class BinaryProjectsImportWizardPage extends SDKProjectsImportWizardPage
             // Nothing to do if the user interrupts.
         }
 
+        endScan();
+
         projectsList.refresh( true );
 
         setPageComplete( projectsList.getCheckedElements().length > 0 );
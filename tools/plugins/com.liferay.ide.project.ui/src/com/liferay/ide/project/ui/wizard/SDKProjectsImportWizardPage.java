@@ -19,7 +19,7 @@ import com.liferay.ide.core.util.CoreUtil;
 import com.liferay.ide.core.util.StringPool;
 import com.liferay.ide.project.core.ISDKProjectsImportDataModelProperties;
 import com.liferay.ide.project.core.ProjectRecord;
-import com.liferay.ide.project.core.util.ProjectUtil;
+import com.liferay.ide.project.core.util.PluginDirectoryScanner;
 import com.liferay.ide.project.ui.ProjectUI;
 import com.liferay.ide.sdk.core.SDK;
 import com.liferay.ide.sdk.core.SDKManager;
@@ -28,7 +28,6 @@ import com.liferay.ide.ui.util.SWTUtil;
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import org.eclipse.core.resources.IProject;
@@ -98,6 +97,7 @@ public class SDKProjectsImportWizardPage extends DataModelFacetCreationWizardPag
         }
     }
 
+    private Object currentScan;
     protected Label labelProjectsList;
     protected long lastModified;
     protected String lastPath;
@@ -401,6 +401,14 @@ public class SDKProjectsImportWizardPage extends DataModelFacetCreationWizardPag
         }
     }
 
+    /**
+     * Stops adding projects found by the current scan, the list is refreshed with all of them afterwards.
+     */
+    protected void endScan()
+    {
+        currentScan = null;
+    }
+
     public Object[] getProjectRecords()
     {
         List projectRecords = new ArrayList();
@@ -563,12 +571,46 @@ public class SDKProjectsImportWizardPage extends DataModelFacetCreationWizardPag
         return false;
     }
 
+    /**
+     * Adds a project found by a running scan to the list, unless that scan is over already.
+     */
+    protected void showFoundProject( final Object scan, final Object projectRecord )
+    {
+        final Control control = projectsList.getControl();
+
+        if( control.isDisposed() )
+        {
+            return;
+        }
+
+        control.getDisplay().asyncExec( new Runnable()
+        {
+            public void run()
+            {
+                if( currentScan == scan && ! projectsList.getControl().isDisposed() )
+                {
+                    projectsList.add( projectsList.getInput(), projectRecord );
+                }
+            }
+        } );
+    }
+
     @Override
     protected boolean showValidationErrorsOnEnter()
     {
         return true;
     }
 
+    /**
+     * Starts a new scan, projects still coming in from older ones are dropped.
+     */
+    protected Object startScan()
+    {
+        currentScan = new Object();
+
+        return currentScan;
+    }
+
     public void updateProjectsList( final String path )
     {
         // on an empty path empty selectedProjects
@@ -606,6 +648,12 @@ public class SDKProjectsImportWizardPage extends DataModelFacetCreationWizardPag
 
         final boolean dirSelected = true;
 
+        selectedProjects = new ProjectRecord[0];
+
+        projectsList.refresh( true );
+
+        final Object scan = startScan();
+
         try
         {
             getContainer().run( true, true, new IRunnableWithProgress()
@@ -619,39 +667,36 @@ public class SDKProjectsImportWizardPage extends DataModelFacetCreationWizardPag
                 {
                     monitor.beginTask( Msgs.searchingMessage, 100 );
 
-                    selectedProjects = new ProjectRecord[0];
-
-                    Collection<File> eclipseProjectFiles = new ArrayList<File>();
-
-                    Collection<File> liferayProjectDirs = new ArrayList<File>();
+                    final List<ProjectRecord> projectRecords = new ArrayList<ProjectRecord>();
 
                     monitor.worked( 10 );
 
                     if( dirSelected && directory.isDirectory() )
                     {
-                        if( !ProjectUtil.collectProjectsFromDirectory(
-                            eclipseProjectFiles, liferayProjectDirs, directory, null, true, monitor ) )
+                        // project records are created on the scanning threads and shown as they are found
+                        new PluginDirectoryScanner().scanProjects( directory, true, new PluginDirectoryScanner.Listener()
                         {
-                            return;
-                        }
-
-                        selectedProjects = new ProjectRecord[eclipseProjectFiles.size() + liferayProjectDirs.size()];
+                            public void found( File file )
+                            {
+                                final ProjectRecord projectRecord = new ProjectRecord( file );
 
-                        int index = 0;
+                                synchronized( projectRecords )
+                                {
+                                    projectRecords.add( projectRecord );
+                                }
 
-                        monitor.worked( 50 );
-
-                        monitor.subTask( Msgs.processingMessage );
+                                showFoundProject( scan, projectRecord );
+                            }
+                        }, monitor );
 
-                        for( File eclipseProjectFile : eclipseProjectFiles )
+                        if( monitor.isCanceled() )
                         {
-                            selectedProjects[index++] = new ProjectRecord( eclipseProjectFile );
+                            return;
                         }
 
-                        for( File liferayProjectDir : liferayProjectDirs )
-                        {
-                            selectedProjects[index++] = new ProjectRecord( liferayProjectDir );
-                        }
+                        selectedProjects = projectRecords.toArray( new ProjectRecord[projectRecords.size()] );
+
+                        monitor.worked( 50 );
                     }
                     else
                     {
@@ -672,6 +717,8 @@ public class SDKProjectsImportWizardPage extends DataModelFacetCreationWizardPag
             // Nothing to do if the user interrupts.
         }
 
+        endScan();
+
         projectsList.refresh( true );
 
         Object[] projects = getProjectRecords();
@@ -740,7 +787,6 @@ public class SDKProjectsImportWizardPage extends DataModelFacetCreationWizardPag
         public static String liferayTargetRuntimeLabel;
         public static String newButton;
         public static String noProjectsToImport;
-        public static String processingMessage;
         public static String projectsInWorkspace;
         public static String refresh;
         public static String searchingMessage;
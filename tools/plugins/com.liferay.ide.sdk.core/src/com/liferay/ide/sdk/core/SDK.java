@@ -21,8 +21,8 @@ import com.liferay.ide.core.util.FileUtil;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -31,6 +31,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.regex.Pattern;
 
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Property;
@@ -66,6 +67,8 @@ public class SDK
     public static List<String> KEY_BUILD_PROPERTIES = Arrays.asList( new String[] { "app.server.dir",
         "app.server.deploy.dir", "app.server.lib.global.dir", "app.server.parent.dir", "app.server.portal.dir" } );
 
+    private static final Pattern TEMPLATE_TOKEN = Pattern.compile( "@[a-zA-Z][\\w.]*@" ); //$NON-NLS-1$
+
     @SuppressWarnings( "deprecation" )
     protected static IEclipsePreferences getPrefStore()
     {
@@ -323,6 +326,97 @@ public class SDK
         return newPath;
     }
 
+    /**
+     * Creates a new plugin project in this SDK without running the create script, for projects whose docroot is filled
+     * right after, e.g. from a plugin archive. The build files of the SDK's template for the type are copied with the
+     * name tokens replaced the way the create script does it, and an empty docroot is created. Returns
+     * <code>null</code> for ext plugins, for SDKs without a template for the type and for templates with other tokens,
+     * those need {@link #createNewProject(String, ArrayList, String, String, IProgressMonitor)}.
+     *
+     * @param framework
+     *            the portlet framework whose template to use, or <code>null</code>
+     */
+    public IPath createNewProjectSkeleton( String projectName, String displayName, String type, String framework )
+        throws CoreException
+    {
+        if( "ext".equals( type ) ) //$NON-NLS-1$
+        {
+            return null;
+        }
+
+        final File templateDir = getTemplateDir( type, framework );
+
+        if( templateDir == null )
+        {
+            return null;
+        }
+
+        final Map<String, String> buildFiles = new HashMap<String, String>();
+
+        try
+        {
+            for( File file : templateDir.listFiles() )
+            {
+                final String name = file.getName();
+
+                // the docroot of the template is replaced by the one from the archive
+                if( ! file.isFile() || ! ( name.endsWith( ".xml" ) || name.endsWith( ".properties" ) ) ) //$NON-NLS-1$ //$NON-NLS-2$
+                {
+                    continue;
+                }
+
+                final String contents =
+                    new String( Files.readAllBytes( file.toPath() ), "UTF-8" ).replace( //$NON-NLS-1$
+                        "@" + type + ".name@", projectName ).replace( //$NON-NLS-1$ //$NON-NLS-2$
+                        "@" + type + ".display.name@", displayName ); //$NON-NLS-1$ //$NON-NLS-2$
+
+                if( TEMPLATE_TOKEN.matcher( contents ).find() )
+                {
+                    // filled in by a create script this method doesn't know
+                    return null;
+                }
+
+                buildFiles.put( name, contents );
+            }
+        }
+        catch( IOException e )
+        {
+            throw new CoreException( SDKCorePlugin.createErrorStatus( e ) );
+        }
+
+        if( ! buildFiles.containsKey( "build.xml" ) ) //$NON-NLS-1$
+        {
+            return null;
+        }
+
+        final IPath newPath = getLocation().append( getPluginFolder( type ) ).append( projectName + getPluginSuffix( type ) );
+
+        final File docroot = newPath.append( ISDKConstants.DEFAULT_DOCROOT_FOLDER ).toFile();
+
+        if( newPath.toFile().exists() || ! docroot.mkdirs() )
+        {
+            throw new CoreException( SDKCorePlugin.createErrorStatus( "Could not create " + newPath.toOSString() ) ); //$NON-NLS-1$
+        }
+
+        try
+        {
+            // written like the create script would, outside of the workspace
+            for( Map.Entry<String, String> buildFile : buildFiles.entrySet() )
+            {
+                Files.write(
+                    newPath.append( buildFile.getKey() ).toFile().toPath(), buildFile.getValue().getBytes( "UTF-8" ) ); //$NON-NLS-1$
+            }
+        }
+        catch( IOException e )
+        {
+            FileUtil.deleteDir( newPath.toFile(), true );
+
+            throw new CoreException( SDKCorePlugin.createErrorStatus( e ) );
+        }
+
+        return newPath;
+    }
+
     public IPath createNewExtProject( String extName, String extDisplayName,
         boolean separateJRE, String workingDir, String baseDir, IProgressMonitor monitor )
     {
@@ -733,6 +827,34 @@ public class SDK
         }
     }
 
+    /**
+     * Returns the template the create script copies for new plugins of the given type, or <code>null</code> if this
+     * SDK has none.
+     */
+    private File getTemplateDir( String type, String framework )
+    {
+        final List<String> names = new ArrayList<String>();
+
+        if( framework != null )
+        {
+            names.add( type + "_" + framework + "_tmpl" ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        names.add( type + "_tmpl" ); //$NON-NLS-1$
+
+        for( String name : names )
+        {
+            final File templateDir = getLocation().append( "tools" ).append( name ).toFile(); //$NON-NLS-1$
+
+            if( templateDir.isDirectory() )
+            {
+                return templateDir;
+            }
+        }
+
+        return null;
+    }
+
     private boolean hasAppServerSpecificProps( Properties props )
     {
         Enumeration<?> names = props.propertyNames();
@@ -756,9 +878,7 @@ public class SDK
 
         try
         {
-            InputStream propertiesInput = new FileInputStream( file );
-            properties.load( propertiesInput );
-            propertiesInput.close();
+            properties = SDKPropertiesCache.getFileProperties( file );
         }
         catch( Exception e )
         {
@@ -768,7 +888,57 @@ public class SDK
         return properties;
     }
 
+    /**
+     * Returns the resolved build properties of this SDK as an unmodifiable map. The result is cached per SDK location
+     * until one of the build*.properties files it was resolved from changes.
+     */
     public Map<String,Object> getBuildProperties() throws CoreException
+    {
+        final File sdkDir = getLocation().toFile();
+
+        final Map<String, Object> cached = SDKPropertiesCache.getBuildProperties( sdkDir );
+
+        if( cached != null )
+        {
+            return cached;
+        }
+
+        final List<File> contributingFiles = getBuildPropertiesFiles();
+
+        try
+        {
+            return SDKPropertiesCache.put( sdkDir, contributingFiles, resolveBuildProperties(), null );
+        }
+        catch( CoreException e )
+        {
+            SDKPropertiesCache.put( sdkDir, contributingFiles, null, e );
+
+            throw e;
+        }
+    }
+
+    /**
+     * The files {@link #getBuildProperties()} reads, whether they exist or not.
+     */
+    private List<File> getBuildPropertiesFiles()
+    {
+        final List<File> files = new ArrayList<File>();
+
+        for( String keyName : new String[] { System.getProperty( "user.name" ), System.getenv( "COMPUTERNAME" ),
+            System.getenv( "HOST" ), System.getenv( "HOSTNAME" ) } )
+        {
+            if( keyName != null )
+            {
+                files.add( getLocation().append( "build." + keyName + ".properties" ).toFile() );
+            }
+        }
+
+        files.add( getLocation().append( "build.properties" ).toFile() );
+
+        return files;
+    }
+
+    private Map<String,Object> resolveBuildProperties() throws CoreException
     {
         final Project project = new Project();
 
@@ -0,0 +1,468 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.sdk.core;
+
+import com.liferay.ide.core.util.CoreUtil;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.eclipse.ant.core.AntCorePlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunchManager;
+import org.eclipse.debug.core.Launch;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.launching.IVMInstall;
+import org.eclipse.jdt.launching.JavaRuntime;
+
+/**
+ * Runs Plugins SDK targets in one long lived Ant JVM per SDK instead of launching a new JVM for every target. The JVM
+ * runs {@link SDKAntWorker} with the same classpath as the Ant launches and is started on first use; it keeps its
+ * classes loaded and compiled between builds and can run the targets of several projects at once. Every target shows
+ * up as its own process in the console, and terminating it or cancelling the monitor stops the build in the worker.
+ * The worker's directory is the SDK for all builds; the working directory of a request is only passed on as the
+ * <code>user.dir</code> Ant property, so forked tasks without a <code>dir</code> still start in the SDK. The daemon
+ * is only used when the {@link SDKCorePlugin#PREF_KEY_ANT_DAEMON} preference is set.
+ *
+ * @author agent
+ */
+class SDKAntDaemon
+{
+
+    private static final Map<IPath, SDKAntDaemon> daemons = new HashMap<IPath, SDKAntDaemon>();
+
+    private int port;
+    private final SDK sdk;
+    private final String token = UUID.randomUUID().toString();
+    private Process worker;
+
+    private SDKAntDaemon( SDK sdk )
+    {
+        this.sdk = sdk;
+    }
+
+    static synchronized SDKAntDaemon get( SDK sdk )
+    {
+        SDKAntDaemon daemon = daemons.get( sdk.getLocation() );
+
+        if( daemon == null )
+        {
+            daemon = new SDKAntDaemon( sdk );
+
+            daemons.put( sdk.getLocation(), daemon );
+        }
+
+        return daemon;
+    }
+
+    static boolean isEnabled()
+    {
+        return Platform.getPreferencesService().getBoolean(
+            SDKCorePlugin.PLUGIN_ID, SDKCorePlugin.PREF_KEY_ANT_DAEMON, false, null );
+    }
+
+    static synchronized void stopAll()
+    {
+        for( SDKAntDaemon daemon : daemons.values() )
+        {
+            daemon.stop();
+        }
+
+        daemons.clear();
+    }
+
+    private List<String> getClasspath() throws IOException
+    {
+        final List<String> classpath = new ArrayList<String>();
+
+        for( URL url : AntCorePlugin.getPlugin().getPreferences().getURLs() )
+        {
+            classpath.add( new File( FileLocator.toFileURL( url ).getFile() ).getAbsolutePath() );
+        }
+
+        for( IPath antLib : sdk.getAntLibraries() )
+        {
+            classpath.add( antLib.toOSString() );
+        }
+
+        // IDE-862 need to add Eclipse's own jdt.core that contains the necessary classes.
+        classpath.add( FileLocator.getBundleFile( JavaCore.getPlugin().getBundle() ).getAbsolutePath() );
+
+        final File bundleFile = FileLocator.getBundleFile( SDKCorePlugin.getDefault().getBundle() );
+
+        if( bundleFile.isDirectory() && new File( bundleFile, "target/classes" ).exists() ) //$NON-NLS-1$
+        {
+            // running from a workspace during development
+            classpath.add( new File( bundleFile, "target/classes" ).getAbsolutePath() ); //$NON-NLS-1$
+        }
+        else
+        {
+            classpath.add( bundleFile.getAbsolutePath() );
+        }
+
+        return classpath;
+    }
+
+    private String getJavaExecutable() throws CoreException
+    {
+        final IVMInstall vmInstall = JavaRuntime.getDefaultVMInstall();
+
+        if( vmInstall == null || vmInstall.getInstallLocation() == null )
+        {
+            throw new CoreException( SDKCorePlugin.createErrorStatus( "No JRE available to run the Ant worker" ) ); //$NON-NLS-1$
+        }
+
+        final String java = CoreUtil.isWindows() ? "bin/java.exe" : "bin/java"; //$NON-NLS-1$ //$NON-NLS-2$
+
+        return new File( vmInstall.getInstallLocation(), java ).getAbsolutePath();
+    }
+
+    /**
+     * Runs the targets in the worker and waits for them to finish, showing their output in the console like a regular
+     * Ant launch.
+     */
+    void runTarget(
+        IPath buildFile, String targets, Map<String, String> properties, String workingDir, String label,
+        IProgressMonitor monitor ) throws CoreException
+    {
+        final Properties request = new Properties();
+
+        request.putAll( properties );
+        request.setProperty( SDKAntWorker.PROP_TOKEN, token );
+        request.setProperty( SDKAntWorker.PROP_BUILD_FILE, buildFile.toOSString() );
+        request.setProperty( SDKAntWorker.PROP_TARGETS, targets );
+
+        if( workingDir != null )
+        {
+            request.setProperty( SDKAntWorker.PROP_WORKING_DIR, workingDir );
+        }
+
+        final WorkerProcess process;
+
+        try
+        {
+            final Socket socket = new Socket( InetAddress.getByName( null ), start() );
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+            request.store( new OutputStreamWriter( bytes, "UTF-8" ), null ); //$NON-NLS-1$
+
+            // the socket stays open both ways, the worker cancels the build when it is closed
+            final OutputStream out = socket.getOutputStream();
+
+            out.write( ( bytes.size() + "\n" ).getBytes( "UTF-8" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+            bytes.writeTo( out );
+            out.flush();
+
+            process = new WorkerProcess( socket );
+        }
+        catch( IOException e )
+        {
+            // the worker may have died, start a new one next time
+            stop();
+
+            throw new CoreException( SDKCorePlugin.createErrorStatus( e ) );
+        }
+
+        final Launch launch = new Launch( null, ILaunchManager.RUN_MODE, null );
+
+        DebugPlugin.getDefault().getLaunchManager().addLaunch( launch );
+        DebugPlugin.newProcess( launch, process, label );
+
+        try
+        {
+            while( ! process.isFinished() )
+            {
+                if( monitor != null && monitor.isCanceled() )
+                {
+                    process.destroy();
+                }
+
+                Thread.sleep( 100 );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            process.destroy();
+        }
+    }
+
+    /**
+     * Starts the worker if it isn't running yet and returns its port.
+     */
+    private synchronized int start() throws IOException
+    {
+        if( worker != null )
+        {
+            try
+            {
+                worker.exitValue();
+            }
+            catch( IllegalThreadStateException e )
+            {
+                return port;
+            }
+        }
+
+        final List<String> command = new ArrayList<String>();
+
+        try
+        {
+            command.add( getJavaExecutable() );
+        }
+        catch( CoreException e )
+        {
+            throw new IOException( e.getMessage(), e );
+        }
+
+        command.add( "-Xmx768m" ); //$NON-NLS-1$
+        command.add( "-cp" ); //$NON-NLS-1$
+        command.add( join( getClasspath(), File.pathSeparator ) );
+        command.add( SDKAntWorker.class.getName() );
+        command.add( token );
+
+        final File log = SDKCorePlugin.getDefault().getStateLocation().append( "ant-worker.log" ).toFile(); //$NON-NLS-1$
+
+        final ProcessBuilder builder = new ProcessBuilder( command );
+        builder.directory( sdk.getLocation().toFile() );
+        builder.redirectError( ProcessBuilder.Redirect.appendTo( log ) );
+
+        worker = builder.start();
+
+        final BufferedReader reader = new BufferedReader( new InputStreamReader( worker.getInputStream(), "UTF-8" ) ); //$NON-NLS-1$
+        final String line = reader.readLine();
+
+        if( line == null || ! line.startsWith( SDKAntWorker.PORT ) )
+        {
+            stop();
+
+            throw new IOException( "Ant worker did not start, see " + log.getAbsolutePath() ); //$NON-NLS-1$
+        }
+
+        port = Integer.parseInt( line.substring( SDKAntWorker.PORT.length() ).trim() );
+
+        // output written outside of any build
+        final Thread drain = new Thread( "Ant worker output" ) //$NON-NLS-1$
+        {
+            @Override
+            public void run()
+            {
+                try( final OutputStream out = new FileOutputStream( log, true ) )
+                {
+                    String next = null;
+
+                    while( ( next = reader.readLine() ) != null )
+                    {
+                        out.write( ( next + "\n" ).getBytes( "UTF-8" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                }
+                catch( IOException e )
+                {
+                }
+            }
+        };
+
+        drain.setDaemon( true );
+        drain.start();
+
+        return port;
+    }
+
+    private synchronized void stop()
+    {
+        if( worker != null )
+        {
+            worker.destroy();
+            worker = null;
+        }
+    }
+
+    private static String join( List<String> values, String separator )
+    {
+        final StringBuilder sb = new StringBuilder();
+
+        for( String value : values )
+        {
+            if( sb.length() > 0 )
+            {
+                sb.append( separator );
+            }
+
+            sb.append( value );
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * One target run in the worker, presented as a process so that the debug console shows its output.
+     */
+    private static class WorkerProcess extends Process
+    {
+
+        private final PipedInputStream err = new PipedInputStream( 65536 );
+        private volatile int exitValue = -1;
+        private volatile boolean finished;
+        private final PipedInputStream out = new PipedInputStream( 65536 );
+        private final Socket socket;
+
+        WorkerProcess( Socket socket ) throws IOException
+        {
+            this.socket = socket;
+
+            final PipedOutputStream outPipe = new PipedOutputStream( out );
+            final PipedOutputStream errPipe = new PipedOutputStream( err );
+            final BufferedReader reader =
+                new BufferedReader( new InputStreamReader( socket.getInputStream(), "UTF-8" ) ); //$NON-NLS-1$
+
+            final Thread thread = new Thread( "Ant worker request" ) //$NON-NLS-1$
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        String line = null;
+
+                        while( ( line = reader.readLine() ) != null )
+                        {
+                            if( line.startsWith( SDKAntWorker.EXIT ) )
+                            {
+                                exitValue = Integer.parseInt( line.substring( SDKAntWorker.EXIT.length() ).trim() );
+                            }
+                            else if( line.startsWith( SDKAntWorker.ERR ) )
+                            {
+                                errPipe.write( ( line.substring( 2 ) + "\n" ).getBytes( "UTF-8" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+                            }
+                            else if( line.startsWith( SDKAntWorker.OUT ) )
+                            {
+                                outPipe.write( ( line.substring( 2 ) + "\n" ).getBytes( "UTF-8" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+                            }
+                        }
+                    }
+                    catch( IOException e )
+                    {
+                        // destroyed or the worker died
+                    }
+                    finally
+                    {
+                        finished = true;
+
+                        close( outPipe );
+                        close( errPipe );
+                        close( WorkerProcess.this.socket );
+
+                        synchronized( WorkerProcess.this )
+                        {
+                            WorkerProcess.this.notifyAll();
+                        }
+                    }
+                }
+            };
+
+            thread.setDaemon( true );
+            thread.start();
+        }
+
+        private static void close( Closeable closeable )
+        {
+            try
+            {
+                closeable.close();
+            }
+            catch( IOException e )
+            {
+            }
+        }
+
+        @Override
+        public void destroy()
+        {
+            close( socket );
+        }
+
+        @Override
+        public int exitValue()
+        {
+            if( ! finished )
+            {
+                throw new IllegalThreadStateException();
+            }
+
+            return exitValue;
+        }
+
+        @Override
+        public InputStream getErrorStream()
+        {
+            return err;
+        }
+
+        @Override
+        public InputStream getInputStream()
+        {
+            return out;
+        }
+
+        @Override
+        public OutputStream getOutputStream()
+        {
+            // targets are not interactive
+            return new ByteArrayOutputStream();
+        }
+
+        boolean isFinished()
+        {
+            return finished;
+        }
+
+        @Override
+        public synchronized int waitFor() throws InterruptedException
+        {
+            while( ! finished )
+            {
+                wait();
+            }
+
+            return exitValue;
+        }
+    }
+
+}
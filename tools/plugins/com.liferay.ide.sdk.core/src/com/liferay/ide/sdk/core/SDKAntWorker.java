@@ -0,0 +1,517 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.sdk.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Properties;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.BuildListener;
+import org.apache.tools.ant.DefaultLogger;
+import org.apache.tools.ant.DemuxOutputStream;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.ProjectHelper;
+
+/**
+ * Main class of the long lived Ant JVM started by {@link SDKAntDaemon}. It only depends on the JDK and Ant, as it runs
+ * outside of the IDE with the SDK's Ant classpath. Each connection on the loopback port carries one request as a
+ * properties document, preceded by a line with its length in bytes, and receives the build output as lines prefixed
+ * with {@link #OUT} or {@link #ERR}, followed by one {@link #EXIT} line with the result. Requests for different build
+ * files run concurrently, requests for the same build file one after the other. The client keeps its side of the
+ * connection open while the build runs; closing it cancels the build.
+ *
+ * @author agent
+ */
+public class SDKAntWorker
+{
+
+    static final String ERR = "E "; //$NON-NLS-1$
+    static final String EXIT = "X "; //$NON-NLS-1$
+    static final String OUT = "O "; //$NON-NLS-1$
+    static final String PORT = "PORT "; //$NON-NLS-1$
+
+    static final String PROP_BUILD_FILE = "sdk.ant.worker.build.file"; //$NON-NLS-1$
+    static final String PROP_PREFIX = "sdk.ant.worker."; //$NON-NLS-1$
+    static final String PROP_TARGETS = "sdk.ant.worker.targets"; //$NON-NLS-1$
+    static final String PROP_TOKEN = "sdk.ant.worker.token"; //$NON-NLS-1$
+    static final String PROP_WORKING_DIR = "sdk.ant.worker.working.dir"; //$NON-NLS-1$
+
+    private static final String UTF8 = "UTF-8"; //$NON-NLS-1$
+
+    private static final InheritableThreadLocal<Request> currentRequest = new InheritableThreadLocal<Request>();
+
+    private static final ConcurrentMap<String, ReentrantLock> locks = new ConcurrentHashMap<String, ReentrantLock>();
+
+    public static void main( String[] args ) throws IOException
+    {
+        final String token = args[0];
+
+        final PrintStream stdout = System.out;
+
+        // output of tasks that write to System.out directly goes to the request that runs them
+        System.setOut( new PrintStream( new RequestOutputStream( stdout, false ), true ) );
+        System.setErr( new PrintStream( new RequestOutputStream( System.err, true ), true ) );
+
+        final ServerSocket serverSocket = new ServerSocket( 0, 50, InetAddress.getByName( null ) );
+
+        stdout.println( PORT + serverSocket.getLocalPort() );
+        stdout.flush();
+
+        // the IDE holds the other end of stdin, stop when it goes away
+        final Thread watchdog = new Thread( "Ant worker watchdog" ) //$NON-NLS-1$
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    while( System.in.read() != -1 )
+                    {
+                    }
+                }
+                catch( IOException e )
+                {
+                }
+
+                System.exit( 0 );
+            }
+        };
+
+        watchdog.setDaemon( true );
+        watchdog.start();
+
+        final ExecutorService executor = Executors.newCachedThreadPool();
+
+        while( true )
+        {
+            final Socket socket = serverSocket.accept();
+
+            executor.execute( new Runnable()
+            {
+                public void run()
+                {
+                    handle( socket, token );
+                }
+            });
+        }
+    }
+
+    private static void handle( Socket socket, String token )
+    {
+        Cancellation cancellation = null;
+
+        try
+        {
+            final Properties properties = readRequest( socket.getInputStream() );
+
+            final Writer writer = new OutputStreamWriter( socket.getOutputStream(), UTF8 );
+
+            int exit = 1;
+
+            if( token.equals( properties.getProperty( PROP_TOKEN ) ) )
+            {
+                final File buildFile = new File( properties.getProperty( PROP_BUILD_FILE ) );
+
+                ReentrantLock lock = locks.get( buildFile.getAbsolutePath() );
+
+                if( lock == null )
+                {
+                    locks.putIfAbsent( buildFile.getAbsolutePath(), new ReentrantLock() );
+                    lock = locks.get( buildFile.getAbsolutePath() );
+                }
+
+                cancellation = new Cancellation( socket.getInputStream(), Thread.currentThread() );
+                cancellation.start();
+
+                try
+                {
+                    // a request that is cancelled while it waits for another build of the same file never runs
+                    lock.lockInterruptibly();
+
+                    try
+                    {
+                        exit = runTarget( buildFile, properties, writer, cancellation );
+                    }
+                    finally
+                    {
+                        lock.unlock();
+                    }
+                }
+                catch( InterruptedException e )
+                {
+                    // cancelled
+                }
+            }
+
+            synchronized( writer )
+            {
+                writer.write( EXIT + exit + "\n" ); //$NON-NLS-1$
+                writer.flush();
+            }
+        }
+        catch( IOException e )
+        {
+            // client went away
+        }
+        finally
+        {
+            if( cancellation != null )
+            {
+                cancellation.finish();
+            }
+
+            try
+            {
+                socket.close();
+            }
+            catch( IOException e )
+            {
+            }
+        }
+    }
+
+    /**
+     * Reads the length line and the properties document that follows it, leaving the rest of the stream open.
+     */
+    private static Properties readRequest( InputStream in ) throws IOException
+    {
+        final DataInputStream data = new DataInputStream( in );
+        final StringBuilder length = new StringBuilder();
+
+        int c = -1;
+
+        while( ( c = data.read() ) != '\n' )
+        {
+            if( c == -1 )
+            {
+                throw new IOException( "Incomplete request" ); //$NON-NLS-1$
+            }
+
+            length.append( (char) c );
+        }
+
+        final byte[] bytes = new byte[Integer.parseInt( length.toString().trim() )];
+
+        data.readFully( bytes );
+
+        final Properties properties = new Properties();
+
+        properties.load( new StringReader( new String( bytes, UTF8 ) ) );
+
+        return properties;
+    }
+
+    private static int runTarget( File buildFile, Properties properties, Writer writer, Cancellation cancellation )
+    {
+        final Project project = new Project();
+
+        final DefaultLogger logger = new DefaultLogger();
+        logger.setMessageOutputLevel( Project.MSG_INFO );
+        logger.setOutputPrintStream( new PrintStream( new LineOutputStream( writer, OUT ), true ) );
+        logger.setErrorPrintStream( new PrintStream( new LineOutputStream( writer, ERR ), true ) );
+
+        project.addBuildListener( logger );
+        project.addBuildListener( cancellation );
+
+        final Request request = new Request( project );
+
+        currentRequest.set( request );
+
+        try
+        {
+            project.fireBuildStarted();
+            project.init();
+
+            for( String key : properties.stringPropertyNames() )
+            {
+                if( ! key.startsWith( PROP_PREFIX ) )
+                {
+                    project.setUserProperty( key, properties.getProperty( key ) );
+                }
+            }
+
+            project.setUserProperty( "ant.file", buildFile.getAbsolutePath() ); //$NON-NLS-1$
+
+            // the worker JVM can't change its directory per request, give the build at least the right ${user.dir}
+            final String workingDir = properties.getProperty( PROP_WORKING_DIR );
+
+            if( workingDir != null )
+            {
+                project.setUserProperty( "user.dir", workingDir ); //$NON-NLS-1$
+            }
+
+            ProjectHelper.configureProject( project, buildFile );
+
+            final Vector<String> targets = new Vector<String>();
+
+            for( String target : properties.getProperty( PROP_TARGETS, "" ).split( "," ) ) //$NON-NLS-1$ //$NON-NLS-2$
+            {
+                if( target.trim().length() > 0 )
+                {
+                    targets.add( target.trim() );
+                }
+            }
+
+            if( targets.isEmpty() )
+            {
+                targets.add( project.getDefaultTarget() );
+            }
+
+            project.executeTargets( targets );
+            project.fireBuildFinished( null );
+
+            return 0;
+        }
+        catch( Throwable t )
+        {
+            project.fireBuildFinished( t );
+
+            return 1;
+        }
+        finally
+        {
+            request.out.flush();
+            request.err.flush();
+
+            currentRequest.remove();
+        }
+    }
+
+    /**
+     * Watches the client side of a request's connection and stops the build when the client closes it. The build
+     * thread is interrupted, which ends waits in tasks like forked java and exec, and the next target or task fails.
+     */
+    private static class Cancellation extends Thread implements BuildListener
+    {
+
+        private final Thread buildThread;
+        private boolean canceled;
+        private boolean finished;
+        private final InputStream in;
+
+        Cancellation( InputStream in, Thread buildThread )
+        {
+            super( "Ant worker cancellation" ); //$NON-NLS-1$
+
+            this.in = in;
+            this.buildThread = buildThread;
+
+            setDaemon( true );
+        }
+
+        public void buildFinished( BuildEvent event )
+        {
+        }
+
+        public void buildStarted( BuildEvent event )
+        {
+        }
+
+        private synchronized void checkCanceled()
+        {
+            if( canceled )
+            {
+                throw new BuildException( "Build cancelled" ); //$NON-NLS-1$
+            }
+        }
+
+        /**
+         * Called by the build thread once the request is done, so that it is no longer interrupted.
+         */
+        synchronized void finish()
+        {
+            finished = true;
+
+            // clear an interrupt that arrived after the build was done, the thread goes back to the pool
+            Thread.interrupted();
+        }
+
+        public void messageLogged( BuildEvent event )
+        {
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                // nothing more is sent, the read only returns when the client closes the connection
+                while( in.read() != -1 )
+                {
+                }
+            }
+            catch( IOException e )
+            {
+            }
+
+            synchronized( this )
+            {
+                if( ! finished )
+                {
+                    canceled = true;
+                    buildThread.interrupt();
+                }
+            }
+        }
+
+        public void targetFinished( BuildEvent event )
+        {
+        }
+
+        public void targetStarted( BuildEvent event )
+        {
+            checkCanceled();
+        }
+
+        public void taskFinished( BuildEvent event )
+        {
+        }
+
+        public void taskStarted( BuildEvent event )
+        {
+            checkCanceled();
+        }
+    }
+
+    /**
+     * Writes every complete line it receives as one prefixed line to the client.
+     */
+    private static class LineOutputStream extends OutputStream
+    {
+
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private final String prefix;
+        private final Writer writer;
+
+        LineOutputStream( Writer writer, String prefix )
+        {
+            this.writer = writer;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public synchronized void flush() throws IOException
+        {
+            if( line.size() > 0 )
+            {
+                writeLine();
+            }
+        }
+
+        @Override
+        public synchronized void write( int b ) throws IOException
+        {
+            if( b == '\n' )
+            {
+                writeLine();
+            }
+            else if( b != '\r' )
+            {
+                line.write( b );
+            }
+        }
+
+        private void writeLine() throws IOException
+        {
+            synchronized( writer )
+            {
+                writer.write( prefix + line.toString( UTF8 ) + "\n" ); //$NON-NLS-1$
+                writer.flush();
+            }
+
+            line.reset();
+        }
+    }
+
+    private static class Request
+    {
+
+        final OutputStream err;
+        final OutputStream out;
+
+        Request( Project project )
+        {
+            this.out = new DemuxOutputStream( project, false );
+            this.err = new DemuxOutputStream( project, true );
+        }
+    }
+
+    /**
+     * Routes System.out and System.err to the build of the request that the writing thread belongs to.
+     */
+    private static class RequestOutputStream extends OutputStream
+    {
+
+        private final boolean error;
+        private final OutputStream fallback;
+
+        RequestOutputStream( OutputStream fallback, boolean error )
+        {
+            this.fallback = fallback;
+            this.error = error;
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            getTarget().flush();
+        }
+
+        private OutputStream getTarget()
+        {
+            final Request request = currentRequest.get();
+
+            if( request == null )
+            {
+                return fallback;
+            }
+
+            return error ? request.err : request.out;
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len ) throws IOException
+        {
+            getTarget().write( b, off, len );
+        }
+
+        @Override
+        public void write( int b ) throws IOException
+        {
+            getTarget().write( b );
+        }
+    }
+
+}
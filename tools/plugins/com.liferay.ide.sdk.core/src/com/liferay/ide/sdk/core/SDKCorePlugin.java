@@ -48,6 +48,7 @@ public class SDKCorePlugin extends Plugin
     // The plugin ID
     public static final String PLUGIN_ID = "com.liferay.ide.sdk.core"; //$NON-NLS-1$
 
+    public static final String PREF_KEY_ANT_DAEMON = "ant.daemon.enabled"; //$NON-NLS-1$
     public static final String PREF_KEY_OVERWRITE_USER_BUILD_FILE = "OVERWRITE_USER_BUILD_FILE"; //$NON-NLS-1$
     public static final String PREF_KEY_SDK_NAME = "sdk-name"; //$NON-NLS-1$
 
@@ -203,16 +204,21 @@ public class SDKCorePlugin extends Plugin
             public void sdksAdded( SDK[] sdks )
             {
                 saveGlobalSDKSettings( sdks );
+                LiferayCore.invalidateProjectCache();
             }
 
             public void sdksChanged( SDK[] sdks )
             {
                 saveGlobalSDKSettings( sdks );
+                SDKPropertiesCache.sdksChanged();
+                LiferayCore.invalidateProjectCache();
             }
 
             public void sdksRemoved( SDK[] sdks )
             {
                 saveGlobalSDKSettings( sdks );
+                SDKPropertiesCache.sdksChanged();
+                LiferayCore.invalidateProjectCache();
             }
         };
 
@@ -225,6 +231,9 @@ public class SDKCorePlugin extends Plugin
      */
     public void stop( BundleContext context ) throws Exception
     {
+        SDKAntDaemon.stopAll();
+        SDKPropertiesCache.close();
+
         // delete tmp folder
         File createDir = getDefault().getStateLocation().append( "create" ).toFile(); //$NON-NLS-1$
 
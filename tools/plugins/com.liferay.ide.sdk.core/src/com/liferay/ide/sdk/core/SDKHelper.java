@@ -185,6 +185,22 @@ public class SDKHelper extends LaunchHelper
     public void runTarget( IPath buildFile, String targets, Map<String, String> properties, boolean separateJRE, String workingDir )
         throws CoreException
     {
+        if( separateJRE && CoreUtil.isNullOrEmpty( additionalVMArgs ) && SDKAntDaemon.isEnabled() )
+        {
+            // the warm worker runs targets of different projects side by side, no need to wait for other launches
+            this.currentBuildFile = buildFile;
+            this.currentTargets = targets;
+
+            final String label = getNewLaunchConfigurationName();
+
+            this.currentBuildFile = null;
+            this.currentTargets = null;
+
+            SDKAntDaemon.get( sdk ).runTarget( buildFile, targets, properties, workingDir, label, monitor );
+
+            return;
+        }
+
         if( isLaunchRunning() )
         {
             throw new IllegalStateException( "Existing launch in progress" ); //$NON-NLS-1$
@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.sdk.core;
+
+import com.liferay.ide.core.LiferayCore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Caches the resolved build properties of each SDK, and the plain contents of the properties files they come from,
+ * against the last modified times of the contributing files. A watch service on the directories of the registered SDKs
+ * drops entries as soon as a build*.properties file changes, which also catches edits that keep the same timestamp.
+ * Other locations, like the ones checked while the user picks an SDK, only rely on the timestamps.
+ *
+ * @author agent
+ */
+class SDKPropertiesCache
+{
+
+    private static final ConcurrentMap<File, FileEntry> files = new ConcurrentHashMap<File, FileEntry>();
+    private static final ConcurrentMap<File, Snapshot> snapshots = new ConcurrentHashMap<File, Snapshot>();
+    private static final ConcurrentMap<Path, WatchKey> watchKeys = new ConcurrentHashMap<Path, WatchKey>();
+
+    private static WatchService watchService;
+
+    static synchronized void close()
+    {
+        if( watchService != null )
+        {
+            try
+            {
+                watchService.close();
+            }
+            catch( IOException e )
+            {
+            }
+
+            watchService = null;
+        }
+
+        watchKeys.clear();
+        files.clear();
+        snapshots.clear();
+    }
+
+    /**
+     * Returns the cached build properties of the SDK in the given directory, or <code>null</code> if they need to be
+     * resolved again.
+     *
+     * @throws CoreException the error resolving them failed with, if that is still current
+     */
+    static Map<String, Object> getBuildProperties( File sdkDir ) throws CoreException
+    {
+        final Snapshot snapshot = snapshots.get( sdkDir );
+
+        if( snapshot == null || ! snapshot.isCurrent() )
+        {
+            return null;
+        }
+
+        if( snapshot.error != null )
+        {
+            throw snapshot.error;
+        }
+
+        return snapshot.properties;
+    }
+
+    /**
+     * Returns a copy of the properties stored in the given file, only reading it again once it changed.
+     */
+    static Properties getFileProperties( File file ) throws IOException
+    {
+        FileEntry entry = files.get( file );
+
+        if( entry == null || entry.lastModified != file.lastModified() )
+        {
+            final Properties properties = new Properties();
+
+            try( InputStream in = new FileInputStream( file ) )
+            {
+                properties.load( in );
+            }
+
+            entry = new FileEntry( file.lastModified(), properties );
+
+            files.put( file, entry );
+        }
+
+        final Properties retval = new Properties();
+        retval.putAll( entry.properties );
+
+        return retval;
+    }
+
+    private static Set<Path> getRegisteredDirs()
+    {
+        final Set<Path> dirs = new HashSet<Path>();
+
+        for( SDK sdk : SDKManager.getInstance().getSDKs() )
+        {
+            dirs.add( sdk.getLocation().toFile().toPath() );
+        }
+
+        return dirs;
+    }
+
+    private static void invalidate( File dir )
+    {
+        snapshots.remove( dir );
+
+        for( File file : files.keySet() )
+        {
+            if( dir.equals( file.getParentFile() ) )
+            {
+                files.remove( file );
+            }
+        }
+    }
+
+    /**
+     * Caches the build properties resolved for the SDK in the given directory, or the error resolving them failed with,
+     * and returns the unmodifiable copy that is handed out from now on.
+     */
+    static Map<String, Object> put(
+        File sdkDir, List<File> contributingFiles, Map<String, Object> properties, CoreException error )
+    {
+        final Snapshot snapshot = new Snapshot( contributingFiles, properties, error );
+
+        snapshots.put( sdkDir, snapshot );
+
+        if( getRegisteredDirs().contains( sdkDir.toPath() ) )
+        {
+            watch( sdkDir );
+        }
+
+        return snapshot.properties;
+    }
+
+    /**
+     * Stops watching the directories of SDKs that are no longer registered.
+     */
+    static synchronized void sdksChanged()
+    {
+        final Set<Path> registered = getRegisteredDirs();
+
+        for( Map.Entry<Path, WatchKey> entry : watchKeys.entrySet() )
+        {
+            if( ! registered.contains( entry.getKey() ) )
+            {
+                entry.getValue().cancel();
+                watchKeys.remove( entry.getKey() );
+                invalidate( entry.getKey().toFile() );
+            }
+        }
+    }
+
+    private static synchronized void watch( File dir )
+    {
+        final Path path = dir.toPath();
+
+        if( watchKeys.containsKey( path ) )
+        {
+            return;
+        }
+
+        try
+        {
+            if( watchService == null )
+            {
+                watchService = FileSystems.getDefault().newWatchService();
+
+                final WatchService service = watchService;
+
+                final Thread thread = new Thread( "SDK properties watcher" ) //$NON-NLS-1$
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            while( true )
+                            {
+                                final WatchKey key = service.take();
+                                final Path watched = (Path) key.watchable();
+
+                                for( WatchEvent<?> event : key.pollEvents() )
+                                {
+                                    final Object context = event.context();
+
+                                    if( event.kind() == StandardWatchEventKinds.OVERFLOW ||
+                                        ( context != null && context.toString().startsWith( "build" ) && //$NON-NLS-1$
+                                            context.toString().endsWith( ".properties" ) ) ) //$NON-NLS-1$
+                                    {
+                                        invalidate( watched.toFile() );
+
+                                        // projects of this sdk may resolve differently now
+                                        LiferayCore.invalidateProjectCache();
+                                    }
+                                }
+
+                                if( ! key.reset() )
+                                {
+                                    watchKeys.remove( watched );
+                                    invalidate( watched.toFile() );
+                                }
+                            }
+                        }
+                        catch( InterruptedException e )
+                        {
+                        }
+                        catch( ClosedWatchServiceException e )
+                        {
+                        }
+                    }
+                };
+
+                thread.setDaemon( true );
+                thread.start();
+            }
+
+            final WatchKey key =
+                path.register(
+                    watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY );
+
+            watchKeys.put( path, key );
+        }
+        catch( IOException e )
+        {
+            // the timestamps are still compared on every lookup
+        }
+    }
+
+    private static class FileEntry
+    {
+
+        final long lastModified;
+        final Properties properties;
+
+        FileEntry( long lastModified, Properties properties )
+        {
+            this.lastModified = lastModified;
+            this.properties = properties;
+        }
+    }
+
+    private static class Snapshot
+    {
+
+        final CoreException error;
+        final Map<File, Long> lastModified = new LinkedHashMap<File, Long>();
+        final Map<String, Object> properties;
+
+        Snapshot( List<File> contributingFiles, Map<String, Object> properties, CoreException error )
+        {
+            for( File file : contributingFiles )
+            {
+                // 0 for files that don't exist, so that creating one is noticed as well
+                lastModified.put( file, file.lastModified() );
+            }
+
+            this.properties =
+                properties == null ? null : Collections.unmodifiableMap( new LinkedHashMap<String, Object>( properties ) );
+            this.error = error;
+        }
+
+        boolean isCurrent()
+        {
+            for( Map.Entry<File, Long> entry : lastModified.entrySet() )
+            {
+                if( entry.getKey().lastModified() != entry.getValue() )
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+}
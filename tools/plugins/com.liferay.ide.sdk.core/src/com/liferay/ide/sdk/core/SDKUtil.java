@@ -18,7 +18,6 @@ package com.liferay.ide.sdk.core;
 import com.liferay.ide.core.util.CoreUtil;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Properties;
@@ -277,8 +276,8 @@ public class SDKUtil
 
     static String readSDKVersion( String path ) throws FileNotFoundException, IOException
     {
-        Properties properties = new Properties();
-        properties.load( new FileInputStream( new Path( path ).append( "build.properties" ).toFile() ) ); //$NON-NLS-1$
+        final Properties properties =
+            SDKPropertiesCache.getFileProperties( new Path( path ).append( "build.properties" ).toFile() ); //$NON-NLS-1$
 
         return properties.getProperty( "lp.version" ); //$NON-NLS-1$
     }
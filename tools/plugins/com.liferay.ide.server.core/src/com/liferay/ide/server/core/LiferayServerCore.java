@@ -26,6 +26,7 @@ import com.liferay.ide.server.core.portal.PortalRuntime;
 import com.liferay.ide.server.remote.IRemoteServer;
 import com.liferay.ide.server.remote.IServerManagerConnection;
 import com.liferay.ide.server.remote.ServerManagerConnection;
+import com.liferay.ide.server.util.LiferayPortalValueLoader;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -845,16 +846,19 @@ public class LiferayServerCore extends Plugin
             public void runtimeAdded( IRuntime runtime )
             {
                 saveGlobalRuntimeSettings( runtime );
+                LiferayCore.invalidateProjectCache();
             }
 
             public void runtimeChanged( IRuntime runtime )
             {
                 saveGlobalRuntimeSettings( runtime );
+                LiferayCore.invalidateProjectCache();
             }
 
             public void runtimeRemoved( IRuntime runtime )
             {
                 saveGlobalRuntimeSettings( runtime );
+                LiferayCore.invalidateProjectCache();
             }
         };
 
@@ -897,6 +901,8 @@ public class LiferayServerCore extends Plugin
         SDKManager.getInstance().removeSDKListener( this.sdkListener );
         ServerCore.removeRuntimeLifecycleListener( runtimeLifecycleListener );
         ServerCore.removeServerLifecycleListener( serverLifecycleListener );
+
+        LiferayPortalValueLoader.closeClassLoaders();
     }
 
 }
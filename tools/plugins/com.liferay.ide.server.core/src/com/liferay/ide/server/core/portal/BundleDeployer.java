@@ -3,7 +3,10 @@ package com.liferay.ide.server.core.portal;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.management.MBeanServerConnection;
@@ -99,6 +102,166 @@ public class BundleDeployer {
         return bundleId;
     }
 
+    /**
+     * Deploys several bundles at once: one bundle listing to resolve ids,
+     * batched stop and update of the bundles already installed, a single
+     * refresh for all of them and a batched start at the end. If a phase
+     * fails, the bundle it failed on is reported as an error and the bundles
+     * it didn't get to are deployed one by one with
+     * {@link #deployBundle(String, File)}, or only started if the start
+     * phase failed.
+     */
+    public DeployResult deployBundles(Map<String, File> bundles) {
+        final DeployResult result = new DeployResult();
+
+        if (bundles.isEmpty()) {
+            return result;
+        }
+
+        long start = System.currentTimeMillis();
+
+        final Map<String, Long> installedIds = new HashMap<String, Long>();
+
+        for (BundleDTO bundleDTO : listBundles()) {
+            installedIds.put(bundleDTO.symbolicName, bundleDTO.id);
+        }
+
+        start = result.phase("list", start);
+
+        final List<String> updateBsns = new ArrayList<String>();
+        final List<String> installBsns = new ArrayList<String>();
+
+        for (String bsn : bundles.keySet()) {
+            if (installedIds.containsKey(bsn)) {
+                updateBsns.add(bsn);
+            }
+            else {
+                installBsns.add(bsn);
+            }
+        }
+
+        String phase = "stop";
+
+        try {
+            final ObjectName framework = getFramework(_mBeanServerConnection);
+
+            final long[] updateIds = new long[updateBsns.size()];
+            final String[] updateUrls = new String[updateBsns.size()];
+
+            for (int i = 0; i < updateIds.length; i++) {
+                final String bsn = updateBsns.get(i);
+
+                updateIds[i] = installedIds.get(bsn);
+                updateUrls[i] =
+                    bundles.get(bsn).toURI().toURL().toExternalForm();
+            }
+
+            if (updateIds.length > 0) {
+                invokeBatch(framework, "stopBundles",
+                    new Object[] { updateIds },
+                    new String[] { long[].class.getName() });
+
+                start = result.phase(phase, start);
+                phase = "update";
+
+                invokeBatch(framework, "updateBundlesFromURL",
+                    new Object[] { updateIds, updateUrls },
+                    new String[] { long[].class.getName(),
+                        String[].class.getName() });
+
+                start = result.phase(phase, start);
+            }
+
+            phase = "install";
+
+            for (String bsn : installBsns) {
+                final File bundle = bundles.get(bsn);
+
+                try {
+                    final Object installed = _mBeanServerConnection.invoke(
+                        framework, "installBundleFromURL",
+                        new Object[] { bundle.getAbsolutePath(),
+                            bundle.toURI().toURL().toExternalForm() },
+                        new String[] { String.class.getName(),
+                            String.class.getName() });
+
+                    installedIds.put(bsn, Long.parseLong(installed.toString()));
+                }
+                catch (Exception e) {
+                    result.errors.put(bsn, e);
+                }
+            }
+
+            start = result.phase(phase, start);
+            phase = "refresh";
+
+            if (updateIds.length > 0) {
+                _mBeanServerConnection.invoke(framework, "refreshBundles",
+                    new Object[] { updateIds },
+                    new String[] { long[].class.getName() });
+
+                start = result.phase(phase, start);
+            }
+
+            phase = "start";
+
+            final List<Long> startIds = new ArrayList<Long>();
+
+            for (String bsn : bundles.keySet()) {
+                if (!result.errors.containsKey(bsn)) {
+                    startIds.add(installedIds.get(bsn));
+                }
+            }
+
+            final long[] ids = new long[startIds.size()];
+
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = startIds.get(i);
+            }
+
+            invokeBatch(framework, "startBundles", new Object[] { ids },
+                new String[] { long[].class.getName() });
+
+            result.phase(phase, start);
+
+            for (String bsn : bundles.keySet()) {
+                if (!result.errors.containsKey(bsn)) {
+                    result.bundleIds.put(bsn, installedIds.get(bsn));
+                }
+            }
+        }
+        catch (Exception e) {
+            result.failedPhase = phase;
+
+            if (e instanceof BatchException) {
+                final BatchException batchException = (BatchException) e;
+
+                for (String bsn : bundles.keySet()) {
+                    final Long id = installedIds.get(bsn);
+
+                    if (id == null) {
+                        continue;
+                    }
+
+                    if (id.longValue() == batchException.bundleInError) {
+                        result.errors.put(bsn, e);
+                    }
+                    else if (phase.equals("start") &&
+                             batchException.isCompleted(id)) {
+
+                        result.bundleIds.put(bsn, id);
+                    }
+                }
+            }
+
+            retryRemaining(bundles, installedIds, result);
+
+            result.phase("fallback", start);
+        }
+
+        return result;
+    }
+
     private ObjectName getBundleState()
         throws MalformedObjectNameException, IOException {
 
@@ -122,6 +285,34 @@ public class BundleDeployer {
         return null;
     }
 
+    /**
+     * Invokes one of the batch operations of the framework MBean, which
+     * report failures in their result instead of throwing.
+     */
+    private void invokeBatch(
+            ObjectName framework, String operation, Object[] params,
+            String[] signature)
+        throws Exception {
+
+        final Object result = _mBeanServerConnection.invoke(
+            framework, operation, params, signature);
+
+        if (result instanceof CompositeData) {
+            final CompositeData cd = (CompositeData) result;
+
+            if (Boolean.FALSE.equals(cd.get("Success"))) {
+                final Object bundleInError = cd.get("BundleInError");
+
+                throw new BatchException(
+                    operation + " failed for bundle " + bundleInError + ": " +
+                        cd.get("Error"),
+                    (Long[]) cd.get("Completed"),
+                    bundleInError instanceof Long ?
+                        ((Long) bundleInError).longValue() : -1);
+            }
+        }
+    }
+
     public BundleDTO[] listBundles() {
         final List<BundleDTO> retval = new ArrayList<BundleDTO>();
 
@@ -196,4 +387,106 @@ public class BundleDeployer {
             return false;
         }
     }
+
+    /**
+     * Deploys the bundles a failed batch didn't get to one at a time, or
+     * only starts them if they were already installed and updated.
+     */
+    private void retryRemaining(
+        Map<String, File> bundles, Map<String, Long> installedIds,
+        DeployResult result) {
+
+        for (String bsn : bundles.keySet()) {
+            if (result.errors.containsKey(bsn) ||
+                result.bundleIds.containsKey(bsn)) {
+
+                continue;
+            }
+
+            try {
+                if ("start".equals(result.failedPhase)) {
+                    final long id = installedIds.get(bsn);
+
+                    _mBeanServerConnection.invoke(
+                        getFramework(_mBeanServerConnection), "startBundle",
+                        new Object[] { id }, new String[] { "long" });
+
+                    result.bundleIds.put(bsn, id);
+                }
+                else {
+                    result.bundleIds.put(
+                        bsn, deployBundle(bsn, bundles.get(bsn)));
+                }
+            }
+            catch (Exception e) {
+                result.errors.put(bsn, e);
+            }
+        }
+    }
+
+    /**
+     * A failed batch operation, with the ids it completed before the bundle
+     * it failed on.
+     */
+    @SuppressWarnings("serial")
+    private static class BatchException extends Exception {
+
+        final long bundleInError;
+        final long[] completed;
+
+        BatchException(String message, Long[] completed, long bundleInError) {
+            super(message);
+
+            this.bundleInError = bundleInError;
+            this.completed = new long[completed == null ? 0 : completed.length];
+
+            for (int i = 0; i < this.completed.length; i++) {
+                this.completed[i] = completed[i];
+            }
+        }
+
+        boolean isCompleted(long id) {
+            for (long completedId : completed) {
+                if (completedId == id) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+    }
+
+    public static class DeployResult {
+
+        public final Map<String, Long> bundleIds =
+            new LinkedHashMap<String, Long>();
+        public final Map<String, Exception> errors =
+            new LinkedHashMap<String, Exception>();
+
+        /**
+         * The phase the batch failed in, or <code>null</code> if it didn't.
+         */
+        public String failedPhase;
+
+        public final Map<String, Long> phaseTimings =
+            new LinkedHashMap<String, Long>();
+
+        long phase(String name, long start) {
+            final long now = System.currentTimeMillis();
+
+            phaseTimings.put(name, now - start);
+
+            return now;
+        }
+
+        @Override
+        public String toString() {
+            return "deployed=" + bundleIds.keySet() + ", errors=" +
+                errors.keySet() + ", failedPhase=" + failedPhase +
+                    ", timings(ms)=" + phaseTimings;
+        }
+
+    }
+
 }
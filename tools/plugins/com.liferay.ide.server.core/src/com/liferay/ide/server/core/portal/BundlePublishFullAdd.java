@@ -20,14 +20,19 @@ import com.liferay.ide.core.LiferayCore;
 import com.liferay.ide.core.util.FileUtil;
 import com.liferay.ide.server.core.LiferayServerCore;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
@@ -38,6 +43,9 @@ import org.eclipse.wst.server.core.IServer;
 public class BundlePublishFullAdd extends BundlePublishOperation
 {
 
+    private static final boolean DEBUG_PUBLISH =
+        "true".equalsIgnoreCase( Platform.getDebugOption( LiferayServerCore.PLUGIN_ID + "/debug/publish" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+
     public BundlePublishFullAdd( IServer s, IModule[] modules )
     {
         super( s, modules );
@@ -76,6 +84,10 @@ public class BundlePublishFullAdd extends BundlePublishOperation
     @Override
     public void execute( IProgressMonitor monitor, IAdaptable info ) throws CoreException
     {
+        // bundles for a started server are deployed together once all of them are built
+        final Map<String, File> remoteBundles = new LinkedHashMap<String, File>();
+        final Map<String, IModule> remoteModules = new HashMap<String, IModule>();
+
         for( IModule module : modules )
         {
             IStatus retval = Status.OK_STATUS;
@@ -96,7 +108,12 @@ public class BundlePublishFullAdd extends BundlePublishOperation
                 {
                     if( this.server.getServerState() == IServer.STATE_STARTED )
                     {
-                        retval = remoteDeploy( bundleProject.getSymbolicName(), outputJar );
+                        final String bsn = bundleProject.getSymbolicName();
+
+                        remoteBundles.put( bsn, outputJar.toFile() );
+                        remoteModules.put( bsn, module );
+
+                        continue;
                     }
                     else
                     {
@@ -114,46 +131,58 @@ public class BundlePublishFullAdd extends BundlePublishOperation
                     LiferayServerCore.error( "Unable to get bundle project for " + module.getProject().getName() );
             }
 
-            if( retval.isOK() )
-            {
-                this.portalServerBehavior.setModulePublishState2(
-                    new IModule[] { module }, IServer.PUBLISH_STATE_NONE );
-            }
-            else
-            {
-                this.portalServerBehavior.setModulePublishState2(
-                    new IModule[] { module }, IServer.PUBLISH_STATE_FULL );
-            }
+            setModulePublishState( module, retval );
+        }
+
+        if( !remoteBundles.isEmpty() )
+        {
+            remoteDeploy( remoteBundles, remoteModules );
         }
     }
 
-    private IStatus remoteDeploy( String bsn , IPath output )
+    private void remoteDeploy( Map<String, File> bundles, Map<String, IModule> bundleModules )
     {
-        IStatus retval = null;
+        final BundleDeployer.DeployResult result = getBundleDeployer().deployBundles( bundles );
 
-        final BundleDeployer deployer = getBundleDeployer();
+        if( DEBUG_PUBLISH )
+        {
+            LiferayServerCore.logInfo( "Deployed bundles to " + this.server.getName() + ": " + result );
+        }
 
-        if( output != null && output.toFile().exists() )
+        for( Map.Entry<String, IModule> entry : bundleModules.entrySet() )
         {
-            try
-            {
-                long bundleId = deployer.deployBundle( bsn, output.toFile() );
+            final String bsn = entry.getKey();
 
-                retval = new Status( IStatus.OK, LiferayServerCore.PLUGIN_ID, (int) bundleId, null, null );
+            IStatus retval = null;
+
+            if( result.bundleIds.containsKey( bsn ) )
+            {
+                retval =
+                    new Status( IStatus.OK, LiferayServerCore.PLUGIN_ID, result.bundleIds.get( bsn ).intValue(), null, null );
             }
-            catch( Exception e )
+            else
             {
                 retval = LiferayServerCore.error( "Unable to deploy bundle remotely " +
-                    output.toPortableString(), e );
+                    bundles.get( bsn ).getAbsolutePath(), result.errors.get( bsn ) );
+
+                LiferayServerCore.logError( retval );
             }
+
+            setModulePublishState( entry.getValue(), retval );
+        }
+    }
+
+    private void setModulePublishState( IModule module, IStatus retval )
+    {
+        if( retval.isOK() )
+        {
+            this.portalServerBehavior.setModulePublishState2(
+                new IModule[] { module }, IServer.PUBLISH_STATE_NONE );
         }
         else
         {
-            retval =
-                LiferayServerCore.error( "Unable to deploy bundle remotely " +
-                    output.toPortableString() );
+            this.portalServerBehavior.setModulePublishState2(
+                new IModule[] { module }, IServer.PUBLISH_STATE_FULL );
         }
-
-        return retval;
     }
 }
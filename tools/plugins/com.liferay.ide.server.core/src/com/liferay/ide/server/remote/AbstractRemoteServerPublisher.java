@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
@@ -214,15 +215,7 @@ public abstract class AbstractRemoteServerPublisher implements IRemoteServerPubl
             outputStream = new FileOutputStream( warfile );
             zip = new ZipOutputStream( outputStream );
 
-            Map<ZipEntry, String> deleteEntries = new HashMap<ZipEntry, String>();
-
-            processResourceDeltas( deltas, zip, deleteEntries, deletePrefix, StringPool.EMPTY, adjustGMTOffset );
-
-            for( ZipEntry entry : deleteEntries.keySet() )
-            {
-                zip.putNextEntry( entry );
-                zip.write( deleteEntries.get( entry ).getBytes() );
-            }
+            writeModuleDelta( zip, deltas, deletePrefix, adjustGMTOffset );
 
             // if ((removedResources != null) && (removedResources.size() > 0)) {
             // writeRemovedResources(removedResources, zip);
@@ -250,6 +243,20 @@ public abstract class AbstractRemoteServerPublisher implements IRemoteServerPubl
         return new Path( warfile.getAbsolutePath() );
     }
 
+    public void publishModuleDelta(
+        OutputStream out, IModuleResourceDelta[] deltas, String deletePrefix, boolean adjustGMTOffset,
+        int compressionLevel ) throws IOException, CoreException
+    {
+        final ZipOutputStream zip = new ZipOutputStream( out );
+
+        zip.setLevel( compressionLevel );
+
+        writeModuleDelta( zip, deltas, deletePrefix, adjustGMTOffset );
+
+        // the caller owns the underlying stream, only complete the archive
+        zip.finish();
+    }
+
     private String removeArchive( String archive )
     {
         int index = Math.max( archive.lastIndexOf( ".war" ), archive.lastIndexOf( ".jar" ) ); //$NON-NLS-1$ //$NON-NLS-2$
@@ -261,4 +268,19 @@ public abstract class AbstractRemoteServerPublisher implements IRemoteServerPubl
 
         return StringPool.EMPTY;
     }
+
+    protected void writeModuleDelta(
+        ZipOutputStream zip, IModuleResourceDelta[] deltas, String deletePrefix, boolean adjustGMTOffset )
+        throws IOException, CoreException
+    {
+        final Map<ZipEntry, String> deleteEntries = new HashMap<ZipEntry, String>();
+
+        processResourceDeltas( deltas, zip, deleteEntries, deletePrefix, StringPool.EMPTY, adjustGMTOffset );
+
+        for( ZipEntry entry : deleteEntries.keySet() )
+        {
+            zip.putNextEntry( entry );
+            zip.write( deleteEntries.get( entry ).getBytes() );
+        }
+    }
 }
@@ -28,6 +28,8 @@ public interface IRemoteServer extends ILiferayServer, IURLProvider
 
     String ATTR_ADJUST_DEPLOYMENT_TIMESTAMP = "adjust-deployment-timestamp"; //$NON-NLS-1$
 
+    String ATTR_DEPLOYMENT_COMPRESSION_LEVEL = "deployment-compression-level"; //$NON-NLS-1$
+
     String ATTR_HOSTNAME = "hostname"; //$NON-NLS-1$
 
     String ATTR_HTTP_PORT = "http-port"; //$NON-NLS-1$
@@ -38,6 +40,8 @@ public interface IRemoteServer extends ILiferayServer, IURLProvider
 
     boolean DEFAULT_ADJUST_DEPLOYMENT_TIMESTAMP = defaultPrefs.getBoolean( "adjust.deployment.timestamp", true ); //$NON-NLS-1$
 
+    int DEFAULT_DEPLOYMENT_COMPRESSION_LEVEL = defaultPrefs.getInt( "deployment.compression.level", -1 ); //$NON-NLS-1$
+
     String DEFAULT_HTTP_PORT = defaultPrefs.get( "default.http.port", StringPool.EMPTY ); //$NON-NLS-1$
 
     String DEFAULT_LIFERAY_PORTAL_CONTEXT_PATH = defaultPrefs.get( "default.liferay.portal.context.path", StringPool.EMPTY ); //$NON-NLS-1$
@@ -46,6 +50,8 @@ public interface IRemoteServer extends ILiferayServer, IURLProvider
 
     boolean getAdjustDeploymentTimestamp();
 
+    int getDeploymentCompressionLevel();
+
     String getHost();
 
     String getHTTPPort();
@@ -15,6 +15,9 @@
 
 package com.liferay.ide.server.remote;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -31,6 +34,12 @@ public interface IRemoteServerPublisher
                                      String deletePrefix,
                                      boolean adjustGMTOffset ) throws CoreException;
 
+    public void publishModuleDelta( OutputStream out,
+                                    IModuleResourceDelta[] deltas,
+                                    String deletePrefix,
+                                    boolean adjustGMTOffset,
+                                    int compressionLevel ) throws IOException, CoreException;
+
     public IPath publishModuleFull( IProgressMonitor monitor ) throws CoreException;
 
 }
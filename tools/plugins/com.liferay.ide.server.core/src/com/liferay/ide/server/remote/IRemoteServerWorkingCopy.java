@@ -26,6 +26,8 @@ import org.eclipse.core.runtime.IStatus;
 public interface IRemoteServerWorkingCopy extends ILiferayServerWorkingCopy, IRemoteServer
 {
 
+    void setDeploymentCompressionLevel( int level );
+
     void setHTTPPort( String httpPort );
 
     void setLiferayPortalContextPath( String path );
@@ -21,8 +21,11 @@ package com.liferay.ide.server.remote;
 import com.liferay.ide.core.remote.APIException;
 import com.liferay.ide.core.remote.IRemoteConnection;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.http.entity.ContentProducer;
 import org.eclipse.core.runtime.IProgressMonitor;
 
 /**
@@ -32,16 +35,46 @@ import org.eclipse.core.runtime.IProgressMonitor;
 public interface IServerManagerConnection extends IRemoteConnection
 {
 
+    /**
+     * Returns the content manifest of a deployed plugin, mapping each file of the war to the hex crc and size of its
+     * zip entry as <code>crc:size</code>, or <code>null</code> if the server manager does not provide manifests.
+     */
+    Map<String, String> getApplicationManifest( String appName ) throws APIException;
+
     int getDebugPort() throws APIException;
 
+    /**
+     * Waits up to <code>timeout</code> seconds for server and plugin state changes newer than <code>since</code>, a
+     * negative <code>since</code> returns the current state of the server and all its plugins. Returns
+     * <code>null</code> if the server manager can't push events.
+     */
+    List<RemoteServerEvent> getEvents( long since, int timeout ) throws APIException;
+
+    /**
+     * Aborts a {@link #getEvents(long, int)} call waiting in another thread, which then throws an APIException.
+     */
+    void abortEvents();
+
     String getFMDebugPassword() throws APIException;
 
     int getFMDebugPort() throws APIException;
 
     List<String> getLiferayPlugins();
 
+    /**
+     * Reads at most <code>maxLength</code> bytes of a server log starting at <code>offset</code>, returning
+     * <code>null</code> when nothing was written past that offset yet.
+     */
+    byte[] getLog( String log, long offset, int maxLength ) throws APIException;
+
     String getManagerURI();
 
+    /**
+     * Returns whether each of the given plugins is started, keyed by plugin name. Plugins that are not installed are
+     * left out of the map.
+     */
+    Map<String, Boolean> getPluginStates( Collection<String> appNames ) throws APIException;
+
     String getRemoteServerConfig( String configAPI ) throws APIException;
 
     String getServerState() throws APIException;
@@ -58,6 +91,13 @@ public interface IServerManagerConnection extends IRemoteConnection
 
     Object uninstallApplication( String appName, IProgressMonitor monitor ) throws APIException;
 
+    /**
+     * Streams a partial war produced on the fly to the server, throwing an {@link APIException} if it could not be
+     * transferred so that callers can retry with an archive on disk.
+     */
+    Object updateApplication( String appName, String archiveName, ContentProducer archive, IProgressMonitor monitor )
+        throws APIException;
+
     Object updateApplication( String appName, String absolutePath, IProgressMonitor monitor ) throws APIException;
 
 }
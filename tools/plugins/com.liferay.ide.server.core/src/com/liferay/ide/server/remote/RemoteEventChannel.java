@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.server.remote;
+
+import com.liferay.ide.core.remote.APIException;
+import com.liferay.ide.core.remote.APITransportException;
+
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Long polls the server manager for server and plugin state changes. While the channel is connected, i.e. after the
+ * first poll was answered, the regular state polling of {@link RemoteServerBehavior} is suspended; once the channel
+ * drops, times out or if the server manager has no event api, polling takes over again. A dropped connection is
+ * retried with a growing delay a few times before the channel gives up until polling starts it again. Cancelling the
+ * job aborts the poll in progress.
+ *
+ * @author agent
+ */
+class RemoteEventChannel extends Job
+{
+
+    static final int LONG_POLL_TIMEOUT = 60;
+
+    private static final int MAX_RETRIES = 5;
+    private static final long MAX_RETRY_DELAY = 30000;
+
+    private final RemoteServerBehavior behavior;
+    private volatile boolean connected;
+    private volatile IServerManagerConnection connection;
+    private int failures;
+    private long sequence = -1;
+    private volatile boolean supported = true;
+
+    RemoteEventChannel( RemoteServerBehavior behavior )
+    {
+        super( "Listening to " + behavior.getServer().getName() ); //$NON-NLS-1$
+
+        this.behavior = behavior;
+
+        setSystem( true );
+    }
+
+    boolean isConnected()
+    {
+        return connected;
+    }
+
+    boolean isSupported()
+    {
+        return supported;
+    }
+
+    @Override
+    protected IStatus run( IProgressMonitor monitor )
+    {
+        connection = behavior.getServerManagerConnection();
+
+        try
+        {
+            while( ! monitor.isCanceled() )
+            {
+                final List<RemoteServerEvent> events = connection.getEvents( sequence, LONG_POLL_TIMEOUT );
+
+                if( events == null )
+                {
+                    // this server manager can't push events, stay with polling
+                    supported = false;
+
+                    break;
+                }
+
+                // polling is only suspended once the server has actually answered
+                connected = true;
+                failures = 0;
+
+                for( RemoteServerEvent event : events )
+                {
+                    sequence = Math.max( sequence, event.getSequence() );
+
+                    behavior.handleEvent( event );
+                }
+            }
+        }
+        catch( APITransportException e )
+        {
+            // the connection dropped or timed out, the server may well still be there
+            if( ! monitor.isCanceled() && failures < MAX_RETRIES )
+            {
+                schedule( Math.min( 1000L << failures, MAX_RETRY_DELAY ) );
+
+                failures++;
+            }
+        }
+        catch( APIException e )
+        {
+            // server went away, polling will reconnect the channel once it is back
+        }
+        finally
+        {
+            connected = false;
+            connection = null;
+        }
+
+        return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+    }
+
+    @Override
+    protected void canceling()
+    {
+        final IServerManagerConnection current = connection;
+
+        if( current != null )
+        {
+            // don't wait for the long poll to time out
+            current.abortEvents();
+        }
+    }
+
+}
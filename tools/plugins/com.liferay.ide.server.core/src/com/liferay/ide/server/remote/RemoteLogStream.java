@@ -15,234 +15,129 @@
 
 package com.liferay.ide.server.remote;
 
-import com.liferay.ide.core.LiferayCore;
 import com.liferay.ide.server.core.LiferayServerCore;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.Authenticator;
-import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.URL;
-import java.net.URLConnection;
-
-import org.apache.commons.codec.binary.Base64;
-import org.eclipse.core.net.proxy.IProxyData;
-import org.eclipse.core.net.proxy.IProxyService;
+
 import org.eclipse.core.runtime.preferences.DefaultScope;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.wst.server.core.IServer;
 
 /**
+ * Console stream of a remote server log. Lines come from a {@link RemoteLogTail} which is only asked for more once
+ * the console has read everything handed out so far.
+ *
  * @author Greg Amerson
  * @author Tao Tao
  * @author Simon Jiang
  */
-public class RemoteLogStream extends BufferedInputStream
+public class RemoteLogStream extends InputStream
 {
 
     @SuppressWarnings( "deprecation" )
     public static final IEclipsePreferences _defaultPrefs = new DefaultScope().getNode( LiferayServerCore.PLUGIN_ID );
 
+    public static final int LOG_BUFFER_LINES = _defaultPrefs.getInt( "log.buffer.lines", 1000 ); //$NON-NLS-1$
+
     public static final long LOG_QUERY_RANGE = _defaultPrefs.getLong( "log.query.range", 51200 ); //$NON-NLS-1$
 
     public final static long OUTPUT_MONITOR_DELAY = _defaultPrefs.getLong( "output.monitor.delay", 1000 ); //$NON-NLS-1$
 
-    protected static URL createBaseUrl(
-        IServer server, IRemoteServer remoteServer, IServerManagerConnection connection, String log )
-    {
-        try
-        {
-            return new URL( getLogURI( connection, log ) + getFormatQuery() );
-        }
-        catch( MalformedURLException e )
-        {
-        }
+    private byte[] current;
+    private int position;
+    private final RemoteLogTail tail;
 
-        return null;
+    public RemoteLogStream( IServer server, IRemoteServer remoteServer, IServerManagerConnection connection, String log )
+    {
+        this( new RemoteLogTail( connection, log, (int) LOG_QUERY_RANGE, LOG_BUFFER_LINES ) );
     }
 
-    protected static InputStream createInputStream(
-        IServer server, IRemoteServer remoteServer, IServerManagerConnection connection, String log )
+    RemoteLogStream( RemoteLogTail tail )
     {
-        try
-        {
-            URL url = createBaseUrl( server, remoteServer, connection, log );
-
-            return openInputStream( connection, url );
-        }
-        catch( Exception e )
-        {
-            e.printStackTrace();
-        }
-
-        return null;
+        this.tail = tail;
     }
 
-    protected static String getFormatQuery()
+    @Override
+    public int available() throws IOException
     {
-        return "?format=raw"; //$NON-NLS-1$
+        return current != null ? current.length - position : 0;
     }
 
-    protected static String getLogURI( IServerManagerConnection connection, String log )
+    @Override
+    public void close() throws IOException
     {
-        return connection.getManagerURI() + "/server/log/" + log; //$NON-NLS-1$
+        tail.close();
     }
 
-    protected static InputStream openInputStream( IServerManagerConnection remote, URL url ) throws IOException
+    /**
+     * Makes sure there are unread bytes in the current line, waiting for the log to grow if needed.
+     *
+     * @return <code>false</code> once the tail has been closed
+     */
+    private boolean fill() throws IOException
     {
-        String username = remote.getUsername();
-        String password = remote.getPassword();
-
-        String authString = username + ":" + password; //$NON-NLS-1$
-        byte[] authEncBytes = Base64.encodeBase64( authString.getBytes() );
-        String authStringEnc = new String( authEncBytes );
-        final IProxyService proxyService = LiferayCore.getProxyService();
-        URLConnection conn = null;
-
-        try
+        while( current == null || position >= current.length )
         {
-            URI uri = new URI( "HTTP://" + url.getHost() + ":" + url.getPort() ); //$NON-NLS-1$ //$NON-NLS-2$
-            IProxyData[] proxyDataForHost = proxyService.select( uri );
-
-            for( IProxyData data : proxyDataForHost )
+            if( tail.isClosed() )
             {
-                if( data.getHost() != null )
-                {
-                    System.setProperty( "http.proxyHost", data.getHost() ); //$NON-NLS-1$
-                    System.setProperty( "http.proxyPort", String.valueOf( data.getPort() ) ); //$NON-NLS-1$
-
-                    break;
-                }
+                return false;
             }
 
-            uri = new URI( "SOCKS://" + url.getHost() + ":" + url.getPort() ); //$NON-NLS-1$ //$NON-NLS-2$
-            proxyDataForHost = proxyService.select( uri );
+            final String line = tail.poll();
 
-            for( IProxyData data : proxyDataForHost )
+            if( line != null )
+            {
+                current = line.getBytes( "UTF-8" ); //$NON-NLS-1$
+                position = 0;
+            }
+            else if( ! tail.fetch() )
             {
-                if( data.getHost() != null )
+                try
                 {
-                    System.setProperty( "socksProxyHost", data.getHost() ); //$NON-NLS-1$
-                    System.setProperty( "socksProxyPort", String.valueOf( data.getPort() ) ); //$NON-NLS-1$
-
-                    break;
+                    Thread.sleep( OUTPUT_MONITOR_DELAY );
+                }
+                catch( InterruptedException e )
+                {
+                    return false;
                 }
             }
         }
-        catch( URISyntaxException e )
-        {
-            LiferayServerCore.logError( "Could not read proxy data", e ); //$NON-NLS-1$
-        }
-
-        conn = url.openConnection();
-        conn.setRequestProperty( "Authorization", "Basic " + authStringEnc ); //$NON-NLS-1$ //$NON-NLS-2$
-        Authenticator.setDefault( null );
-        conn.setAllowUserInteraction( false );
-
-        return conn.getInputStream();
-    }
-
-    protected URL baseUrl = null;
-
-    protected IServerManagerConnection connection;
 
-    protected String log;
-
-    protected long range = 0;
-
-    public RemoteLogStream( IServer server, IRemoteServer remoteServer, IServerManagerConnection connection, String log )
-    {
-        super( createInputStream( server, remoteServer, connection, log ), 8192 );
-        this.baseUrl = createBaseUrl( server, remoteServer, connection, log );
-        this.log = log;
-        this.connection = connection;
+        return true;
     }
 
     @Override
-    public int read( byte[] b ) throws IOException
+    public synchronized int read() throws IOException
     {
-        int read = super.read( b );
-
-        if( read < 1 )
+        if( ! fill() )
         {
-            waitOnNewInput();
-
-            read = super.read( b );
+            return -1;
         }
-        range += read;
-        return read;
+
+        return current[position++] & 0xff;
     }
 
     @Override
     public synchronized int read( byte[] b, int off, int len ) throws IOException
     {
-        int read = super.read( b, off, len );
-
-        if( read < 1 )
+        if( len == 0 )
         {
-            waitOnNewInput();
-            read = super.read( b, off, len );
+            return 0;
         }
-        range += read;
-        return read;
-    }
-
-    protected void waitOnNewInput() throws IOException
-    {
-        // previous input stream was empty, so we need to move the range
-        this.in.close();
-
-        // peek at the new stream
-        boolean goodUrl = false;
 
-        while( !goodUrl )
+        if( ! fill() )
         {
-            URL newUrl = new URL( getLogURI( connection, log ) + "/" + range + getFormatQuery() ); //$NON-NLS-1$
-
-            try
-            {
-                goodUrl = urlPeek( newUrl );
-            }
-            catch( Exception e )
-            {
-                // failed to get a new good url, try again next time
-            }
-
-            if( goodUrl )
-            {
-                this.in = openInputStream( connection, newUrl );
-                return;
-            }
-
-            try
-            {
-                Thread.sleep( OUTPUT_MONITOR_DELAY );
-            }
-            catch( InterruptedException e )
-            {
-            }
+            return -1;
         }
-    }
 
-    boolean urlPeek( URL url ) throws IOException
-    {
-        byte[] buf = new byte[256];
+        final int read = Math.min( len, current.length - position );
 
-        int bufRead = new BufferedInputStream( openInputStream( connection, url ), 256 ).read( buf );
+        System.arraycopy( current, position, b, off, read );
 
-        if( bufRead != -1 )
-        {
-            String peek = new String( buf );
+        position += read;
 
-            if( peek != null && ( !peek.contains( "Error 416: Invalid Range values." ) ) ) //$NON-NLS-1$
-            {
-                return true;
-            }
-        }
-
-        return false;
+        return read;
     }
+
 }
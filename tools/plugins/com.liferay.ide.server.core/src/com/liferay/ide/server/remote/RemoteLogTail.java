@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.server.remote;
+
+import com.liferay.ide.core.remote.APIException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
+
+/**
+ * Follows one remote server log by byte offset. Chunks are only fetched once the lines of the previous chunk have been
+ * consumed, so a slow console throttles the polling instead of piling up content, and at most <code>capacity</code>
+ * lines are kept; when a single chunk holds more than that, the oldest lines are dropped and reported as skipped.
+ *
+ * @author agent
+ */
+class RemoteLogTail
+{
+
+    private static final String UTF8 = "UTF-8"; //$NON-NLS-1$
+
+    private final int capacity;
+    private final int chunkSize;
+    private volatile boolean closed;
+    private final IServerManagerConnection connection;
+    private final ArrayDeque<String> lines = new ArrayDeque<String>();
+    private final String log;
+    private long offset;
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private long skipped;
+
+    RemoteLogTail( IServerManagerConnection connection, String log, int chunkSize, int capacity )
+    {
+        this.connection = connection;
+        this.log = log;
+        this.chunkSize = chunkSize;
+        this.capacity = Math.max( capacity, 1 );
+    }
+
+    private void addLine( byte[] bytes, int start, int length )
+    {
+        partialLine.write( bytes, start, length );
+
+        try
+        {
+            addLine( partialLine.toString( UTF8 ) );
+        }
+        catch( UnsupportedEncodingException e )
+        {
+            addLine( partialLine.toString() );
+        }
+
+        partialLine.reset();
+    }
+
+    private void addLine( String line )
+    {
+        lines.add( line );
+
+        if( lines.size() > capacity )
+        {
+            lines.poll();
+            skipped++;
+        }
+    }
+
+    synchronized void append( byte[] chunk )
+    {
+        int start = 0;
+
+        for( int i = 0; i < chunk.length; i++ )
+        {
+            if( chunk[i] == '\n' )
+            {
+                addLine( chunk, start, i - start + 1 );
+                start = i + 1;
+            }
+        }
+
+        partialLine.write( chunk, start, chunk.length - start );
+    }
+
+    void close()
+    {
+        closed = true;
+    }
+
+    /**
+     * Fetches the next chunk of the log.
+     *
+     * @return <code>false</code> if there was nothing new to read
+     */
+    boolean fetch()
+    {
+        byte[] chunk = null;
+
+        try
+        {
+            chunk = connection.getLog( log, offset, chunkSize );
+        }
+        catch( APIException e )
+        {
+            // server unreachable, try again next time
+        }
+
+        if( chunk == null || chunk.length == 0 )
+        {
+            flushPartialLine();
+
+            return false;
+        }
+
+        offset += chunk.length;
+
+        append( chunk );
+
+        return true;
+    }
+
+    /**
+     * Hands out the partial line read so far, up to its last complete character; the bytes of a character that is cut
+     * off are kept for the next chunk.
+     */
+    private synchronized void flushPartialLine()
+    {
+        if( partialLine.size() == 0 )
+        {
+            return;
+        }
+
+        final ByteBuffer in = ByteBuffer.wrap( partialLine.toByteArray() );
+        final CharBuffer out = CharBuffer.allocate( in.remaining() );
+
+        final CharsetDecoder decoder =
+            Charset.forName( UTF8 ).newDecoder().onMalformedInput( CodingErrorAction.REPLACE ).onUnmappableCharacter(
+                CodingErrorAction.REPLACE );
+
+        // not at the end of input, so an incomplete character is left in the buffer instead of being replaced
+        decoder.decode( in, out, false );
+
+        partialLine.reset();
+        partialLine.write( in.array(), in.position(), in.remaining() );
+
+        if( out.position() > 0 )
+        {
+            out.flip();
+
+            addLine( out.toString() );
+        }
+    }
+
+    long getOffset()
+    {
+        return offset;
+    }
+
+    boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * Returns the next buffered line, or <code>null</code> if none is buffered.
+     */
+    synchronized String poll()
+    {
+        if( skipped > 0 )
+        {
+            final String retval = "... " + skipped + " lines skipped ...\n"; //$NON-NLS-1$ //$NON-NLS-2$
+
+            skipped = 0;
+
+            return retval;
+        }
+
+        return lines.poll();
+    }
+
+}
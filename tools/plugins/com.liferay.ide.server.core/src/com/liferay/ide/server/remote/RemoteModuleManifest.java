@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.server.remote;
+
+import com.liferay.ide.server.core.LiferayServerCore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.wst.server.core.IServer;
+
+/**
+ * Content manifest of a module archive as it was last deployed to a remote server. Every file entry of the war is
+ * recorded with the crc and size found in the zip central directory, so computing a manifest never has to inflate the
+ * archive. Two manifests are compared to build a partial war holding only the entries that changed, plus the delete
+ * props the server manager already understands for removed entries.
+ *
+ * @author agent
+ */
+class RemoteModuleManifest
+{
+
+    private static final String DELETE_PROPS_SUFFIX = "-partialapp-delete.props"; //$NON-NLS-1$
+
+    private final Map<String, String> entries;
+
+    RemoteModuleManifest( Map<String, String> entries )
+    {
+        this.entries = new TreeMap<String, String>( entries );
+    }
+
+    static RemoteModuleManifest create( File war ) throws IOException
+    {
+        final Map<String, String> entries = new TreeMap<String, String>();
+
+        ZipFile zipFile = null;
+
+        try
+        {
+            zipFile = new ZipFile( war );
+
+            final Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+
+            while( zipEntries.hasMoreElements() )
+            {
+                final ZipEntry zipEntry = zipEntries.nextElement();
+
+                if( ! zipEntry.isDirectory() )
+                {
+                    entries.put( zipEntry.getName(), createEntryHash( zipEntry ) );
+                }
+            }
+        }
+        finally
+        {
+            if( zipFile != null )
+            {
+                zipFile.close();
+            }
+        }
+
+        return new RemoteModuleManifest( entries );
+    }
+
+    static String createEntryHash( ZipEntry zipEntry )
+    {
+        return Long.toHexString( zipEntry.getCrc() ) + ":" + Long.toHexString( zipEntry.getSize() ); //$NON-NLS-1$
+    }
+
+    static void delete( IServer server, String appName )
+    {
+        final File file = getLocation( server, appName ).toFile();
+
+        if( file.exists() )
+        {
+            file.delete();
+        }
+    }
+
+    static IPath getLocation( IServer server, String appName )
+    {
+        return LiferayServerCore.getDefault().getStateLocation().append( "remote-manifests" ).append( //$NON-NLS-1$
+            server.getId() ).append( appName + ".properties" ); //$NON-NLS-1$
+    }
+
+    static RemoteModuleManifest load( IServer server, String appName )
+    {
+        final File file = getLocation( server, appName ).toFile();
+
+        if( ! file.exists() )
+        {
+            return null;
+        }
+
+        final Properties properties = new Properties();
+
+        InputStream in = null;
+
+        try
+        {
+            in = new FileInputStream( file );
+
+            properties.load( in );
+        }
+        catch( IOException e )
+        {
+            LiferayServerCore.logError( "Unable to read module manifest " + file, e ); //$NON-NLS-1$
+
+            return null;
+        }
+        finally
+        {
+            IOUtils.closeQuietly( in );
+        }
+
+        final Map<String, String> entries = new TreeMap<String, String>();
+
+        for( String name : properties.stringPropertyNames() )
+        {
+            entries.put( name, properties.getProperty( name ) );
+        }
+
+        return new RemoteModuleManifest( entries );
+    }
+
+    /**
+     * Writes a partial war with the entries of <code>war</code> that differ from <code>deployed</code> and a delete
+     * props entry for the ones that no longer exist.
+     *
+     * @return the partial war, or <code>null</code> if nothing changed since the deployed manifest
+     */
+    IPath createPartialWar( File war, RemoteModuleManifest deployed, String deletePrefix ) throws IOException
+    {
+        final List<String> changed = getChangedEntries( deployed );
+        final List<String> removed = getRemovedEntries( deployed );
+
+        if( changed.isEmpty() && removed.isEmpty() )
+        {
+            return null;
+        }
+
+        final IPath path = LiferayServerCore.getTempLocation( "partial-war", war.getName() ); //$NON-NLS-1$
+        final File partialWar = path.toFile();
+
+        partialWar.getParentFile().mkdirs();
+
+        ZipFile zipFile = null;
+        ZipOutputStream zip = null;
+
+        try
+        {
+            zipFile = new ZipFile( war );
+            zip = new ZipOutputStream( new FileOutputStream( partialWar ) );
+
+            for( String name : changed )
+            {
+                final ZipEntry zipEntry = zipFile.getEntry( name );
+
+                zip.putNextEntry( new ZipEntry( name ) );
+
+                final InputStream contents = zipFile.getInputStream( zipEntry );
+
+                try
+                {
+                    IOUtils.copy( contents, zip );
+                }
+                finally
+                {
+                    contents.close();
+                }
+            }
+
+            if( ! removed.isEmpty() )
+            {
+                final StringBuilder sb = new StringBuilder();
+
+                for( String name : removed )
+                {
+                    sb.append( name );
+                    sb.append( '\n' );
+                }
+
+                zip.putNextEntry( new ZipEntry( "META-INF/" + deletePrefix + DELETE_PROPS_SUFFIX ) ); //$NON-NLS-1$
+                zip.write( sb.toString().getBytes( "UTF-8" ) ); //$NON-NLS-1$
+            }
+        }
+        finally
+        {
+            if( zip != null )
+            {
+                zip.close();
+            }
+
+            if( zipFile != null )
+            {
+                zipFile.close();
+            }
+        }
+
+        return path;
+    }
+
+    List<String> getChangedEntries( RemoteModuleManifest deployed )
+    {
+        final List<String> retval = new ArrayList<String>();
+
+        for( Map.Entry<String, String> entry : entries.entrySet() )
+        {
+            if( ! entry.getValue().equals( deployed.entries.get( entry.getKey() ) ) )
+            {
+                retval.add( entry.getKey() );
+            }
+        }
+
+        return retval;
+    }
+
+    Map<String, String> getEntries()
+    {
+        return Collections.unmodifiableMap( entries );
+    }
+
+    List<String> getRemovedEntries( RemoteModuleManifest deployed )
+    {
+        final List<String> retval = new ArrayList<String>();
+
+        for( String name : deployed.entries.keySet() )
+        {
+            if( ! entries.containsKey( name ) )
+            {
+                retval.add( name );
+            }
+        }
+
+        return retval;
+    }
+
+    void save( IServer server, String appName )
+    {
+        final File file = getLocation( server, appName ).toFile();
+
+        file.getParentFile().mkdirs();
+
+        final Properties properties = new Properties();
+        properties.putAll( entries );
+
+        OutputStream out = null;
+
+        try
+        {
+            out = new FileOutputStream( file );
+
+            properties.store( out, null );
+        }
+        catch( IOException e )
+        {
+            LiferayServerCore.logError( "Unable to save module manifest " + file, e ); //$NON-NLS-1$
+        }
+        finally
+        {
+            IOUtils.closeQuietly( out );
+        }
+    }
+
+}
@@ -24,7 +24,9 @@ import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.DebugException;
 import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.model.IFlushableStreamMonitor;
 import org.eclipse.debug.core.model.IProcess;
+import org.eclipse.debug.core.model.IStreamMonitor;
 import org.eclipse.debug.core.model.IStreamsProxy;
 import org.eclipse.debug.internal.core.StreamsProxy;
 import org.eclipse.wst.server.core.IServer;
@@ -37,8 +39,10 @@ public class RemoteMonitorProcess extends Process implements IProcess
 {
 
     protected IServerManagerConnection remoteConnection;
+    private final RemoteLogTail errorTail;
     protected String label;
     protected ILaunch launch;
+    private final RemoteLogTail outputTail;
     protected IServer server;
     protected IStreamsProxy streamsProxy;
     protected IRemoteServer remoteServer;
@@ -49,6 +53,14 @@ public class RemoteMonitorProcess extends Process implements IProcess
         this.remoteServer = (IRemoteServer) server.loadAdapter( IRemoteServer.class, null );
         this.remoteConnection = connection;
         this.launch = launch;
+        this.outputTail = newTail( connection, "output" ); //$NON-NLS-1$
+        this.errorTail = newTail( connection, "error" ); //$NON-NLS-1$
+    }
+
+    private static RemoteLogTail newTail( IServerManagerConnection connection, String log )
+    {
+        return new RemoteLogTail(
+            connection, log, (int) RemoteLogStream.LOG_QUERY_RANGE, RemoteLogStream.LOG_BUFFER_LINES );
     }
 
     public boolean canTerminate()
@@ -85,7 +97,7 @@ public class RemoteMonitorProcess extends Process implements IProcess
     @Override
     public InputStream getErrorStream()
     {
-        return new RemoteLogStream( server, remoteServer, remoteConnection, "error" ); //$NON-NLS-1$
+        return new RemoteLogStream( errorTail );
     }
 
     public int getExitValue() throws DebugException
@@ -97,7 +109,7 @@ public class RemoteMonitorProcess extends Process implements IProcess
     @Override
     public InputStream getInputStream()
     {
-        return new RemoteLogStream( server, remoteServer, remoteConnection, "output" ); //$NON-NLS-1$
+        return new RemoteLogStream( outputTail );
     }
 
     public String getLabel()
@@ -141,6 +153,10 @@ public class RemoteMonitorProcess extends Process implements IProcess
         if( streamsProxy == null )
         {
             streamsProxy = new StreamsProxy( this, "UTF-8" ); //$NON-NLS-1$
+
+            // the console keeps its own content, the monitors don't need another copy of the whole log
+            unbuffer( streamsProxy.getOutputStreamMonitor() );
+            unbuffer( streamsProxy.getErrorStreamMonitor() );
         }
 
         return streamsProxy;
@@ -158,6 +174,8 @@ public class RemoteMonitorProcess extends Process implements IProcess
     public void terminate() throws DebugException
     {
         remoteConnection = null;
+        outputTail.close();
+        errorTail.close();
         // this.launch.removeProcess(this);
 
         DebugEvent[] events = { new DebugEvent( this, DebugEvent.TERMINATE ) };
@@ -165,6 +183,14 @@ public class RemoteMonitorProcess extends Process implements IProcess
         DebugPlugin.getDefault().fireDebugEventSet( events );
     }
 
+    private void unbuffer( IStreamMonitor monitor )
+    {
+        if( monitor instanceof IFlushableStreamMonitor )
+        {
+            ( (IFlushableStreamMonitor) monitor ).setBuffered( false );
+        }
+    }
+
     @Override
     public int waitFor() throws InterruptedException
     {
@@ -200,6 +200,11 @@ public class RemoteServer extends ServerDelegate implements IRemoteServerWorking
         return childModules.toArray( new IModule[0] );
     }
 
+    public int getDeploymentCompressionLevel()
+    {
+        return getAttribute( ATTR_DEPLOYMENT_COMPRESSION_LEVEL, DEFAULT_DEPLOYMENT_COMPRESSION_LEVEL );
+    }
+
     public String getHost()
     {
         return getServer().getHost();
@@ -370,6 +375,11 @@ public class RemoteServer extends ServerDelegate implements IRemoteServerWorking
         getServerWorkingCopy().setName( defaultName );
     }
 
+    public void setDeploymentCompressionLevel( int level )
+    {
+        setAttribute( ATTR_DEPLOYMENT_COMPRESSION_LEVEL, level );
+    }
+
     public void setHTTPPort( String httpPort )
     {
         setAttribute( ATTR_HTTP_PORT, httpPort );
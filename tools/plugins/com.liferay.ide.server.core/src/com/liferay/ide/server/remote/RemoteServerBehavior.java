@@ -20,6 +20,9 @@ import com.liferay.ide.core.ILiferayProject;
 import com.liferay.ide.core.IWebProject;
 import com.liferay.ide.core.LiferayCore;
 import com.liferay.ide.core.remote.APIException;
+import com.liferay.ide.core.remote.APITransportException;
+import com.liferay.ide.core.remote.RemoteConnection;
+import com.liferay.ide.core.remote.RequestStats;
 import com.liferay.ide.core.util.CoreUtil;
 import com.liferay.ide.server.core.ILiferayServerBehavior;
 import com.liferay.ide.server.core.LiferayServerCore;
@@ -27,11 +30,14 @@ import com.liferay.ide.server.util.LiferayPublishHelper;
 import com.liferay.ide.server.util.ServerUtil;
 import com.liferay.ide.server.util.SocketUtil;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.http.entity.ContentProducer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
@@ -68,6 +74,7 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
     implements ILiferayServerBehavior, IServerLifecycleListener
 {
     protected ILaunch currentLaunch;
+    private RemoteEventChannel eventChannel;
     private IServerManagerConnection remoteConnection;
     private List<IModule[]> redeployModules;
     protected Job remoteServerUpdateJob;
@@ -216,6 +223,11 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
                     // no error, this could because server is down
                 }
 
+                if( isAlive )
+                {
+                    startEventChannel();
+                }
+
                 if( isAlive && ( this.currentLaunch == null || this.currentLaunch.isTerminated() ) )
                 {
                     updateServerJob = new Job( "Connecting to server: " + getServer().getName() ) //$NON-NLS-1$
@@ -259,7 +271,8 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
             @Override
             protected IStatus run( IProgressMonitor monitor )
             {
-                Job updateServerJob = checkRemoteServerState( monitor );
+                // while the event channel is connected state changes are pushed, so there is nothing to poll
+                Job updateServerJob = isEventChannelConnected() ? null : checkRemoteServerState( monitor );
 
                 if( updateServerJob != null )
                 {
@@ -291,6 +304,12 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
 
         remoteServerUpdateJob.cancel();
         remoteServerUpdateJob = null;
+
+        if( eventChannel != null )
+        {
+            eventChannel.cancel();
+            eventChannel = null;
+        }
     }
 
     @Override
@@ -364,6 +383,16 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
         return 5000;
     }
 
+    /**
+     * Returns the request and latency statistics of this server's server manager connection.
+     */
+    public RequestStats getRequestStats()
+    {
+        final IServerManagerConnection connection = getServerManagerConnection();
+
+        return connection instanceof RemoteConnection ? ( (RemoteConnection) connection ).getRequestStats() : null;
+    }
+
     protected IServerManagerConnection getServerManagerConnection()
     {
         if( remoteConnection == null )
@@ -384,6 +413,42 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
         remoteServerUpdateJob.schedule();
     }
 
+    void handleEvent( RemoteServerEvent event )
+    {
+        if( RemoteServerEvent.TYPE_SERVER.equals( event.getType() ) )
+        {
+            if( ! event.isStarted() )
+            {
+                terminateLaunch();
+                setServerState( IServer.STATE_STOPPED );
+            }
+        }
+        else if( RemoteServerEvent.TYPE_PLUGIN.equals( event.getType() ) && event.getName() != null )
+        {
+            for( IModule module : getServer().getModules() )
+            {
+                if( CoreUtil.isLiferayProject( module.getProject() ) &&
+                    event.getName().equals( ComponentUtilities.getServerContextRoot( module.getProject() ) ) )
+                {
+                    final int moduleState =
+                        ! event.isInstalled() ? IServer.STATE_UNKNOWN : ( event.isStarted() ? IServer.STATE_STARTED
+                            : IServer.STATE_STOPPED );
+                    final IModule[] module2 = new IModule[] { module };
+
+                    if( getServer().getModuleState( module2 ) != moduleState )
+                    {
+                        setModuleState( module2, moduleState );
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean isEventChannelConnected()
+    {
+        return eventChannel != null && eventChannel.isConnected();
+    }
+
     protected boolean isModuleInstalled( IModule[] module )
     {
         for( IModule m : module )
@@ -534,7 +599,7 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
 
         IProject moduleProject = module[0].getProject();
 
-        IModuleResourceDelta[] delta = getPublishedResourceDelta( module );
+        final IModuleResourceDelta[] delta = getPublishedResourceDelta( module );
 
         if( shouldPublishModuleFull( delta ) )
         {
@@ -543,6 +608,10 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
 
         final String appName = ComponentUtilities.getServerContextRoot( moduleProject );
 
+        // the saved manifest no longer describes what is deployed once a delta is sent, the next full publish has to
+        // install the module in full unless the server provides its own manifest
+        RemoteModuleManifest.delete( getServer(), appName );
+
         monitor.subTask( "Creating partial " + moduleProject.getName() + " update archive..." ); //$NON-NLS-1$ //$NON-NLS-2$
 
         final ILiferayProject liferayProject = LiferayCore.create( moduleProject );
@@ -554,7 +623,7 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
             throw new CoreException( LiferayServerCore.error( Msgs.publishingModuleProject ) );
         }
 
-        final IPath warPath = publisher.publishModuleDelta( appName + ".war", delta, "liferay", true );
+        final int compressionLevel = getRemoteServer().getDeploymentCompressionLevel();
 
         monitor.worked( 25 );
 
@@ -573,10 +642,42 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
 
         try
         {
-            error = connection.updateApplication( appName, warPath.toOSString(), monitor );
+            // the partial war is zipped straight into the request body instead of a temp file
+            error = connection.updateApplication( appName, appName + ".war", new ContentProducer() //$NON-NLS-1$
+            {
+                public void writeTo( OutputStream out ) throws IOException
+                {
+                    try
+                    {
+                        publisher.publishModuleDelta( out, delta, "liferay", true, compressionLevel ); //$NON-NLS-1$
+                    }
+                    catch( CoreException e )
+                    {
+                        throw new IOException( e );
+                    }
+                }
+            }, monitor );
+        }
+        catch( APITransportException e )
+        {
+            // the stream failed (e.g. a proxy that refuses chunked requests), possibly after the server applied it;
+            // the update only replaces the same files again, so it is safe to send it once more from disk
+            LiferayServerCore.logError( "Unable to stream partial update of " + appName, e ); //$NON-NLS-1$
+
+            final IPath warPath = publisher.publishModuleDelta( appName + ".war", delta, "liferay", true );
+
+            try
+            {
+                error = connection.updateApplication( appName, warPath.toOSString(), monitor );
+            }
+            catch( APIException e1 )
+            {
+                error = e1.getMessage();
+            }
         }
         catch( APIException e )
         {
+            // the server rejected the update, sending it again won't help
             error = e.getMessage();
         }
 
@@ -643,13 +744,35 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
             return IServer.PUBLISH_STATE_FULL;
         }
 
-        submon.subTask( NLS.bind( Msgs.publishingModuleProject, moduleProject.getName() ) );
+        RemoteModuleManifest manifest = null;
+
+        try
+        {
+            manifest = RemoteModuleManifest.create( warPath.toFile() );
+        }
+        catch( IOException e )
+        {
+            LiferayServerCore.logError( "Unable to read module manifest of " + warPath, e ); //$NON-NLS-1$
+        }
 
         Object error = null;
 
         try
         {
-            error = remoteConnection.installApplication( warPath.toOSString(), appName, submon );
+            boolean updated = false;
+
+            // a module already on the server only gets the entries that changed since it was last deployed
+            if( manifest != null && deltaKind != ADDED )
+            {
+                updated = updateModuleFromManifest( moduleProject, appName, warPath, manifest, submon );
+            }
+
+            if( ! updated )
+            {
+                submon.subTask( NLS.bind( Msgs.publishingModuleProject, moduleProject.getName() ) );
+
+                error = remoteConnection.installApplication( warPath.toOSString(), appName, submon );
+            }
         }
         catch( Exception ex )
         {
@@ -665,6 +788,11 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
             }
         }
 
+        if( error == null && manifest != null )
+        {
+            manifest.save( getServer(), appName );
+        }
+
         if( error != null )
         {
             setModuleStatus( module, null );
@@ -808,6 +936,8 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
             throw new CoreException( LiferayServerCore.error( error.toString() ) );
         }
 
+        RemoteModuleManifest.delete( getServer(), appName );
+
         setModuleStatus( module, null );
 
         return IServer.PUBLISH_STATE_NONE;
@@ -898,6 +1028,19 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
         setServerState( IServer.STATE_STOPPED );
     }
 
+    private void startEventChannel()
+    {
+        final RemoteEventChannel channel = eventChannel;
+
+        if( channel != null && ( ! channel.isSupported() || channel.getState() != Job.NONE ) )
+        {
+            return;
+        }
+
+        eventChannel = new RemoteEventChannel( this );
+        eventChannel.schedule();
+    }
+
     protected void terminateLaunch()
     {
         if( currentLaunch != null )
@@ -914,6 +1057,81 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
         }
     }
 
+    /**
+     * Sends only the entries of the war that differ from the manifest of the deployed module, using the server's own
+     * manifest when the server manager provides one and the one saved at the last publish otherwise.
+     *
+     * @return <code>true</code> if the deployed module is now up to date, <code>false</code> if it still has to be
+     *         installed in full
+     */
+    private boolean updateModuleFromManifest(
+        IProject moduleProject, String appName, IPath warPath, RemoteModuleManifest manifest, IProgressMonitor monitor )
+    {
+        final IServerManagerConnection connection = getServerManagerConnection();
+
+        RemoteModuleManifest deployed = null;
+
+        try
+        {
+            final Map<String, String> entries = connection.getApplicationManifest( appName );
+
+            if( entries != null )
+            {
+                deployed = new RemoteModuleManifest( entries );
+            }
+        }
+        catch( APIException e )
+        {
+            // older server managers don't provide manifests
+        }
+
+        try
+        {
+            if( deployed == null )
+            {
+                deployed = RemoteModuleManifest.load( getServer(), appName );
+
+                if( deployed == null || ! connection.isAppInstalled( appName ) )
+                {
+                    return false;
+                }
+            }
+
+            final IPath partialWarPath = manifest.createPartialWar( warPath.toFile(), deployed, "liferay" ); //$NON-NLS-1$
+
+            if( partialWarPath == null )
+            {
+                return true;
+            }
+
+            monitor.subTask( NLS.bind( Msgs.updatingModuleProject, moduleProject.getName() ) );
+
+            try
+            {
+                final Object error = connection.updateApplication( appName, partialWarPath.toOSString(), monitor );
+
+                if( error != null )
+                {
+                    LiferayServerCore.logError( "Unable to update " + appName + ": " + error ); //$NON-NLS-1$ //$NON-NLS-2$
+
+                    return false;
+                }
+            }
+            finally
+            {
+                partialWarPath.toFile().delete();
+            }
+
+            return true;
+        }
+        catch( Exception e )
+        {
+            LiferayServerCore.logError( "Unable to update " + appName + " from its manifest", e ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        return false;
+    }
+
     protected IStatus updateModuleState( IModule module )
     {
 
@@ -964,22 +1182,41 @@ public class RemoteServerBehavior extends ServerBehaviourDelegate
 
         if( !CoreUtil.isNullOrEmpty( modules ) )
         {
-            List<String> plugins = getServerManagerConnection().getLiferayPlugins();
+            final Map<IModule, String> appNames = new HashMap<IModule, String>();
 
             for( IModule module : modules )
             {
                 if( CoreUtil.isLiferayProject( module.getProject() ) )
                 {
+                    appNames.put( module, ComponentUtilities.getServerContextRoot( module.getProject() ) );
+                }
+            }
 
-                    final String appName = ComponentUtilities.getServerContextRoot( module.getProject() );
+            Map<String, Boolean> pluginStates = null;
 
-                    if( plugins.contains( appName ) )
-                    {
-                        updateModuleState( module );
-                    }
-                    else
+            try
+            {
+                pluginStates = getServerManagerConnection().getPluginStates( appNames.values() );
+            }
+            catch( APIException e )
+            {
+                LiferayServerCore.logError( e );
+            }
+
+            if( pluginStates != null )
+            {
+                for( IModule module : appNames.keySet() )
+                {
+                    final Boolean started = pluginStates.get( appNames.get( module ) );
+                    final int moduleState =
+                        started == null ? IServer.STATE_UNKNOWN : ( started ? IServer.STATE_STARTED
+                            : IServer.STATE_STOPPED );
+                    final IModule[] module2 = new IModule[] { module };
+
+                    // only fire module change events for states that actually changed
+                    if( getServer().getModuleState( module2 ) != moduleState )
                     {
-                        setModuleState( new IModule[] { module }, IServer.STATE_UNKNOWN );
+                        setModuleState( module2, moduleState );
                     }
                 }
             }
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.server.remote;
+
+/**
+ * A state change pushed by the server manager, either of the server itself or of one of its plugins.
+ *
+ * @author agent
+ */
+public class RemoteServerEvent
+{
+
+    public static final String TYPE_PLUGIN = "plugin"; //$NON-NLS-1$
+    public static final String TYPE_SERVER = "server"; //$NON-NLS-1$
+
+    private final boolean installed;
+    private final String name;
+    private final long sequence;
+    private final boolean started;
+    private final String type;
+
+    public RemoteServerEvent( long sequence, String type, String name, boolean installed, boolean started )
+    {
+        this.sequence = sequence;
+        this.type = type;
+        this.name = name;
+        this.installed = installed;
+        this.started = started;
+    }
+
+    /**
+     * The plugin name for plugin events, <code>null</code> for server events.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    public String getType()
+    {
+        return type;
+    }
+
+    public boolean isInstalled()
+    {
+        return installed;
+    }
+
+    public boolean isStarted()
+    {
+        return started;
+    }
+
+    @Override
+    public String toString()
+    {
+        return type + ( name != null ? " " + name : "" ) + " [installed=" + installed + ", started=" + started + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+    }
+
+}
@@ -18,18 +18,26 @@
 package com.liferay.ide.server.remote;
 
 import com.liferay.ide.core.remote.APIException;
+import com.liferay.ide.core.remote.APITransportException;
 import com.liferay.ide.core.remote.RemoteConnection;
 import com.liferay.ide.core.util.CoreUtil;
 import com.liferay.ide.server.core.LiferayServerCore;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ContentProducer;
 import org.apache.http.entity.mime.MultipartEntity;
 import org.apache.http.entity.mime.content.FileBody;
+import org.apache.http.params.HttpConnectionParams;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -41,7 +49,14 @@ import org.json.JSONObject;
  */
 public class ServerManagerConnection extends RemoteConnection implements IServerManagerConnection
 {
+    // seconds an events request may take beyond its long poll timeout
+    private static final int EVENTS_READ_SLACK = 30;
+
+    private static final String INVALID_RANGE = "Error 416: Invalid Range values."; //$NON-NLS-1$
+
+    private volatile HttpGet eventsRequest;
     private String managerContextPath;
+    private volatile Boolean pluginStatesSupported;
 
     public ServerManagerConnection()
     {
@@ -57,6 +72,46 @@ public class ServerManagerConnection extends RemoteConnection implements IServer
         this.managerContextPath = managerContextPath;
     }
 
+    public Map<String, String> getApplicationManifest( String appName ) throws APIException
+    {
+        final Object response = getJSONAPI( getManifestURI( appName ) );
+
+        if( response instanceof JSONObject )
+        {
+            final JSONObject json = (JSONObject) response;
+
+            try
+            {
+                if( isSuccess( json ) )
+                {
+                    final JSONObject output = getJSONOutput( json );
+
+                    if( output != null )
+                    {
+                        final Map<String, String> retval = new HashMap<String, String>();
+
+                        final Iterator<?> names = output.keys();
+
+                        while( names.hasNext() )
+                        {
+                            final String name = names.next().toString();
+
+                            retval.put( name, output.getString( name ) );
+                        }
+
+                        return retval;
+                    }
+                }
+            }
+            catch( Exception e )
+            {
+                throw new APIException( getManifestURI( appName ), e );
+            }
+        }
+
+        return null;
+    }
+
     public int getDebugPort() throws APIException
     {
         String debugPort = getRemoteServerConfig( getDebugPortAPI() );
@@ -79,6 +134,84 @@ public class ServerManagerConnection extends RemoteConnection implements IServer
         return getPluginsAPI() + "/" + appName; //$NON-NLS-1$
     }
 
+    public void abortEvents()
+    {
+        final HttpGet request = eventsRequest;
+
+        if( request != null )
+        {
+            request.abort();
+        }
+    }
+
+    public List<RemoteServerEvent> getEvents( long since, int timeout ) throws APIException
+    {
+        final HttpGet request = new HttpGet();
+
+        // the server holds the request for up to timeout seconds, give it some slack before calling it hung
+        HttpConnectionParams.setSoTimeout( request.getParams(), ( timeout + EVENTS_READ_SLACK ) * 1000 );
+
+        eventsRequest = request;
+
+        final Object response;
+
+        try
+        {
+            response = httpJSONAPI( request, new Object[] { getEventsAPI(), "since", since, "timeout", timeout } ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        catch( APITransportException e )
+        {
+            throw e;
+        }
+        catch( APIException e )
+        {
+            // the server answered, but not with json: a server manager without the events api answers the unknown
+            // path with a 404 error page
+            if( ! request.isAborted() && e.getCause() == null )
+            {
+                return null;
+            }
+
+            throw e;
+        }
+        finally
+        {
+            eventsRequest = null;
+        }
+
+        if( response instanceof JSONObject && isSuccess( (JSONObject) response ) )
+        {
+            final List<RemoteServerEvent> retval = new ArrayList<RemoteServerEvent>();
+
+            try
+            {
+                final JSONArray events = getJSONOutput( (JSONObject) response );
+
+                for( int i = 0; i < events.length(); i++ )
+                {
+                    final JSONObject event = events.getJSONObject( i );
+
+                    retval.add( new RemoteServerEvent(
+                        event.getLong( "seq" ), event.getString( "type" ), event.optString( "name", null ), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                        event.optBoolean( "installed", true ), event.optBoolean( "started" ) ) ); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+            }
+            catch( JSONException e )
+            {
+                throw new APIException( getEventsAPI(), e );
+            }
+
+            return retval;
+        }
+
+        return null;
+    }
+
+    private String getEventsAPI()
+    {
+        return managerContextPath + "/events"; //$NON-NLS-1$
+    }
+
     public String getFMDebugPassword() throws APIException
     {
         return getRemoteServerConfig( getFMDebugPasswordAPI() );
@@ -164,11 +297,103 @@ public class ServerManagerConnection extends RemoteConnection implements IServer
         return retval;
     }
 
+    public byte[] getLog( String log, long offset, int maxLength ) throws APIException
+    {
+        final byte[] retval =
+            getBytesAPI( managerContextPath + "/server/log/" + log + "/" + offset, maxLength, "format", "raw" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+        // older server managers report an invalid offset with an error page instead of a 416 status
+        if( retval != null && new String( retval, 0, Math.min( retval.length, 256 ) ).contains( INVALID_RANGE ) )
+        {
+            return null;
+        }
+
+        return retval;
+    }
+
     public String getManagerURI()
     {
         return "http://" + getHost() + ":" + getHttpPort() + managerContextPath; //$NON-NLS-1$ //$NON-NLS-2$
     }
 
+    private String getManifestURI( String appName )
+    {
+        return getPluginURI( appName ) + "/manifest"; //$NON-NLS-1$
+    }
+
+    public Map<String, Boolean> getPluginStates( Collection<String> appNames ) throws APIException
+    {
+        final Map<String, Boolean> retval = new HashMap<String, Boolean>();
+
+        if( appNames.isEmpty() )
+        {
+            return retval;
+        }
+
+        if( ! Boolean.FALSE.equals( pluginStatesSupported ) )
+        {
+            Object response = null;
+
+            try
+            {
+                response = getJSONAPI( getPluginStatesAPI() );
+            }
+            catch( APIException e )
+            {
+                // older server managers don't have the bulk api
+            }
+
+            if( response instanceof JSONObject && isSuccess( (JSONObject) response ) )
+            {
+                pluginStatesSupported = true;
+
+                try
+                {
+                    final JSONObject output = getJSONOutput( (JSONObject) response );
+
+                    for( String appName : appNames )
+                    {
+                        final JSONObject state = output.optJSONObject( appName );
+
+                        if( state != null && state.optBoolean( "installed", true ) ) //$NON-NLS-1$
+                        {
+                            retval.put( appName, state.optBoolean( "started" ) ); //$NON-NLS-1$
+                        }
+                    }
+                }
+                catch( JSONException e )
+                {
+                    throw new APIException( getPluginStatesAPI(), e );
+                }
+
+                return retval;
+            }
+
+            // only give up on the bulk api if the server manager itself is reachable
+            if( isAlive() )
+            {
+                pluginStatesSupported = false;
+            }
+        }
+
+        final List<String> plugins = getLiferayPlugins();
+
+        for( String appName : appNames )
+        {
+            if( plugins.contains( appName ) )
+            {
+                retval.put( appName, isLiferayPluginStarted( appName ) );
+            }
+        }
+
+        return retval;
+    }
+
+    private String getPluginStatesAPI()
+    {
+        return getPluginsAPI() + "/states"; //$NON-NLS-1$
+    }
+
     private String getPluginsAPI()
     {
         return managerContextPath + "/plugins"; //$NON-NLS-1$
@@ -386,6 +611,7 @@ public class ServerManagerConnection extends RemoteConnection implements IServer
     public void setManagerContextPath( String managerContextPath )
     {
         this.managerContextPath = managerContextPath;
+        this.pluginStatesSupported = null;
     }
 
     public Object uninstallApplication( String appName, IProgressMonitor monitor ) throws APIException
@@ -423,6 +649,42 @@ public class ServerManagerConnection extends RemoteConnection implements IServer
         return null;
     }
 
+    public Object updateApplication( String appName, String archiveName, ContentProducer archive, IProgressMonitor monitor )
+        throws APIException
+    {
+        final MultipartEntity entity = new MultipartEntity();
+        entity.addPart( archiveName, new StreamingArchiveBody( archiveName, archive ) );
+
+        final HttpPut httpPut = new HttpPut();
+        httpPut.setEntity( entity );
+
+        final Object response = httpJSONAPI( httpPut, getUpdateURI( appName ) );
+
+        if( response instanceof JSONObject )
+        {
+            final JSONObject json = (JSONObject) response;
+
+            if( ! isSuccess( json ) )
+            {
+                if( isError( json ) )
+                {
+                    try
+                    {
+                        return json.getString( "error" ); //$NON-NLS-1$
+                    }
+                    catch( JSONException e )
+                    {
+                        throw new APIException( getUpdateURI( appName ), e );
+                    }
+                }
+
+                return "updateApplication error " + getDeployURI( appName ); //$NON-NLS-1$
+            }
+        }
+
+        return null;
+    }
+
     public Object updateApplication( String appName, String absolutePath, IProgressMonitor monitor ) throws APIException
     {
         try
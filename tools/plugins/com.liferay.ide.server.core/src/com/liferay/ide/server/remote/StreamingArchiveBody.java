@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.server.remote;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.http.entity.ContentProducer;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+/**
+ * Multipart body whose content is produced while the request is being sent. Its length is unknown, so the request
+ * goes out with chunked transfer encoding and the archive never has to be written to disk first.
+ *
+ * @author agent
+ */
+class StreamingArchiveBody extends AbstractContentBody
+{
+
+    private final String fileName;
+    private final ContentProducer producer;
+
+    StreamingArchiveBody( String fileName, ContentProducer producer )
+    {
+        super( "application/octet-stream" ); //$NON-NLS-1$
+
+        this.fileName = fileName;
+        this.producer = producer;
+    }
+
+    public String getCharset()
+    {
+        return null;
+    }
+
+    public long getContentLength()
+    {
+        return -1;
+    }
+
+    public String getFilename()
+    {
+        return fileName;
+    }
+
+    public String getTransferEncoding()
+    {
+        return MIME.ENC_BINARY;
+    }
+
+    public void writeTo( OutputStream out ) throws IOException
+    {
+        producer.writeTo( out );
+        out.flush();
+    }
+
+}
@@ -19,14 +19,17 @@ import com.liferay.ide.core.util.CoreUtil;
 import com.liferay.ide.server.core.LiferayServerCore;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Properties;
 
 import org.eclipse.core.runtime.IPath;
 import org.osgi.framework.Version;
@@ -38,8 +41,16 @@ import org.osgi.framework.Version;
 public class LiferayPortalValueLoader
 {
 
+    private static final String INDEX_FILE = "portalValues.properties"; //$NON-NLS-1$
+    private static final String INDEX_HOOK_PROPERTIES = "hookProperties"; //$NON-NLS-1$
+    private static final String INDEX_SERVER_INFO = "serverInfo"; //$NON-NLS-1$
+    private static final String INDEX_VERSION = "version"; //$NON-NLS-1$
+
+    private static Properties index;
+
     private IPath[] userLibs;
     private IPath portalDir;
+    private String libsKey;
 
     public LiferayPortalValueLoader( IPath[] extraLibs )
     {
@@ -52,7 +63,15 @@ public class LiferayPortalValueLoader
         this.userLibs = extraLibs;
     }
 
-    private void addLibs( File libDir, List<URL> libUrlList ) throws MalformedURLException
+    /**
+     * Closes every shared portal class loader, used when the server core bundle stops.
+     */
+    public static void closeClassLoaders()
+    {
+        PortalClassLoaders.closeAll();
+    }
+
+    private void addLibs( File libDir, List<File> libList )
     {
         if( libDir.exists() )
         {
@@ -70,9 +89,11 @@ public class LiferayPortalValueLoader
 
             if( ! CoreUtil.isNullOrEmpty( libs ) )
             {
+                Arrays.sort( libs );
+
                 for( File portaLib : libs )
                 {
-                    libUrlList.add( portaLib.toURI().toURL() );
+                    libList.add( portaLib );
                 }
             }
         }
@@ -80,80 +101,200 @@ public class LiferayPortalValueLoader
 
     private Object[] getFieldValuesFromClass( String loadClassName, String fieldName)
     {
-        Object[] retval = null;
+        Object[] retval = PortalBytecodeReader.readStringArrayField( getLibs(), loadClassName, fieldName );
+
+        if( retval != null )
+        {
+            return retval;
+        }
+
+        URLClassLoader classLoader = null;
 
         try
         {
-            final Class<?> classRef = loadClass(loadClassName);
+            classLoader = PortalClassLoaders.acquire( getLibs() );
+
+            final Class<?> classRef = classLoader.loadClass( loadClassName );
             final Field propertiesField = classRef.getDeclaredField( fieldName );
             retval = ( Object[] ) ( propertiesField.get( propertiesField ) );
         }
         catch( Exception e )
         {
-            retval = new Object[0];
+            retval = new String[0];
             LiferayServerCore.logError( "Error unable to find " + loadClassName, e ); //$NON-NLS-1$
         }
+        finally
+        {
+            if( classLoader != null )
+            {
+                PortalClassLoaders.release( classLoader );
+            }
+        }
 
         return retval;
     }
 
-    private Object getMethodValueFromClass( String loadClassName, String methodName)
+    private static synchronized Properties getIndex()
     {
-        Object retval = null;
-
-        try
+        if( index == null )
         {
-            final Class<?> classRef = loadClass( loadClassName );
-            final Method method = classRef.getMethod( methodName );
-            retval = method.invoke( null );
+            index = new Properties();
+
+            final File indexFile = getIndexFile();
+
+            if( indexFile != null && indexFile.exists() )
+            {
+                try( FileInputStream in = new FileInputStream( indexFile ) )
+                {
+                    index.load( in );
+                }
+                catch( IOException e )
+                {
+                    LiferayServerCore.logError( "Unable to read portal values index", e ); //$NON-NLS-1$
+                }
+            }
         }
-        catch( Exception e )
+
+        return index;
+    }
+
+    private static File getIndexFile()
+    {
+        final LiferayServerCore serverCore = LiferayServerCore.getDefault();
+
+        return serverCore == null ? null : serverCore.getStateLocation().append( INDEX_FILE ).toFile();
+    }
+
+    private String getIndexedValue( String name )
+    {
+        final Properties properties = getIndex();
+
+        synchronized( LiferayPortalValueLoader.class )
         {
-            LiferayServerCore.logError( "Error unable to find " + loadClassName, e ); //$NON-NLS-1$
+            return properties.getProperty( getLibsKey() + "." + name ); //$NON-NLS-1$
         }
-
-        return retval;
     }
 
-    @SuppressWarnings( "resource" )
-    private Class<?> loadClass( String className ) throws Exception
+    private File[] getLibs()
     {
-        final List<URL> libUrlList = new ArrayList<URL>();
+        final List<File> libList = new ArrayList<File>();
 
         if ( portalDir != null )
         {
             final File libDir = portalDir.append( "WEB-INF/lib" ).toFile();
 
-            addLibs( libDir, libUrlList );
+            addLibs( libDir, libList );
         }
 
         if( ! CoreUtil.isNullOrEmpty( userLibs ) )
         {
             for( IPath url : userLibs )
             {
-                libUrlList.add( new File( url.toOSString() ).toURI().toURL() );
+                libList.add( new File( url.toOSString() ) );
             }
         }
 
-        final URL[] urls = libUrlList.toArray( new URL[libUrlList.size()] );
+        return libList.toArray( new File[libList.size()] );
+    }
+
+    private String getLibsKey()
+    {
+        if( libsKey == null )
+        {
+            libsKey = PortalClassLoaders.createKey( getLibs() );
+        }
 
-        return new URLClassLoader( urls ).loadClass( className );
+        return libsKey;
+    }
+
+    private Object getMethodValueFromClass( String loadClassName, String methodName)
+    {
+        Object retval = PortalBytecodeReader.readStringMethodValue( getLibs(), loadClassName, methodName );
+
+        if( retval != null )
+        {
+            return retval;
+        }
+
+        URLClassLoader classLoader = null;
+
+        try
+        {
+            classLoader = PortalClassLoaders.acquire( getLibs() );
+
+            final Class<?> classRef = classLoader.loadClass( loadClassName );
+            final Method method = classRef.getMethod( methodName );
+            retval = method.invoke( null );
+        }
+        catch( Exception e )
+        {
+            LiferayServerCore.logError( "Error unable to find " + loadClassName, e ); //$NON-NLS-1$
+        }
+        finally
+        {
+            if( classLoader != null )
+            {
+                PortalClassLoaders.release( classLoader );
+            }
+        }
+
+        return retval;
     }
 
     public String[] loadHookPropertiesFromClass()
     {
+        final String indexed = getIndexedValue( INDEX_HOOK_PROPERTIES );
+
+        if( indexed != null )
+        {
+            return indexed.split( "," ); //$NON-NLS-1$
+        }
+
         final String loadClassName = "com.liferay.portal.deploy.hot.HookHotDeployListener"; //$NON-NLS-1$
         final String fieldName = "SUPPORTED_PROPERTIES"; //$NON-NLS-1$
 
-        return ( String[] ) getFieldValuesFromClass( loadClassName, fieldName );
+        final String[] retval = ( String[] ) getFieldValuesFromClass( loadClassName, fieldName );
+
+        if( ! CoreUtil.isNullOrEmpty( retval ) )
+        {
+            final StringBuilder sb = new StringBuilder();
+
+            for( String property : retval )
+            {
+                if( sb.length() > 0 )
+                {
+                    sb.append( ',' );
+                }
+
+                sb.append( property );
+            }
+
+            putIndexedValue( INDEX_HOOK_PROPERTIES, sb.toString() );
+        }
+
+        return retval;
     }
 
     public String loadServerInfoFromClass()
     {
+        final String indexed = getIndexedValue( INDEX_SERVER_INFO );
+
+        if( indexed != null )
+        {
+            return indexed;
+        }
+
         final String loadClassName = "com.liferay.portal.kernel.util.ReleaseInfo"; //$NON-NLS-1$
         final String methodName = "getServerInfo"; //$NON-NLS-1$
 
-        return ( String )getMethodValueFromClass( loadClassName, methodName);
+        final String retval = ( String )getMethodValueFromClass( loadClassName, methodName);
+
+        if( ! CoreUtil.isNullOrEmpty( retval ) )
+        {
+            putIndexedValue( INDEX_SERVER_INFO, retval );
+        }
+
+        return retval;
     }
 
     public Version loadVersionFromClass()
@@ -165,8 +306,23 @@ public class LiferayPortalValueLoader
 
         try
         {
-            final String versionString = ( String )getMethodValueFromClass( loadClassName, methodName);
-            retval = Version.parseVersion( versionString );
+            String versionString = getIndexedValue( INDEX_VERSION );
+
+            if( versionString == null )
+            {
+                versionString = ( String )getMethodValueFromClass( loadClassName, methodName);
+
+                retval = Version.parseVersion( versionString );
+
+                if( ! CoreUtil.isNullOrEmpty( versionString ) )
+                {
+                    putIndexedValue( INDEX_VERSION, versionString );
+                }
+            }
+            else
+            {
+                retval = Version.parseVersion( versionString );
+            }
         }
         catch( Exception e )
         {
@@ -177,4 +333,29 @@ public class LiferayPortalValueLoader
         return retval;
     }
 
+    private void putIndexedValue( String name, String value )
+    {
+        final Properties properties = getIndex();
+        final File indexFile = getIndexFile();
+
+        synchronized( LiferayPortalValueLoader.class )
+        {
+            properties.setProperty( getLibsKey() + "." + name, value ); //$NON-NLS-1$
+
+            if( indexFile == null )
+            {
+                return;
+            }
+
+            try( FileOutputStream out = new FileOutputStream( indexFile ) )
+            {
+                properties.store( out, null );
+            }
+            catch( IOException e )
+            {
+                LiferayServerCore.logError( "Unable to save portal values index", e ); //$NON-NLS-1$
+            }
+        }
+    }
+
 }
@@ -0,0 +1,735 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.server.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads constant values out of portal class files without loading them. Only straight-line static initializers and
+ * accessor methods built from string constants, string arrays and StringBuilder concatenation are understood; any
+ * other bytecode makes the read return <code>null</code> so callers can fall back to reflection.
+ *
+ * @author agent
+ */
+public class PortalBytecodeReader
+{
+
+    private static final int CONSTANT_Class = 7;
+    private static final int CONSTANT_Double = 6;
+    private static final int CONSTANT_Dynamic = 17;
+    private static final int CONSTANT_Fieldref = 9;
+    private static final int CONSTANT_Float = 4;
+    private static final int CONSTANT_Integer = 3;
+    private static final int CONSTANT_InterfaceMethodref = 11;
+    private static final int CONSTANT_InvokeDynamic = 18;
+    private static final int CONSTANT_Long = 5;
+    private static final int CONSTANT_MethodHandle = 15;
+    private static final int CONSTANT_Methodref = 10;
+    private static final int CONSTANT_MethodType = 16;
+    private static final int CONSTANT_Module = 19;
+    private static final int CONSTANT_NameAndType = 12;
+    private static final int CONSTANT_Package = 20;
+    private static final int CONSTANT_String = 8;
+    private static final int CONSTANT_Utf8 = 1;
+
+    private static final Object INCOMPLETE = new Object();
+
+    private static final String STRING_BUILDER = "java/lang/StringBuilder"; //$NON-NLS-1$
+
+    private static final Value UNKNOWN = new Value( null );
+
+    private boolean clinitComplete = true;
+    private final Object[] constants;
+    private final Map<String, Object> fieldValues = new HashMap<String, Object>();
+    private final Map<String, byte[]> methods = new HashMap<String, byte[]>();
+    private final String thisClass;
+
+    PortalBytecodeReader( InputStream classFile ) throws IOException
+    {
+        final DataInputStream in = new DataInputStream( new BufferedInputStream( classFile ) );
+
+        if( in.readInt() != 0xCAFEBABE )
+        {
+            throw new IOException( "Not a class file" ); //$NON-NLS-1$
+        }
+
+        in.readUnsignedShort(); // minor
+        in.readUnsignedShort(); // major
+
+        final int constantCount = in.readUnsignedShort();
+
+        constants = new Object[constantCount];
+
+        for( int i = 1; i < constantCount; i++ )
+        {
+            final int tag = in.readUnsignedByte();
+
+            switch( tag )
+            {
+                case CONSTANT_Utf8:
+                    constants[i] = in.readUTF();
+                    break;
+
+                case CONSTANT_Integer:
+                    constants[i] = in.readInt();
+                    break;
+
+                case CONSTANT_Float:
+                    constants[i] = in.readFloat();
+                    break;
+
+                case CONSTANT_Long:
+                    constants[i] = in.readLong();
+                    i++;
+                    break;
+
+                case CONSTANT_Double:
+                    constants[i] = in.readDouble();
+                    i++;
+                    break;
+
+                case CONSTANT_Class:
+                case CONSTANT_String:
+                case CONSTANT_MethodType:
+                case CONSTANT_Module:
+                case CONSTANT_Package:
+                    constants[i] = new Ref( tag, in.readUnsignedShort(), 0 );
+                    break;
+
+                case CONSTANT_Fieldref:
+                case CONSTANT_Methodref:
+                case CONSTANT_InterfaceMethodref:
+                case CONSTANT_NameAndType:
+                case CONSTANT_Dynamic:
+                case CONSTANT_InvokeDynamic:
+                    constants[i] = new Ref( tag, in.readUnsignedShort(), in.readUnsignedShort() );
+                    break;
+
+                case CONSTANT_MethodHandle:
+                    constants[i] = new Ref( tag, in.readUnsignedByte(), in.readUnsignedShort() );
+                    break;
+
+                default:
+                    throw new IOException( "Unknown constant pool tag " + tag ); //$NON-NLS-1$
+            }
+        }
+
+        in.readUnsignedShort(); // access flags
+
+        thisClass = className( in.readUnsignedShort() );
+
+        in.readUnsignedShort(); // super class
+
+        final int interfaceCount = in.readUnsignedShort();
+
+        for( int i = 0; i < interfaceCount; i++ )
+        {
+            in.readUnsignedShort();
+        }
+
+        final int fieldCount = in.readUnsignedShort();
+
+        for( int i = 0; i < fieldCount; i++ )
+        {
+            in.readUnsignedShort(); // access flags
+
+            final String name = utf8( in.readUnsignedShort() );
+
+            in.readUnsignedShort(); // descriptor
+
+            final int attributeCount = in.readUnsignedShort();
+
+            for( int j = 0; j < attributeCount; j++ )
+            {
+                final String attributeName = utf8( in.readUnsignedShort() );
+                final int length = in.readInt();
+
+                if( "ConstantValue".equals( attributeName ) ) //$NON-NLS-1$
+                {
+                    fieldValues.put( name, constant( in.readUnsignedShort() ) );
+                }
+                else
+                {
+                    in.readFully( new byte[length] );
+                }
+            }
+        }
+
+        final int methodCount = in.readUnsignedShort();
+
+        for( int i = 0; i < methodCount; i++ )
+        {
+            in.readUnsignedShort(); // access flags
+
+            final String name = utf8( in.readUnsignedShort() );
+            final String descriptor = utf8( in.readUnsignedShort() );
+            final int attributeCount = in.readUnsignedShort();
+
+            for( int j = 0; j < attributeCount; j++ )
+            {
+                final String attributeName = utf8( in.readUnsignedShort() );
+                final byte[] attribute = new byte[in.readInt()];
+
+                in.readFully( attribute );
+
+                if( "Code".equals( attributeName ) ) //$NON-NLS-1$
+                {
+                    // max_stack, max_locals, code_length then the code itself
+                    final int codeLength =
+                        ( ( attribute[4] & 0xff ) << 24 ) | ( ( attribute[5] & 0xff ) << 16 ) |
+                            ( ( attribute[6] & 0xff ) << 8 ) | ( attribute[7] & 0xff );
+                    final byte[] code = new byte[codeLength];
+
+                    System.arraycopy( attribute, 8, code, 0, codeLength );
+
+                    methods.put( name + descriptor, code );
+                }
+            }
+        }
+
+        final byte[] clinit = methods.get( "<clinit>()V" ); //$NON-NLS-1$
+
+        if( clinit != null )
+        {
+            clinitComplete = execute( clinit ) != INCOMPLETE;
+        }
+    }
+
+    private static int argumentCount( String descriptor )
+    {
+        int count = 0;
+        int i = 1;
+
+        while( descriptor.charAt( i ) != ')' )
+        {
+            char c = descriptor.charAt( i );
+
+            while( c == '[' )
+            {
+                c = descriptor.charAt( ++i );
+            }
+
+            if( c == 'L' )
+            {
+                i = descriptor.indexOf( ';', i );
+            }
+
+            i++;
+            count++;
+        }
+
+        return count;
+    }
+
+    private static InputStream findClass( ZipFile zipFile, String className ) throws IOException
+    {
+        final ZipEntry entry = zipFile.getEntry( className.replace( '.', '/' ) + ".class" ); //$NON-NLS-1$
+
+        return entry == null ? null : zipFile.getInputStream( entry );
+    }
+
+    private static PortalBytecodeReader open( File[] jars, String className )
+    {
+        // portal classes live in portal-impl, portal-service or portal-kernel so look there before the other jars
+        final List<File> orderedJars = new ArrayList<File>();
+
+        for( File jar : jars )
+        {
+            if( jar.getName().startsWith( "portal-" ) ) //$NON-NLS-1$
+            {
+                orderedJars.add( jar );
+            }
+        }
+
+        for( File jar : jars )
+        {
+            if( ! jar.getName().startsWith( "portal-" ) ) //$NON-NLS-1$
+            {
+                orderedJars.add( jar );
+            }
+        }
+
+        for( File jar : orderedJars )
+        {
+            if( ! jar.isFile() )
+            {
+                continue;
+            }
+
+            try( ZipFile zipFile = new ZipFile( jar ) )
+            {
+                final InputStream classFile = findClass( zipFile, className );
+
+                if( classFile != null )
+                {
+                    try
+                    {
+                        final PortalBytecodeReader reader = new PortalBytecodeReader( classFile );
+
+                        return reader.clinitComplete ? reader : null;
+                    }
+                    finally
+                    {
+                        classFile.close();
+                    }
+                }
+            }
+            catch( IOException | RuntimeException e )
+            {
+                // not a readable jar or class file, keep looking
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the elements of a static <code>String[]</code> field, or <code>null</code> if the class could not be
+     * found or its static initializer is not understood.
+     */
+    public static String[] readStringArrayField( File[] jars, String className, String fieldName )
+    {
+        final PortalBytecodeReader reader = open( jars, className );
+
+        if( reader == null )
+        {
+            return null;
+        }
+
+        final Object value = reader.fieldValues.get( fieldName );
+
+        if( value instanceof Object[] )
+        {
+            final Object[] elements = (Object[]) value;
+            final String[] retval = new String[elements.length];
+
+            for( int i = 0; i < elements.length; i++ )
+            {
+                if( ! ( elements[i] instanceof String ) )
+                {
+                    return null;
+                }
+
+                retval[i] = (String) elements[i];
+            }
+
+            return retval;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the string returned by a static no-arg method, or <code>null</code> if the class could not be found or
+     * the method body is not understood.
+     */
+    public static String readStringMethodValue( File[] jars, String className, String methodName )
+    {
+        final PortalBytecodeReader reader = open( jars, className );
+
+        if( reader == null )
+        {
+            return null;
+        }
+
+        final byte[] code = reader.methods.get( methodName + "()Ljava/lang/String;" ); //$NON-NLS-1$
+
+        if( code == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            final Object value = reader.execute( code );
+
+            return value instanceof String ? (String) value : null;
+        }
+        catch( RuntimeException e )
+        {
+            return null;
+        }
+    }
+
+    private String className( int index )
+    {
+        return utf8( ( (Ref) constants[index] ).first );
+    }
+
+    private Object constant( int index )
+    {
+        final Object constant = constants[index];
+
+        if( constant instanceof Ref )
+        {
+            final Ref ref = (Ref) constant;
+
+            return ref.tag == CONSTANT_String ? utf8( ref.first ) : null;
+        }
+
+        return constant;
+    }
+
+    private Value constantValue( int index )
+    {
+        final Object constant = constant( index );
+
+        return constant == null ? UNKNOWN : new Value( constant );
+    }
+
+    /**
+     * Symbolically runs straight-line bytecode, recording static fields assigned on this class. Returns the value of
+     * an <code>areturn</code>, <code>null</code> for a plain <code>return</code>, or {@link #INCOMPLETE} when an
+     * unsupported instruction is hit.
+     */
+    private Object execute( byte[] code )
+    {
+        final List<Value> stack = new ArrayList<Value>();
+        final Map<Integer, Value> locals = new HashMap<Integer, Value>();
+
+        int pc = 0;
+
+        while( pc < code.length )
+        {
+            final int opcode = code[pc] & 0xff;
+
+            if( opcode >= 0x02 && opcode <= 0x08 ) // iconst_m1 to iconst_5
+            {
+                stack.add( new Value( opcode - 0x03 ) );
+                pc++;
+            }
+            else if( opcode >= 0x1a && opcode <= 0x2d ) // xload_n
+            {
+                stack.add( local( locals, ( opcode - 0x1a ) % 4 ) );
+                pc++;
+            }
+            else if( opcode >= 0x15 && opcode <= 0x19 ) // xload
+            {
+                stack.add( local( locals, code[pc + 1] & 0xff ) );
+                pc += 2;
+            }
+            else if( opcode >= 0x3b && opcode <= 0x4e ) // xstore_n
+            {
+                locals.put( ( opcode - 0x3b ) % 4, pop( stack ) );
+                pc++;
+            }
+            else if( opcode >= 0x36 && opcode <= 0x3a ) // xstore
+            {
+                locals.put( code[pc + 1] & 0xff, pop( stack ) );
+                pc += 2;
+            }
+            else
+            {
+                switch( opcode )
+                {
+                    case 0x00: // nop
+                        pc++;
+                        break;
+
+                    case 0x01: // aconst_null
+                        stack.add( new Value( null ) );
+                        pc++;
+                        break;
+
+                    case 0x10: // bipush
+                        stack.add( new Value( (int) code[pc + 1] ) );
+                        pc += 2;
+                        break;
+
+                    case 0x11: // sipush
+                        stack.add( new Value( (int) (short) u2( code, pc + 1 ) ) );
+                        pc += 3;
+                        break;
+
+                    case 0x12: // ldc
+                        stack.add( constantValue( code[pc + 1] & 0xff ) );
+                        pc += 2;
+                        break;
+
+                    case 0x13: // ldc_w
+                        stack.add( constantValue( u2( code, pc + 1 ) ) );
+                        pc += 3;
+                        break;
+
+                    case 0x53: // aastore
+                    {
+                        final Value value = pop( stack );
+                        final Value index = pop( stack );
+                        final Value array = pop( stack );
+
+                        if( array.value instanceof Object[] && index.value instanceof Integer )
+                        {
+                            ( (Object[]) array.value )[(Integer) index.value] = value.value;
+                        }
+
+                        pc++;
+                        break;
+                    }
+
+                    case 0x57: // pop
+                        pop( stack );
+                        pc++;
+                        break;
+
+                    case 0x59: // dup
+                    {
+                        final Value top = pop( stack );
+
+                        stack.add( top );
+                        stack.add( top );
+                        pc++;
+                        break;
+                    }
+
+                    case 0xb0: // areturn
+                        return pop( stack ).value;
+
+                    case 0xb1: // return
+                        return null;
+
+                    case 0xb2: // getstatic
+                    {
+                        final Ref field = (Ref) constants[u2( code, pc + 1 )];
+                        final String name = utf8( ( (Ref) constants[field.second] ).first );
+
+                        if( thisClass.equals( className( field.first ) ) && fieldValues.containsKey( name ) )
+                        {
+                            stack.add( new Value( fieldValues.get( name ) ) );
+                        }
+                        else
+                        {
+                            stack.add( UNKNOWN );
+                        }
+
+                        pc += 3;
+                        break;
+                    }
+
+                    case 0xb3: // putstatic
+                    {
+                        final Ref field = (Ref) constants[u2( code, pc + 1 )];
+                        final String name = utf8( ( (Ref) constants[field.second] ).first );
+                        final Value value = pop( stack );
+
+                        if( thisClass.equals( className( field.first ) ) )
+                        {
+                            if( value == UNKNOWN || value.builder != null )
+                            {
+                                fieldValues.remove( name );
+                            }
+                            else
+                            {
+                                fieldValues.put( name, value.value );
+                            }
+                        }
+
+                        pc += 3;
+                        break;
+                    }
+
+                    case 0xb6: // invokevirtual
+                    case 0xb7: // invokespecial
+                    case 0xb8: // invokestatic
+                    case 0xb9: // invokeinterface
+                    {
+                        invoke( opcode, (Ref) constants[u2( code, pc + 1 )], stack );
+                        pc += opcode == 0xb9 ? 5 : 3;
+                        break;
+                    }
+
+                    case 0xbb: // new
+                    {
+                        if( STRING_BUILDER.equals( className( u2( code, pc + 1 ) ) ) )
+                        {
+                            final Value value = new Value( null );
+
+                            value.builder = new StringBuilder();
+
+                            stack.add( value );
+                        }
+                        else
+                        {
+                            stack.add( UNKNOWN );
+                        }
+
+                        pc += 3;
+                        break;
+                    }
+
+                    case 0xbd: // anewarray
+                    {
+                        final Value count = pop( stack );
+
+                        if( count.value instanceof Integer )
+                        {
+                            stack.add( new Value( new Object[(Integer) count.value] ) );
+                        }
+                        else
+                        {
+                            stack.add( UNKNOWN );
+                        }
+
+                        pc += 3;
+                        break;
+                    }
+
+                    case 0xc0: // checkcast
+                        pc += 3;
+                        break;
+
+                    default:
+                        // branches, arithmetic and anything else are outside the recognized patterns
+                        return INCOMPLETE;
+                }
+            }
+        }
+
+        return INCOMPLETE;
+    }
+
+    private void invoke( int opcode, Ref methodRef, List<Value> stack )
+    {
+        final Ref nameAndType = (Ref) constants[methodRef.second];
+        final String owner = className( methodRef.first );
+        final String name = utf8( nameAndType.first );
+        final String descriptor = utf8( nameAndType.second );
+
+        final int argumentCount = argumentCount( descriptor );
+        final Value[] arguments = new Value[argumentCount];
+
+        for( int i = argumentCount - 1; i >= 0; i-- )
+        {
+            arguments[i] = pop( stack );
+        }
+
+        final Value receiver = opcode == 0xb8 ? null : pop( stack );
+
+        Value result = UNKNOWN;
+
+        if( receiver != null && receiver.builder != null && STRING_BUILDER.equals( owner ) )
+        {
+            if( "<init>".equals( name ) ) //$NON-NLS-1$
+            {
+                if( argumentCount == 1 )
+                {
+                    append( receiver, arguments[0] );
+                }
+                else if( argumentCount > 1 )
+                {
+                    receiver.builder = null;
+                }
+            }
+            else if( "append".equals( name ) && argumentCount == 1 ) //$NON-NLS-1$
+            {
+                append( receiver, arguments[0] );
+                result = receiver;
+            }
+            else if( "toString".equals( name ) && receiver.builder != null ) //$NON-NLS-1$
+            {
+                result = new Value( receiver.builder.toString() );
+            }
+            else
+            {
+                receiver.builder = null;
+            }
+        }
+        else if( opcode == 0xb8 && "java/lang/String".equals( owner ) && "valueOf".equals( name ) && //$NON-NLS-1$ //$NON-NLS-2$
+            argumentCount == 1 && arguments[0] != UNKNOWN && arguments[0].builder == null )
+        {
+            result = new Value( String.valueOf( arguments[0].value ) );
+        }
+
+        if( descriptor.charAt( descriptor.length() - 1 ) != 'V' )
+        {
+            stack.add( result );
+        }
+    }
+
+    private static void append( Value builder, Value argument )
+    {
+        if( builder.builder == null )
+        {
+            return;
+        }
+
+        if( argument == UNKNOWN || argument.builder != null || argument.value instanceof Object[] )
+        {
+            builder.builder = null;
+        }
+        else
+        {
+            builder.builder.append( argument.value );
+        }
+    }
+
+    private static Value local( Map<Integer, Value> locals, int index )
+    {
+        final Value value = locals.get( index );
+
+        return value == null ? UNKNOWN : value;
+    }
+
+    private static Value pop( List<Value> stack )
+    {
+        return stack.isEmpty() ? UNKNOWN : stack.remove( stack.size() - 1 );
+    }
+
+    private static int u2( byte[] code, int index )
+    {
+        return ( ( code[index] & 0xff ) << 8 ) | ( code[index + 1] & 0xff );
+    }
+
+    private String utf8( int index )
+    {
+        return (String) constants[index];
+    }
+
+    private static class Ref
+    {
+        final int first;
+        final int second;
+        final int tag;
+
+        Ref( int tag, int first, int second )
+        {
+            this.tag = tag;
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    private static class Value
+    {
+        StringBuilder builder;
+        final Object value;
+
+        Value( Object value )
+        {
+            this.value = value;
+        }
+    }
+
+}
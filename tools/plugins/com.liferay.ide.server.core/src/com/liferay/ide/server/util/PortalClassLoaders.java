@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.server.util;
+
+import com.liferay.ide.core.util.CoreUtil;
+import com.liferay.ide.server.core.LiferayServerCore;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Reference counted class loaders over a set of portal jars. Callers sharing the same jars (same paths, sizes and
+ * modification times) share one loader. A loader nobody uses is kept for a while so that calls one after another
+ * reuse it; it is closed once it has been idle for {@link #IDLE_TIMEOUT} or as soon as one of its jars changes.
+ *
+ * @author agent
+ */
+class PortalClassLoaders
+{
+
+    /**
+     * Milliseconds an unused loader is kept open
+     */
+    static final long IDLE_TIMEOUT = 60 * 1000;
+
+    private static final Map<String, SharedLoader> loaders = new HashMap<String, SharedLoader>();
+
+    private static final Job sweepJob = new Job( "Closing idle portal class loaders" ) //$NON-NLS-1$
+    {
+        @Override
+        protected IStatus run( IProgressMonitor monitor )
+        {
+            sweep();
+
+            return Status.OK_STATUS;
+        }
+    };
+
+    static
+    {
+        sweepJob.setSystem( true );
+    }
+
+    static synchronized URLClassLoader acquire( File[] jars ) throws MalformedURLException
+    {
+        final String key = createKey( jars );
+
+        SharedLoader shared = loaders.get( key );
+
+        if( shared == null )
+        {
+            final String paths = createPathsKey( jars );
+
+            // one of the jars changed, the idle loaders over the old versions are of no use anymore
+            for( Iterator<SharedLoader> it = loaders.values().iterator(); it.hasNext(); )
+            {
+                final SharedLoader stale = it.next();
+
+                if( stale.refCount == 0 && stale.paths.equals( paths ) )
+                {
+                    it.remove();
+                    close( stale.loader );
+                }
+            }
+
+            final URL[] urls = new URL[jars.length];
+
+            for( int i = 0; i < jars.length; i++ )
+            {
+                urls[i] = jars[i].toURI().toURL();
+            }
+
+            shared = new SharedLoader( key, paths, new URLClassLoader( urls ) );
+
+            loaders.put( key, shared );
+        }
+
+        shared.refCount++;
+
+        return shared.loader;
+    }
+
+    static synchronized void closeAll()
+    {
+        sweepJob.cancel();
+
+        for( SharedLoader shared : loaders.values() )
+        {
+            close( shared.loader );
+        }
+
+        loaders.clear();
+    }
+
+    private static void close( URLClassLoader loader )
+    {
+        try
+        {
+            loader.close();
+        }
+        catch( IOException e )
+        {
+            LiferayServerCore.logError( "Unable to close portal class loader", e ); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Creates a key that identifies the given jars by location, size and modification time so that a loader is never
+     * reused once one of the jars has been replaced on disk.
+     */
+    static String createKey( File[] jars )
+    {
+        final StringBuilder sb = new StringBuilder();
+
+        for( File jar : jars )
+        {
+            sb.append( jar.getAbsolutePath() );
+            sb.append( '|' );
+            sb.append( jar.length() );
+            sb.append( '|' );
+            sb.append( jar.lastModified() );
+            sb.append( ';' );
+        }
+
+        return CoreUtil.createStringDigest( sb.toString() );
+    }
+
+    private static String createPathsKey( File[] jars )
+    {
+        final StringBuilder sb = new StringBuilder();
+
+        for( File jar : jars )
+        {
+            sb.append( jar.getAbsolutePath() );
+            sb.append( ';' );
+        }
+
+        return sb.toString();
+    }
+
+    static synchronized void release( URLClassLoader loader )
+    {
+        for( SharedLoader shared : loaders.values() )
+        {
+            if( shared.loader == loader )
+            {
+                shared.refCount--;
+
+                if( shared.refCount <= 0 )
+                {
+                    shared.refCount = 0;
+                    shared.idleSince = System.currentTimeMillis();
+
+                    sweepJob.schedule( IDLE_TIMEOUT );
+                }
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the loaders that have been idle for {@link #IDLE_TIMEOUT}, and checks again later if some idle ones are
+     * left.
+     */
+    private static synchronized void sweep()
+    {
+        final long now = System.currentTimeMillis();
+
+        long nextSweep = Long.MAX_VALUE;
+
+        for( Iterator<SharedLoader> it = loaders.values().iterator(); it.hasNext(); )
+        {
+            final SharedLoader shared = it.next();
+
+            if( shared.refCount > 0 )
+            {
+                continue;
+            }
+
+            final long idle = now - shared.idleSince;
+
+            if( idle >= IDLE_TIMEOUT )
+            {
+                it.remove();
+                close( shared.loader );
+            }
+            else
+            {
+                nextSweep = Math.min( nextSweep, IDLE_TIMEOUT - idle );
+            }
+        }
+
+        if( nextSweep != Long.MAX_VALUE )
+        {
+            sweepJob.schedule( nextSweep );
+        }
+    }
+
+    private static class SharedLoader
+    {
+        long idleSince;
+        final String key;
+        final URLClassLoader loader;
+        final String paths;
+        int refCount;
+
+        SharedLoader( String key, String paths, URLClassLoader loader )
+        {
+            this.key = key;
+            this.paths = paths;
+            this.loader = loader;
+        }
+    }
+
+}
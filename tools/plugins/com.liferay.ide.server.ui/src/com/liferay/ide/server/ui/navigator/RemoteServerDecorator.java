@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.server.ui.navigator;
+
+import com.liferay.ide.core.remote.RequestStats;
+import com.liferay.ide.server.remote.RemoteServerBehavior;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.viewers.IDecoration;
+import org.eclipse.jface.viewers.ILightweightLabelDecorator;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.wst.server.core.IServer;
+
+/**
+ * Shows whether a started remote server pushes its state changes or is being polled, along with the request rate and
+ * average latency of its own server manager connection. The decorated servers are checked again periodically and
+ * their labels are only updated when that text changed.
+ *
+ * @author agent
+ */
+public class RemoteServerDecorator extends LabelProvider implements ILightweightLabelDecorator
+{
+
+    private static final long REFRESH_DELAY = 5000;
+
+    private final Job refreshJob = new Job( "Updating remote server labels" ) //$NON-NLS-1$
+    {
+        @Override
+        protected IStatus run( IProgressMonitor monitor )
+        {
+            refresh();
+
+            return Status.OK_STATUS;
+        }
+    };
+
+    private final Map<IServer, String> suffixes = new ConcurrentHashMap<IServer, String>();
+
+    public RemoteServerDecorator()
+    {
+        refreshJob.setSystem( true );
+    }
+
+    public void decorate( Object element, IDecoration decoration )
+    {
+        if( !( element instanceof IServer ) )
+        {
+            return;
+        }
+
+        final IServer server = (IServer) element;
+
+        final String suffix = getSuffix( server );
+
+        if( suffix == null )
+        {
+            suffixes.remove( server );
+
+            return;
+        }
+
+        suffixes.put( server, suffix );
+
+        decoration.addSuffix( suffix );
+
+        if( refreshJob.getState() == Job.NONE )
+        {
+            refreshJob.schedule( REFRESH_DELAY );
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        refreshJob.cancel();
+        suffixes.clear();
+
+        super.dispose();
+    }
+
+    private static String getSuffix( IServer server )
+    {
+        if( server.getServerState() != IServer.STATE_STARTED )
+        {
+            return null;
+        }
+
+        final RemoteServerBehavior behavior =
+            (RemoteServerBehavior) server.loadAdapter( RemoteServerBehavior.class, null );
+
+        if( behavior == null )
+        {
+            return null;
+        }
+
+        final RequestStats stats = behavior.getRequestStats();
+
+        final StringBuilder suffix = new StringBuilder( " [" );
+
+        suffix.append( behavior.isEventChannelConnected() ? "Push updates" : "Polling" );
+
+        if( stats != null )
+        {
+            suffix.append( String.format( ", %.1f req/min, %d ms", stats.getRequestsPerMinute(), stats.getAverageLatency() ) );
+        }
+
+        suffix.append( "]" );
+
+        return suffix.toString();
+    }
+
+    private void refresh()
+    {
+        final List<IServer> changed = new ArrayList<IServer>();
+
+        for( Map.Entry<IServer, String> entry : suffixes.entrySet() )
+        {
+            final String suffix = getSuffix( entry.getKey() );
+
+            if( suffix == null )
+            {
+                suffixes.remove( entry.getKey() );
+                changed.add( entry.getKey() );
+            }
+            else if( ! suffix.equals( entry.getValue() ) )
+            {
+                entry.setValue( suffix );
+                changed.add( entry.getKey() );
+            }
+        }
+
+        if( ! suffixes.isEmpty() )
+        {
+            refreshJob.schedule( REFRESH_DELAY );
+        }
+
+        if( changed.isEmpty() )
+        {
+            return;
+        }
+
+        final Display display = Display.getDefault();
+
+        if( ! display.isDisposed() )
+        {
+            display.asyncExec( new Runnable()
+            {
+                public void run()
+                {
+                    fireLabelProviderChanged( new LabelProviderChangedEvent( RemoteServerDecorator.this,
+                        changed.toArray() ) );
+                }
+            } );
+        }
+    }
+
+}
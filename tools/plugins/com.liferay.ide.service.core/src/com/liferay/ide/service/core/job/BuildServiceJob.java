@@ -21,6 +21,7 @@ import com.liferay.ide.project.core.IProjectBuilder;
 import com.liferay.ide.service.core.ServiceCore;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
@@ -46,6 +47,9 @@ public class BuildServiceJob extends Job
         this.project = project;
 
         setUser( true );
+
+        // builders only refresh the files they changed, so the project is all that needs to be locked
+        setRule( project );
     }
 
     protected IProject getProject()
@@ -96,7 +100,7 @@ public class BuildServiceJob extends Job
 
         try
         {
-            ResourcesPlugin.getWorkspace().run( workspaceRunner, monitor );
+            ResourcesPlugin.getWorkspace().run( workspaceRunner, getProject(), IWorkspace.AVOID_UPDATE, monitor );
         }
         catch( CoreException e1 )
         {
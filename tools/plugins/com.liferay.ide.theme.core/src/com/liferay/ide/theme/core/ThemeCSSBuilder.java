@@ -22,17 +22,13 @@ import com.liferay.ide.core.IWebProject;
 import com.liferay.ide.core.LiferayCore;
 import com.liferay.ide.core.util.CoreUtil;
 import com.liferay.ide.core.util.StringPool;
-import com.liferay.ide.project.core.facet.IPluginProjectDataModelProperties;
 import com.liferay.ide.sdk.core.ISDKConstants;
 import com.liferay.ide.sdk.core.SDK;
 import com.liferay.ide.sdk.core.SDKUtil;
 import com.liferay.ide.theme.core.operation.ThemeDescriptorHelper;
-import com.liferay.ide.theme.core.util.BuildHelper;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -49,8 +45,6 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
 
 /**
  * @author Gregory Amerson
@@ -167,74 +161,16 @@ public class ThemeCSSBuilder extends IncrementalProjectBuilder
         }
     }
 
-    private BuildHelper buildHelper;
-
-    public ThemeCSSBuilder()
-    {
-        super();
-
-        this.buildHelper = new BuildHelper();
-    }
-
     protected void applyDiffsDeltaToDocroot(
         final IResourceDelta delta, final IContainer docroot, final IProgressMonitor monitor )
     {
-        int deltaKind = delta.getKind();
-
-        switch( deltaKind )
+        try
         {
-            case IResourceDelta.REMOVED_PHANTOM:
-                break;
+            ThemeDiffMerger.get( getProject() ).addDelta( delta );
         }
-
-        final IPath path = CoreUtil.getResourceLocation( docroot );
-        // final IPath restoreLocation = getRestoreLocation(docroot);
-
-        final ILiferayProject liferayProject = LiferayCore.create( getProject() );
-
-        final String themeParent = liferayProject.getProperty( "theme.parent", "_styled" );
-
-        final ILiferayPortal portal = liferayProject.adapt( ILiferayPortal.class );
-
-        if( portal != null )
+        catch( CoreException e )
         {
-            final IPath themesPath = portal.getAppServerPortalDir().append( "html/themes" );
-            final List<IPath> restorePaths = new ArrayList<IPath>();
-
-            for( int i = 0; i < IPluginProjectDataModelProperties.THEME_PARENTS.length; i++ )
-            {
-                if( IPluginProjectDataModelProperties.THEME_PARENTS[i].equals( themeParent ) )
-                {
-                    restorePaths.add( themesPath.append( IPluginProjectDataModelProperties.THEME_PARENTS[i] ) );
-                }
-                else
-                {
-                    if( restorePaths.size() > 0 )
-                    {
-                        restorePaths.add( themesPath.append( IPluginProjectDataModelProperties.THEME_PARENTS[i] ) );
-                    }
-                }
-            }
-
-            new Job( "publish theme delta" ) //$NON-NLS-1$
-            {
-                @Override
-                protected IStatus run( IProgressMonitor monitor )
-                {
-                    buildHelper.publishDelta( delta, path, restorePaths.toArray( new IPath[0] ), monitor );
-
-                    try
-                    {
-                        docroot.refreshLocal( IResource.DEPTH_INFINITE, monitor );
-                    }
-                    catch( Exception e )
-                    {
-                        ThemeCore.logError( e );
-                    }
-
-                    return Status.OK_STATUS;
-                }
-            }.schedule();
+            ThemeCore.logError( e );
         }
     }
 
@@ -333,14 +269,7 @@ public class ThemeCSSBuilder extends IncrementalProjectBuilder
 
                             if( relPath != null && relPath.segmentCount() == 1 )
                             {
-                                try
-                                {
-                                    compileTheme( resource.getProject() );
-                                }
-                                catch( CoreException e )
-                                {
-                                    ThemeCore.logError( "Error compiling theme.", e ); //$NON-NLS-1$
-                                }
+                                ThemeDiffMerger.get( resource.getProject() ).requestFullMerge();
                             }
                         }
                     }
@@ -15,6 +15,7 @@
 
 package com.liferay.ide.theme.core;
 
+import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Plugin;
@@ -90,6 +91,9 @@ public class ThemeCore extends Plugin
         super.start( context );
         plugin = this;
 
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(
+            ThemeDiffMerger.projectListener, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE );
+
         // ResourcesPlugin.getWorkspace().addResourceChangeListener(
         // themeDiffResourceListener, IResourceChangeEvent.POST_CHANGE);
     }
@@ -103,6 +107,8 @@ public class ThemeCore extends Plugin
         plugin = null;
         super.stop( context );
 
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener( ThemeDiffMerger.projectListener );
+
         if( themeDiffResourceListener != null )
         {
             ResourcesPlugin.getWorkspace().removeResourceChangeListener( themeDiffResourceListener );
@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+
+package com.liferay.ide.theme.core;
+
+import com.liferay.ide.core.ILiferayPortal;
+import com.liferay.ide.core.ILiferayProject;
+import com.liferay.ide.core.IWebProject;
+import com.liferay.ide.core.LiferayCore;
+import com.liferay.ide.core.util.CoreUtil;
+import com.liferay.ide.project.core.facet.IPluginProjectDataModelProperties;
+import com.liferay.ide.theme.core.util.BuildHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * Merges _diffs changes of a theme project into its docroot without running the SDK compile-theme target. Changes are
+ * collected across resource change events and merged by one job that waits {@link #MERGE_DELAY} ms after the last
+ * change, so a burst of saves results in a single merge. The parent theme and build.xml time stamp the docroot was
+ * last fully built from are kept as a persistent project property, along with the modification stamp of every overlay
+ * copied since; only when the parent theme or build.xml changes, also while the IDE was closed, is the full Ant build
+ * run again. Mergers of closed or deleted projects are dropped.
+ *
+ * @author agent
+ */
+class ThemeDiffMerger
+{
+
+    static final long MERGE_DELAY = 500;
+
+    // parent theme and build.xml time stamp of the last full build
+    private static final QualifiedName MERGED_STATE = new QualifiedName( ThemeCore.PLUGIN_ID, "mergedDiffsState" ); //$NON-NLS-1$
+
+    private static final ConcurrentMap<IProject, ThemeDiffMerger> mergers =
+        new ConcurrentHashMap<IProject, ThemeDiffMerger>();
+
+    /**
+     * Drops the merger of a project that is closed or deleted, registered for PRE_CLOSE and PRE_DELETE.
+     */
+    static final IResourceChangeListener projectListener = new IResourceChangeListener()
+    {
+        public void resourceChanged( IResourceChangeEvent event )
+        {
+            if( event.getResource() instanceof IProject )
+            {
+                final ThemeDiffMerger merger = mergers.remove( event.getResource() );
+
+                if( merger != null )
+                {
+                    merger.job.cancel();
+                }
+            }
+        }
+    };
+
+    private final BuildHelper buildHelper = new BuildHelper();
+    private final Set<IPath> changedPaths = new LinkedHashSet<IPath>();
+    private boolean fullMerge;
+    private final WorkspaceJob job;
+    private String mergedState;
+    private final Map<IPath, Long> overlays = new HashMap<IPath, Long>();
+    private final IProject project;
+    private final Set<IPath> removedPaths = new LinkedHashSet<IPath>();
+
+    private ThemeDiffMerger( IProject project )
+    {
+        this.project = project;
+
+        this.job = new WorkspaceJob( "Merging theme diffs for " + project.getName() ) //$NON-NLS-1$
+        {
+            @Override
+            public IStatus runInWorkspace( IProgressMonitor monitor ) throws CoreException
+            {
+                return merge( monitor );
+            }
+        };
+
+        this.job.setSystem( true );
+    }
+
+    static ThemeDiffMerger get( IProject project )
+    {
+        ThemeDiffMerger merger = mergers.get( project );
+
+        if( merger == null )
+        {
+            mergers.putIfAbsent( project, new ThemeDiffMerger( project ) );
+            merger = mergers.get( project );
+        }
+
+        return merger;
+    }
+
+    /**
+     * Collects the file changes below the given _diffs delta and (re)schedules the merge.
+     */
+    void addDelta( IResourceDelta diffsDelta ) throws CoreException
+    {
+        synchronized( this )
+        {
+            diffsDelta.accept( new IResourceDeltaVisitor()
+            {
+                public boolean visit( IResourceDelta delta )
+                {
+                    final IResource resource = delta.getResource();
+
+                    if( resource.getType() != IResource.FILE )
+                    {
+                        return true;
+                    }
+
+                    final IPath path = resource.getProjectRelativePath();
+
+                    if( delta.getKind() == IResourceDelta.REMOVED )
+                    {
+                        changedPaths.remove( path );
+                        removedPaths.add( path );
+                    }
+                    else if( delta.getKind() == IResourceDelta.ADDED ||
+                        ( delta.getFlags() & ( IResourceDelta.CONTENT | IResourceDelta.REPLACED ) ) != 0 )
+                    {
+                        removedPaths.remove( path );
+                        changedPaths.add( path );
+                    }
+
+                    return false;
+                }
+            } );
+        }
+
+        job.schedule( MERGE_DELAY );
+    }
+
+    private String getParentTheme( ILiferayProject liferayProject, ILiferayPortal portal )
+    {
+        final String themeParent = liferayProject.getProperty( "theme.parent", "_styled" ); //$NON-NLS-1$ //$NON-NLS-2$
+
+        return portal != null ? themeParent + "@" + portal.getAppServerPortalDir().toPortableString() : themeParent; //$NON-NLS-1$
+    }
+
+    private IPath[] getRestorePaths( ILiferayProject liferayProject, ILiferayPortal portal )
+    {
+        final List<IPath> restorePaths = new ArrayList<IPath>();
+
+        if( portal != null )
+        {
+            final String themeParent = liferayProject.getProperty( "theme.parent", "_styled" ); //$NON-NLS-1$ //$NON-NLS-2$
+            final IPath themesPath = portal.getAppServerPortalDir().append( "html/themes" ); //$NON-NLS-1$
+
+            for( int i = 0; i < IPluginProjectDataModelProperties.THEME_PARENTS.length; i++ )
+            {
+                if( IPluginProjectDataModelProperties.THEME_PARENTS[i].equals( themeParent ) ||
+                    restorePaths.size() > 0 )
+                {
+                    restorePaths.add( themesPath.append( IPluginProjectDataModelProperties.THEME_PARENTS[i] ) );
+                }
+            }
+        }
+
+        return restorePaths.toArray( new IPath[0] );
+    }
+
+    private IStatus merge( IProgressMonitor monitor ) throws CoreException
+    {
+        final List<IPath> changed;
+        final List<IPath> removed;
+        final boolean full;
+
+        synchronized( this )
+        {
+            changed = new ArrayList<IPath>( changedPaths );
+            removed = new ArrayList<IPath>( removedPaths );
+            full = fullMerge;
+
+            changedPaths.clear();
+            removedPaths.clear();
+            fullMerge = false;
+        }
+
+        final ILiferayProject liferayProject = LiferayCore.create( project );
+        final IWebProject webproject = LiferayCore.create( IWebProject.class, project );
+
+        if( liferayProject == null || webproject == null || webproject.getDefaultDocrootFolder() == null )
+        {
+            return Status.OK_STATUS;
+        }
+
+        final ILiferayPortal portal = liferayProject.adapt( ILiferayPortal.class );
+        final String currentState =
+            getParentTheme( liferayProject, portal ) + ";" + project.getFile( "build.xml" ).getLocalTimeStamp(); //$NON-NLS-1$ //$NON-NLS-2$
+
+        if( mergedState == null )
+        {
+            // the state of the last full build, possibly from an earlier session; none means build in full first
+            mergedState = project.getPersistentProperty( MERGED_STATE );
+        }
+
+        if( full || ! currentState.equals( mergedState ) )
+        {
+            final IStatus status = ThemeCSSBuilder.compileTheme( project );
+
+            // a failed build is retried in full by the next merge
+            mergedState = status.isOK() ? currentState : null;
+            overlays.clear();
+
+            project.setPersistentProperty( MERGED_STATE, mergedState );
+
+            return status;
+        }
+
+        final List<IFile> changedFiles = new ArrayList<IFile>();
+
+        for( IPath path : changed )
+        {
+            final IFile file = project.getFile( path );
+            final Long copiedStamp = overlays.get( path );
+
+            if( file.exists() && ( copiedStamp == null || copiedStamp != file.getModificationStamp() ) )
+            {
+                changedFiles.add( file );
+            }
+        }
+
+        if( changedFiles.isEmpty() && removed.isEmpty() )
+        {
+            return Status.OK_STATUS;
+        }
+
+        final IFolder docroot = webproject.getDefaultDocrootFolder();
+
+        final IStatus[] stats =
+            buildHelper.publishDiffs(
+                changedFiles, removed, CoreUtil.getResourceLocation( docroot ),
+                getRestorePaths( liferayProject, portal ), monitor );
+
+        for( IFile file : changedFiles )
+        {
+            overlays.put( file.getProjectRelativePath(), file.getModificationStamp() );
+        }
+
+        for( IPath path : removed )
+        {
+            overlays.remove( path );
+        }
+
+        ThemeCSSBuilder.ensureLookAndFeelFileExists( project );
+
+        docroot.refreshLocal( IResource.DEPTH_INFINITE, monitor );
+
+        if( stats.length > 0 )
+        {
+            return new MultiStatus( ThemeCore.PLUGIN_ID, 0, stats, "Unable to merge theme diffs", null ); //$NON-NLS-1$
+        }
+
+        return Status.OK_STATUS;
+    }
+
+    /**
+     * Schedules a full build of the theme through the SDK, e.g. after build.xml changed.
+     */
+    void requestFullMerge()
+    {
+        synchronized( this )
+        {
+            fullMerge = true;
+        }
+
+        job.schedule( MERGE_DELAY );
+    }
+
+}
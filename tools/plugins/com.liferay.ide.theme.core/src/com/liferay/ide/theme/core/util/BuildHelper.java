@@ -25,8 +25,18 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.commons.io.FileUtils;
 import org.eclipse.core.resources.IFile;
@@ -51,11 +61,13 @@ import org.eclipse.wst.server.core.internal.ProgressUtil;
 public class BuildHelper
 {
 
-    // size of the buffer
-    private static final int BUFFER = 65536;
+    // copies of whole trees are spread over at most this many threads
+    private static final int COPY_PARALLELISM = Math.min( 4, Runtime.getRuntime().availableProcessors() );
 
-    // the buffer
-    private static byte[] buf = new byte[BUFFER];
+    private static final ForkJoinPool copyPool = new ForkJoinPool( COPY_PARALLELISM );
+
+    // below this many files a copy task is not split any further
+    private static final int COPY_THRESHOLD = 32;
 
     private static final IStatus[] EMPTY_STATUS = new IStatus[0];
 
@@ -95,8 +107,6 @@ public class BuildHelper
      */
     private void copyFile( InputStream in, IPath to, long ts, IFile mf ) throws CoreException
     {
-        OutputStream out = null;
-
         File tempFile = null;
         File tempFileParentDir = null;
 
@@ -117,18 +127,34 @@ public class BuildHelper
 
             tempFile = File.createTempFile( TEMPFILE_PREFIX, "." + to.getFileExtension(), tempFileParentDir ); //$NON-NLS-1$
 
-            out = new FileOutputStream( tempFile );
+            if( in instanceof FileInputStream )
+            {
+                // let the file system copy local files without going through a buffer
+                try( final FileChannel source = ( (FileInputStream) in ).getChannel();
+                     final FileChannel target = new FileOutputStream( tempFile ).getChannel() )
+                {
+                    final long size = source.size();
+                    long position = 0;
 
-            int avail = in.read( buf );
-            while( avail > 0 )
+                    while( position < size )
+                    {
+                        final long transferred = source.transferTo( position, size - position, target );
+
+                        // the source shrank while it was being copied
+                        if( transferred <= 0 )
+                        {
+                            break;
+                        }
+
+                        position += transferred;
+                    }
+                }
+            }
+            else
             {
-                out.write( buf, 0, avail );
-                avail = in.read( buf );
+                Files.copy( in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
             }
 
-            out.close();
-            out = null;
-
             moveTempFile( tempFile, file );
 
             if( ts != IResource.NULL_STAMP && ts != 0 )
@@ -154,15 +180,6 @@ public class BuildHelper
             {
                 // ignore
             }
-            try
-            {
-                if( out != null )
-                    out.close();
-            }
-            catch( Exception ex )
-            {
-                // ignore
-            }
         }
     }
 
@@ -268,13 +285,41 @@ public class BuildHelper
 
         monitor = ProgressUtil.getMonitorFor( monitor );
 
+        List<FileCopy> copies = new ArrayList<FileCopy>();
+        List<IStatus> status = new ArrayList<IStatus>( 2 );
+
+        addArrayToList( status, smartDiff( resources, path, ignore, copies, monitor ) );
+
+        if( monitor.isCanceled() )
+            return new IStatus[] { Status.CANCEL_STATUS };
+
+        addArrayToList( status, copyFiles( copies, monitor ) );
+
+        IStatus[] stat = new IStatus[status.size()];
+        status.toArray( stat );
+        return stat;
+    }
+
+    /**
+     * Removes target files that no longer have a source and collects the files that are new or newer, the copies are
+     * made afterwards by {@link #copyFiles(List, IProgressMonitor)}.
+     */
+    private IStatus[] smartDiff(
+        IResource[] resources, IPath path, IPath[] ignore, List<FileCopy> copies, IProgressMonitor monitor )
+    {
+        if( resources == null )
+            return EMPTY_STATUS;
+
         List<IStatus> status = new ArrayList<IStatus>( 2 );
         File toDir = path.toFile();
         int fromSize = resources.length;
-        String[] fromFileNames = new String[fromSize];
+
+        // source names mapped to whether they are folders
+        Map<String, Boolean> fromFileNames = new HashMap<String, Boolean>();
         for( int i = 0; i < fromSize; i++ )
-            fromFileNames[i] = resources[i].getName();
-        List<String> ignoreFileNames = new ArrayList<String>();
+            fromFileNames.put( resources[i].getName(), resources[i] instanceof IFolder );
+
+        Set<String> ignoreFileNames = new HashSet<String>();
         if( ignore != null )
         {
             for( int i = 0; i < ignore.length; i++ )
@@ -286,9 +331,8 @@ public class BuildHelper
             }
         }
 
-        // cache files and file names for performance
-        File[] toFiles = null;
-        String[] toFileNames = null;
+        // last modified dates of the target files that are kept, by name
+        Map<String, Long> toFileMod = new HashMap<String, Long>();
 
         boolean foundExistingDir = false;
         if( toDir.exists() )
@@ -296,54 +340,35 @@ public class BuildHelper
             if( toDir.isDirectory() )
             {
                 foundExistingDir = true;
-                toFiles = toDir.listFiles();
-                int toSize = toFiles.length;
-                toFileNames = new String[toSize];
+                File[] toFiles = toDir.listFiles();
+                int toSize = toFiles == null ? 0 : toFiles.length;
 
                 // check if this exact file exists in the new directory
                 for( int i = 0; i < toSize; i++ )
                 {
-                    toFileNames[i] = toFiles[i].getName();
+                    String toFileName = toFiles[i].getName();
                     boolean isDir = toFiles[i].isDirectory();
-                    boolean found = false;
-                    for( int j = 0; j < fromSize; j++ )
+                    Boolean fromIsDir = fromFileNames.get( toFileName );
+
+                    if( fromIsDir != null && fromIsDir == isDir )
                     {
-                        if( toFileNames[i].equals( fromFileNames[j] ) && isDir == resources[j] instanceof IFolder )
-                        {
-                            found = true;
-                            break;
-                        }
+                        toFileMod.put( toFileName, toFiles[i].lastModified() );
                     }
-
                     // delete file if it can't be found or isn't the correct type
-                    if( !found )
+                    // if should be preserved, don't delete and don't try to copy
+                    else if( !ignoreFileNames.contains( toFileName ) )
                     {
-                        boolean delete = true;
-                        // if should be preserved, don't delete and don't try to copy
-                        for( String preserveFileName : ignoreFileNames )
+                        if( isDir )
                         {
-                            if( toFileNames[i].equals( preserveFileName ) )
-                            {
-                                delete = false;
-                                break;
-                            }
+                            IStatus[] stat = deleteDirectory( toFiles[i], null );
+                            addArrayToList( status, stat );
                         }
-                        if( delete )
+                        else
                         {
-                            if( isDir )
-                            {
-                                IStatus[] stat = deleteDirectory( toFiles[i], null );
-                                addArrayToList( status, stat );
-                            }
-                            else
-                            {
-                                if( !toFiles[i].delete() )
-                                    status.add( new Status( IStatus.ERROR, ThemeCore.PLUGIN_ID, 0, NLS.bind(
-                                        Messages.errorDeleting, toFiles[i].getAbsolutePath() ), null ) );
-                            }
+                            if( !toFiles[i].delete() )
+                                status.add( new Status( IStatus.ERROR, ThemeCore.PLUGIN_ID, 0, NLS.bind(
+                                    Messages.errorDeleting, toFiles[i].getAbsolutePath() ), null ) );
                         }
-                        toFiles[i] = null;
-                        toFileNames[i] = null;
                     }
                 }
             }
@@ -373,44 +398,21 @@ public class BuildHelper
 
         monitor.worked( 50 );
 
-        // cycle through files and only copy when it doesn't exist
-        // or is newer
-        if( toFiles == null )
-        {
-            toFiles = toDir.listFiles();
-            if( toFiles == null )
-                toFiles = new File[0];
-        }
-        int toSize = toFiles.length;
-
         int dw = 0;
-        if( toSize > 0 )
-            dw = 500 / toSize;
-
-        // cache file names and last modified dates for performance
-        if( toFileNames == null )
-            toFileNames = new String[toSize];
-        long[] toFileMod = new long[toSize];
-        for( int i = 0; i < toSize; i++ )
-        {
-            if( toFiles[i] != null )
-            {
-                if( toFileNames[i] != null )
-                    toFileNames[i] = toFiles[i].getName();
-                toFileMod[i] = toFiles[i].lastModified();
-            }
-        }
+        if( fromSize > 0 )
+            dw = 500 / fromSize;
 
+        // cycle through files and only copy when it doesn't exist
+        // or is newer
         for( int i = 0; i < fromSize; i++ )
         {
             IResource current = resources[i];
-            String name = fromFileNames[i];
+            String name = current.getName();
             boolean currentIsDir = current instanceof IFolder;
 
             if( !currentIsDir )
             {
                 // check if this is a new or newer file
-                boolean copy = true;
                 IFile mf = (IFile) current;
 
                 long mod = -1;
@@ -425,25 +427,11 @@ public class BuildHelper
                     mod = file2.lastModified();
                 }
 
-                for( int j = 0; j < toSize; j++ )
-                {
-                    if( name.equals( toFileNames[j] ) && mod == toFileMod[j] )
-                    {
-                        copy = false;
-                        break;
-                    }
-                }
+                Long toMod = toFileMod.get( name );
 
-                if( copy )
+                if( toMod == null || toMod != mod )
                 {
-                    try
-                    {
-                        copyFile( mf, path.append( name ) );
-                    }
-                    catch( CoreException ce )
-                    {
-                        status.add( ce.getStatus() );
-                    }
+                    copies.add( new FileCopy( mf, path.append( name ) ) );
                 }
                 monitor.worked( dw );
             }
@@ -479,15 +467,16 @@ public class BuildHelper
                 }
                 monitor.subTask( NLS.bind( Messages.copyingTask, new String[] { name, name } ) );
                 IStatus[] stat =
-                    publishSmart(
-                        children, path.append( name ), ignoreChildren, ProgressUtil.getSubMonitorFor( monitor, dw ) );
+                    smartDiff(
+                        children, path.append( name ), ignoreChildren, copies,
+                        ProgressUtil.getSubMonitorFor( monitor, dw ) );
                 addArrayToList( status, stat );
             }
         }
         if( monitor.isCanceled() )
             return new IStatus[] { Status.CANCEL_STATUS };
 
-        monitor.worked( 500 - dw * toSize );
+        monitor.worked( 500 - dw * fromSize );
         monitor.done();
 
         IStatus[] stat = new IStatus[status.size()];
@@ -635,6 +624,78 @@ public class BuildHelper
         return stat;
     }
 
+    /**
+     * Publishes individual _diffs files instead of a resource delta, for callers that collect changes over several
+     * resource change events. Removed files are restored from the first of the restore paths that has them.
+     *
+     * @param changedFiles
+     *            _diffs files that were added or changed
+     * @param removedPaths
+     *            project relative paths of _diffs files that were removed
+     * @param path
+     *            the path to publish to
+     * @param monitor
+     *            a progress monitor, or <code>null</code> if progress reporting and cancellation are not desired
+     * @return a possibly-empty array of error and warning status
+     */
+    public IStatus[] publishDiffs(
+        List<IFile> changedFiles, List<IPath> removedPaths, IPath path, IPath[] restorePaths, IProgressMonitor monitor )
+    {
+        monitor = ProgressUtil.getMonitorFor( monitor );
+
+        List<FileCopy> copies = new ArrayList<FileCopy>();
+        List<IStatus> status = new ArrayList<IStatus>( 2 );
+
+        for( IFile file : changedFiles )
+        {
+            if( monitor.isCanceled() )
+            {
+                return new IStatus[] { Status.CANCEL_STATUS };
+            }
+
+            IPath diffsRelativePath = getDiffsRelativePath( file.getProjectRelativePath() );
+
+            if( diffsRelativePath == null )
+            {
+                continue;
+            }
+
+            IPath path2 = path.append( diffsRelativePath );
+            File f = path2.toFile().getParentFile();
+
+            if( !f.exists() )
+            {
+                f.mkdirs();
+            }
+
+            copies.add( new FileCopy( file, path2 ) );
+        }
+
+        addArrayToList( status, copyFiles( copies, monitor ) );
+
+        for( IPath removedPath : removedPaths )
+        {
+            if( monitor.isCanceled() )
+            {
+                status.add( Status.CANCEL_STATUS );
+                break;
+            }
+
+            try
+            {
+                deleteFile( path, removedPath, restorePaths );
+            }
+            catch( CoreException ce )
+            {
+                status.add( ce.getStatus() );
+            }
+        }
+
+        IStatus[] stat = new IStatus[status.size()];
+        status.toArray( stat );
+        return stat;
+    }
+
     private static IPath getDiffsRelativePath(IPath diffsPath)
     {
         IPath diffsRelativePath = null;
@@ -653,7 +714,11 @@ public class BuildHelper
 
     private static void deleteFile( IPath path, IFile file, IPath[] restorePaths ) throws CoreException
     {
-        IPath diffsPath = file.getProjectRelativePath();
+        deleteFile( path, file.getProjectRelativePath(), restorePaths );
+    }
+
+    private static void deleteFile( IPath path, IPath diffsPath, IPath[] restorePaths ) throws CoreException
+    {
         IPath diffsRelativePath = getDiffsRelativePath( diffsPath );
 
         if (diffsRelativePath != null)
@@ -703,7 +768,19 @@ public class BuildHelper
         }
 
         IFile file = (IFile) mf.getAdapter( IFile.class );
-        if( file != null )
+        if( file != null && file.getLocation() != null && file.getLocation().toFile().isFile() )
+        {
+            try
+            {
+                copyFile( new FileInputStream( file.getLocation().toFile() ), path, file.getLocalTimeStamp(), mf );
+            }
+            catch( IOException e )
+            {
+                throw new CoreException( new Status( IStatus.ERROR, ThemeCore.PLUGIN_ID, 0, NLS.bind(
+                    Messages.errorReading, file.getLocation().toOSString() ), e ) );
+            }
+        }
+        else if( file != null )
             copyFile( file.getContents(), path, file.getLocalTimeStamp(), mf );
         else
         {
@@ -754,11 +831,28 @@ public class BuildHelper
 
         monitor = ProgressUtil.getMonitorFor( monitor );
 
+        List<FileCopy> copies = new ArrayList<FileCopy>();
+        List<IStatus> status = new ArrayList<IStatus>( 2 );
+
+        addArrayToList( status, collectFull( resources, path, copies, monitor ) );
+
+        if( !monitor.isCanceled() )
+        {
+            addArrayToList( status, copyFiles( copies, monitor ) );
+        }
+
+        IStatus[] stat = new IStatus[status.size()];
+        status.toArray( stat );
+        return stat;
+    }
+
+    private IStatus[] collectFull( IResource[] resources, IPath path, List<FileCopy> copies, IProgressMonitor monitor )
+    {
         List<IStatus> status = new ArrayList<IStatus>( 2 );
         int size = resources.length;
         for( int i = 0; i < size; i++ )
         {
-            IStatus[] stat = copy( resources[i], path, monitor );
+            IStatus[] stat = collect( resources[i], path, copies, monitor );
             addArrayToList( status, stat );
 
             if( monitor.isCanceled() )
@@ -772,7 +866,7 @@ public class BuildHelper
         return stat;
     }
 
-    private IStatus[] copy( IResource resource, IPath path, IProgressMonitor monitor )
+    private IStatus[] collect( IResource resource, IPath path, List<FileCopy> copies, IProgressMonitor monitor )
     {
         if( monitor != null && monitor.isCanceled() )
         {
@@ -787,7 +881,7 @@ public class BuildHelper
             IStatus[] stat;
             try
             {
-                stat = publishFull( folder.members(), path, monitor );
+                stat = collectFull( folder.members(), path, copies, monitor );
                 addArrayToList( status, stat );
             }
             catch( CoreException e )
@@ -809,35 +903,14 @@ public class BuildHelper
 
                 File f = path.toFile().getParentFile();
 
-                if ( f.exists() )
+                // Create the parent directory.
+                if ( f.exists() || f.mkdirs() )
                 {
-                    try
-                    {
-                        copyFile( mf, path );
-                    }
-                    catch( CoreException ce )
-                    {
-                        status.add( ce.getStatus() );
-                    }
+                    copies.add( new FileCopy( mf, path ) );
                 }
                 else
                 {
-                    // Create the parent directory.
-                    if ( f.mkdirs() )
-                    {
-                        try
-                        {
-                            copyFile( mf, path );
-                        }
-                        catch( CoreException ce )
-                        {
-                            status.add( ce.getStatus() );
-                        }
-                    }
-                    else
-                    {
-                        status.add(new Status(IStatus.ERROR, ThemeCore.PLUGIN_ID, 0, NLS.bind(Messages.errorMkdir, f.getAbsolutePath()), null));
-                    }
+                    status.add(new Status(IStatus.ERROR, ThemeCore.PLUGIN_ID, 0, NLS.bind(Messages.errorMkdir, f.getAbsolutePath()), null));
                 }
             }
         }
@@ -847,6 +920,32 @@ public class BuildHelper
         return stat;
     }
 
+    /**
+     * Copies the collected files, spreading large sets over the copy pool. Target directories must already exist.
+     */
+    private IStatus[] copyFiles( List<FileCopy> copies, IProgressMonitor monitor )
+    {
+        if( copies.isEmpty() )
+            return EMPTY_STATUS;
+
+        List<IStatus> status = Collections.synchronizedList( new ArrayList<IStatus>( 2 ) );
+
+        CopyTask task = new CopyTask( copies, 0, copies.size(), status, monitor );
+
+        if( copies.size() <= COPY_THRESHOLD )
+        {
+            task.compute();
+        }
+        else
+        {
+            copyPool.invoke( task );
+        }
+
+        IStatus[] stat = new IStatus[status.size()];
+        status.toArray( stat );
+        return stat;
+    }
+
     /**
      * Accepts an IModuleResource array which is expected to contain a single IModuleFile resource and copies it to the
      * specified path, which should include the name of the file to write. If the array contains more than a single
@@ -948,17 +1047,16 @@ public class BuildHelper
      */
     private IStatus copyFile( InputStream in, String to )
     {
-        OutputStream out = null;
-
-        try
+        // overwrite in place, this is the fallback for a file that is locked and can't be deleted or replaced
+        try( final OutputStream out = new FileOutputStream( to ) )
         {
-            out = new FileOutputStream( to );
+            final byte[] buffer = new byte[8192];
 
-            int avail = in.read( buf );
+            int avail = in.read( buffer );
             while( avail > 0 )
             {
-                out.write( buf, 0, avail );
-                avail = in.read( buf );
+                out.write( buffer, 0, avail );
+                avail = in.read( buffer );
             }
             return Status.OK_STATUS;
         }
@@ -979,15 +1077,6 @@ public class BuildHelper
             {
                 // ignore
             }
-            try
-            {
-                if( out != null )
-                    out.close();
-            }
-            catch( Exception ex )
-            {
-                // ignore
-            }
         }
     }
 
@@ -1073,4 +1162,65 @@ public class BuildHelper
             list.add( a[i] );
     }
 
+    private static class FileCopy
+    {
+        final IFile file;
+        final IPath to;
+
+        FileCopy( IFile file, IPath to )
+        {
+            this.file = file;
+            this.to = to;
+        }
+    }
+
+    private class CopyTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final List<FileCopy> copies;
+        private final int from;
+        private final IProgressMonitor monitor;
+        private final List<IStatus> status;
+        private final int to;
+
+        CopyTask( List<FileCopy> copies, int from, int to, List<IStatus> status, IProgressMonitor monitor )
+        {
+            this.copies = copies;
+            this.from = from;
+            this.to = to;
+            this.status = status;
+            this.monitor = monitor;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if( to - from > COPY_THRESHOLD )
+            {
+                int middle = ( from + to ) >>> 1;
+
+                invokeAll(
+                    new CopyTask( copies, from, middle, status, monitor ),
+                    new CopyTask( copies, middle, to, status, monitor ) );
+
+                return;
+            }
+
+            for( int i = from; i < to && !monitor.isCanceled(); i++ )
+            {
+                FileCopy copy = copies.get( i );
+
+                try
+                {
+                    copyFile( copy.file, copy.to );
+                }
+                catch( CoreException ce )
+                {
+                    status.add( ce.getStatus() );
+                }
+            }
+        }
+    }
+
 }
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+package com.liferay.ide.portlet.core.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.liferay.ide.portlet.core.util.LanguagePropertiesSynchronizer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class LanguagePropertiesSynchronizerTests
+{
+
+    private static final String COPY = LanguagePropertiesSynchronizer.AUTOMATIC_COPY;
+
+    private File dir;
+
+    @After
+    public void deleteDir()
+    {
+        for( File file : dir.listFiles() )
+        {
+            file.delete();
+        }
+
+        dir.delete();
+    }
+
+    @Before
+    public void createDir() throws IOException
+    {
+        dir = Files.createTempDirectory( "language" ).toFile();
+    }
+
+    @Test
+    public void continuationLines() throws Exception
+    {
+        final File defaultFile = write( "Language.properties",
+            "a=first \\\n" +
+            "    second\n" +
+            "b=one \\\n" +
+            "    two\n" );
+
+        final File localeFile = write( "Language_de.properties",
+            "b=eins \\\n" +
+            "    zwei\n" );
+
+        assertTrue( synchronizer( defaultFile ).synchronize( localeFile ) );
+
+        assertEquals(
+            "b=eins \\\n" +
+            "    zwei\n" +
+            "a=first \\\n" +
+            "    second" + COPY + "\n",
+            read( localeFile ) );
+    }
+
+    @Test
+    public void escapedKeys() throws Exception
+    {
+        final File defaultFile = write( "Language.properties",
+            "foo\\ bar=x\n" +
+            "caf\\u00e9=y\n" +
+            "k\\=v=z\n" );
+
+        // the same keys, escaped differently
+        final File localeFile = write( "Language_fr.properties",
+            "foo\\ bar=a\n" +
+            "caf\u00e9=b\n" );
+
+        assertTrue( synchronizer( defaultFile ).synchronize( localeFile ) );
+
+        assertEquals(
+            "foo\\ bar=a\n" +
+            "caf\\u00e9=b\n" +
+            "k\\=v=z" + COPY + "\n",
+            read( localeFile ) );
+    }
+
+    @Test
+    public void lineSeparatorKept() throws Exception
+    {
+        final File defaultFile = write( "Language.properties", "a=1\nb=2\n" );
+        final File localeFile = write( "Language_es.properties", "# comment\r\na=uno\r\n" );
+
+        assertTrue( synchronizer( defaultFile ).synchronize( localeFile ) );
+
+        assertEquals( "# comment\r\na=uno\r\nb=2" + COPY + "\r\n", read( localeFile ) );
+    }
+
+    @Test
+    public void localeFiles() throws Exception
+    {
+        final File defaultFile = write( "Language.properties", "a=1\n" );
+
+        write( "Language_de.properties", "a=eins\n" );
+        write( "Language_pt_BR.properties", "a=um\n" );
+        write( "Other_de.properties", "a=eins\n" );
+        write( "Language_de.txt", "a=eins\n" );
+
+        assertEquals( 2, synchronizer( defaultFile ).getLocaleFiles().size() );
+    }
+
+    @Test
+    public void staleAndMissingKeys() throws Exception
+    {
+        final File defaultFile = write( "Language.properties",
+            "# default\n" +
+            "a=1\n" +
+            "b=2\n" +
+            "c=3\n" );
+
+        final File localeFile = write( "Language_it.properties",
+            "# italiano\n" +
+            "a=uno\n" +
+            "stale=vecchio\n" +
+            "\n" +
+            "c=tre\n" );
+
+        assertTrue( synchronizer( defaultFile ).synchronize( localeFile ) );
+
+        assertEquals(
+            "# italiano\n" +
+            "a=uno\n" +
+            "\n" +
+            "c=tre\n" +
+            "b=2" + COPY + "\n",
+            read( localeFile ) );
+    }
+
+    @Test
+    public void untouchedFile() throws Exception
+    {
+        final File defaultFile = write( "Language.properties", "a=1\nb=2\n" );
+
+        // not escaped and without a trailing line break, which a rewrite would change
+        final File localeFile = write( "Language_ja.properties", "b=\u4e8c\r\na=\u4e00" );
+
+        final byte[] before = Files.readAllBytes( localeFile.toPath() );
+
+        localeFile.setLastModified( 10000L );
+
+        assertFalse( synchronizer( defaultFile ).synchronize( localeFile ) );
+
+        assertArrayEquals( before, Files.readAllBytes( localeFile.toPath() ) );
+        assertEquals( 10000L, localeFile.lastModified() );
+        assertEquals( 2, dir.listFiles().length );
+    }
+
+    private String read( File file ) throws IOException
+    {
+        return new String( Files.readAllBytes( file.toPath() ), "UTF-8" );
+    }
+
+    private LanguagePropertiesSynchronizer synchronizer( File defaultFile ) throws IOException
+    {
+        return new LanguagePropertiesSynchronizer( defaultFile );
+    }
+
+    private File write( String name, String content ) throws IOException
+    {
+        final File file = new File( dir, name );
+
+        Files.write( file.toPath(), content.getBytes( "UTF-8" ) );
+
+        return file;
+    }
+
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+package com.liferay.ide.project.core.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.liferay.ide.project.core.util.GeneratedFileTracker;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class GeneratedFileTrackerTests
+{
+
+    private long time = 1000000000000L;
+
+    private IProject project;
+
+    @Before
+    public void createProject() throws Exception
+    {
+        project = ResourcesPlugin.getWorkspace().getRoot().getProject( "generated-file-tracker" );
+
+        if( project.exists() )
+        {
+            project.delete( true, true, new NullProgressMonitor() );
+        }
+
+        project.create( new NullProgressMonitor() );
+        project.open( new NullProgressMonitor() );
+    }
+
+    @After
+    public void deleteProject() throws Exception
+    {
+        project.delete( true, true, new NullProgressMonitor() );
+    }
+
+    @Test
+    public void addedAndRemovedFiles() throws Exception
+    {
+        write( "docroot/old.txt", "old" );
+
+        final GeneratedFileTracker tracker = new GeneratedFileTracker( project, "test" );
+
+        tracker.begin();
+
+        write( "docroot/WEB-INF/src/New.java", "new" );
+        new File( project.getLocation().toFile(), "docroot/old.txt" ).delete();
+
+        final Set<IPath> changed = tracker.end();
+
+        assertEquals( 2, changed.size() );
+        assertTrue( changed.contains( new Path( "docroot/WEB-INF/src/New.java" ) ) );
+        assertTrue( changed.contains( new Path( "docroot/old.txt" ) ) );
+    }
+
+    @Test
+    public void editBetweenRuns() throws Exception
+    {
+        final GeneratedFileTracker tracker = new GeneratedFileTracker( project, "test" );
+
+        tracker.begin();
+        write( "Service.java", "generated" );
+        tracker.end();
+
+        // the user changes the file, the next run generates the previous content again
+        write( "Service.java", "edited" );
+
+        tracker.begin();
+        write( "Service.java", "generated" );
+
+        assertTrue( tracker.end().contains( new Path( "Service.java" ) ) );
+    }
+
+    @Test
+    public void rewrittenWithSameContent() throws Exception
+    {
+        final GeneratedFileTracker tracker = new GeneratedFileTracker( project, "test" );
+
+        tracker.begin();
+        write( "Service.java", "generated" );
+        tracker.end();
+
+        tracker.begin();
+        write( "Service.java", "generated" );
+
+        assertTrue( tracker.end().isEmpty() );
+
+        // a new tracker reads the hashes saved by the previous one
+        final GeneratedFileTracker next = new GeneratedFileTracker( project, "test" );
+
+        next.begin();
+        write( "Service.java", "generated" );
+
+        assertTrue( next.end().isEmpty() );
+    }
+
+    @Test
+    public void untouchedFiles() throws Exception
+    {
+        write( "build.xml", "<project/>" );
+
+        final GeneratedFileTracker tracker = new GeneratedFileTracker( project, "test" );
+
+        tracker.begin();
+
+        assertTrue( tracker.end().isEmpty() );
+    }
+
+    private void write( String path, String content ) throws Exception
+    {
+        final File file = new File( project.getLocation().toFile(), path );
+
+        file.getParentFile().mkdirs();
+
+        Files.write( file.toPath(), content.getBytes( "UTF-8" ) );
+
+        // a new time for every write, independent of the file system's resolution
+        time += 10000L;
+        file.setLastModified( time );
+    }
+
+}
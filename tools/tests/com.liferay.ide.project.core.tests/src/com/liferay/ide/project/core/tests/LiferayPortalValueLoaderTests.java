@@ -21,8 +21,12 @@ import static org.junit.Assert.assertNotNull;
 import com.liferay.ide.core.ILiferayConstants;
 import com.liferay.ide.server.core.ILiferayRuntime;
 import com.liferay.ide.server.util.LiferayPortalValueLoader;
+import com.liferay.ide.server.util.PortalBytecodeReader;
 import com.liferay.ide.server.util.ServerUtil;
 
+import java.io.File;
+
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.wst.server.core.IRuntime;
 import org.eclipse.wst.server.core.ServerCore;
 import org.junit.AfterClass;
@@ -42,6 +46,19 @@ public class LiferayPortalValueLoaderTests extends ProjectCoreBase
         deleteAllWorkspaceProjects();
     }
 
+    private File[] libs( final IRuntime runtime )
+    {
+        final IPath[] userLibs = ServerUtil.getLiferayRuntime( runtime ).getUserLibs();
+        final File[] libs = new File[userLibs.length];
+
+        for( int i = 0; i < userLibs.length; i++ )
+        {
+            libs[i] = userLibs[i].toFile();
+        }
+
+        return libs;
+    }
+
     private LiferayPortalValueLoader loader( final IRuntime runtime )
     {
         ILiferayRuntime liferayRutime = ServerUtil.getLiferayRuntime( runtime );
@@ -102,4 +119,54 @@ public class LiferayPortalValueLoaderTests extends ProjectCoreBase
         assertEquals( ILiferayConstants.V620, version );
     }
 
+    @Test
+    public void readHookPropertiesFromBytecode() throws Exception
+    {
+        if( shouldSkipBundleTests() ) return;
+
+        setupPluginsSDKAndRuntime();
+
+        final IRuntime runtime = ServerCore.getRuntimes()[0];
+
+        final String[] props =
+            PortalBytecodeReader.readStringArrayField(
+                libs( runtime ), "com.liferay.portal.deploy.hot.HookHotDeployListener", "SUPPORTED_PROPERTIES" );
+
+        assertNotNull( props );
+
+        assertEquals( 141, props.length );
+    }
+
+    @Test
+    public void readServerInfoFromBytecode() throws Exception
+    {
+        if( shouldSkipBundleTests() ) return;
+
+        setupPluginsSDKAndRuntime();
+
+        final IRuntime runtime = ServerCore.getRuntimes()[0];
+
+        final String info =
+            PortalBytecodeReader.readStringMethodValue(
+                libs( runtime ), "com.liferay.portal.kernel.util.ReleaseInfo", "getServerInfo" );
+
+        assertEquals( "Liferay Portal Community Edition / 6.2.0", info );
+    }
+
+    @Test
+    public void readVersionFromBytecode() throws Exception
+    {
+        if( shouldSkipBundleTests() ) return;
+
+        setupPluginsSDKAndRuntime();
+
+        final IRuntime runtime = ServerCore.getRuntimes()[0];
+
+        final String version =
+            PortalBytecodeReader.readStringMethodValue(
+                libs( runtime ), "com.liferay.portal.kernel.util.ReleaseInfo", "getVersion" );
+
+        assertEquals( "6.2.0", version );
+    }
+
 }
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ *******************************************************************************/
+package com.liferay.ide.project.core.tests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.liferay.ide.project.core.util.PluginArchive;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class PluginArchiveTests
+{
+
+    private static final String HOOK_XML = "WEB-INF/liferay-hook.xml";
+    private static final String LAYOUTTPL_XML = "WEB-INF/liferay-layout-templates.xml";
+    private static final String LOOK_AND_FEEL_XML = "WEB-INF/liferay-look-and-feel.xml";
+    private static final String PLUGIN_PACKAGE = "WEB-INF/liferay-plugin-package.properties";
+    private static final String PLUGIN_PACKAGE_XML = "WEB-INF/liferay-plugin-package.xml";
+    private static final String PORTLET_XML = "WEB-INF/liferay-portlet.xml";
+
+    private File dir;
+
+    @Before
+    public void createDir() throws IOException
+    {
+        dir = Files.createTempDirectory( "plugin-archives" ).toFile();
+    }
+
+    @After
+    public void deleteDir()
+    {
+        for( File file : dir.listFiles() )
+        {
+            file.delete();
+        }
+
+        dir.delete();
+    }
+
+    @Test
+    public void descriptorsOnlyDirectlyInWebInf() throws Exception
+    {
+        final PluginArchive archive =
+            read( "sample-hook-6.2.war", "liferay-hook.xml", "WEB-INF/classes/liferay-portlet.xml", "WEB-INF/web.xml",
+                "WEB-INF/lib/" );
+
+        assertTrue( archive.hasDescriptor( "web.xml" ) );
+        assertFalse( archive.hasDescriptor( "liferay-hook.xml" ) );
+        assertFalse( archive.hasDescriptor( "liferay-portlet.xml" ) );
+        assertFalse( archive.hasDescriptor( "lib/" ) );
+        assertFalse( archive.hasDescriptor( "" ) );
+    }
+
+    @Test
+    public void hook() throws Exception
+    {
+        assertTrue( read( "sample-hook-6.2.war", PLUGIN_PACKAGE, HOOK_XML ).isValidLiferayPlugin() );
+        assertTrue( read( "sample-hook-6.2.war", PLUGIN_PACKAGE_XML, HOOK_XML ).isValidLiferayPlugin() );
+        assertFalse( read( "sample-hook-6.2.war", PLUGIN_PACKAGE ).isValidLiferayPlugin() );
+        assertFalse( read( "sample-hook-6.2.war", HOOK_XML ).isValidLiferayPlugin() );
+    }
+
+    @Test( expected = IOException.class )
+    public void invalidArchive() throws Exception
+    {
+        final File file = new File( dir, "broken-portlet-6.2.war" );
+
+        Files.write( file.toPath(), "not a zip".getBytes( "UTF-8" ) );
+
+        PluginArchive.read( file );
+    }
+
+    @Test
+    public void layoutTemplate() throws Exception
+    {
+        assertTrue( read( "sample-layouttpl-6.2.war", PLUGIN_PACKAGE ).isValidLiferayPlugin() );
+        assertTrue( read( "sample-layouttpl-6.2.war", LAYOUTTPL_XML ).isValidLiferayPlugin() );
+        assertFalse( read( "sample-layouttpl-6.2.war", "WEB-INF/web.xml" ).isValidLiferayPlugin() );
+    }
+
+    @Test
+    public void portlet() throws Exception
+    {
+        assertTrue( read( "sample-portlet-6.2.war", PLUGIN_PACKAGE, PORTLET_XML ).isValidLiferayPlugin() );
+        assertFalse( read( "sample-portlet-6.2.war", PORTLET_XML ).isValidLiferayPlugin() );
+        assertFalse( read( "sample-portlet-6.2.war", PLUGIN_PACKAGE ).isValidLiferayPlugin() );
+    }
+
+    @Test
+    public void theme() throws Exception
+    {
+        assertTrue( read( "sample-theme-6.2.war", PLUGIN_PACKAGE ).isValidLiferayPlugin() );
+        assertTrue( read( "sample-theme-6.2.war", LOOK_AND_FEEL_XML ).isValidLiferayPlugin() );
+        assertFalse( read( "sample-theme-6.2.war", "WEB-INF/web.xml" ).isValidLiferayPlugin() );
+    }
+
+    @Test
+    public void web() throws Exception
+    {
+        assertTrue( read( "sample-web-6.2.war", PLUGIN_PACKAGE ).isValidLiferayPlugin() );
+        assertFalse( read( "sample-web-6.2.war", "WEB-INF/web.xml" ).isValidLiferayPlugin() );
+    }
+
+    private PluginArchive read( String name, String... entries ) throws IOException
+    {
+        final File file = new File( dir, name );
+
+        try( ZipOutputStream out = new ZipOutputStream( new FileOutputStream( file ) ) )
+        {
+            for( String entry : entries )
+            {
+                out.putNextEntry( new ZipEntry( entry ) );
+
+                if( ! entry.endsWith( "/" ) )
+                {
+                    out.write( "<content/>".getBytes( "UTF-8" ) );
+                }
+
+                out.closeEntry();
+            }
+        }
+
+        return PluginArchive.read( file );
+    }
+
+}
@@ -4,14 +4,19 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.velocity.runtime.RuntimeInstance;
 import org.apache.velocity.runtime.parser.ParseException;
 import org.apache.velocity.runtime.parser.Token;
+import org.apache.velocity.runtime.parser.TokenMgrError;
+import org.apache.velocity.runtime.parser.node.ASTDirective;
+import org.apache.velocity.runtime.parser.node.ASTText;
 import org.apache.velocity.runtime.parser.node.SimpleNode;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
@@ -30,23 +35,33 @@ import com.liferay.ide.velocity.editor.VelocityEditor;
 import com.liferay.ide.velocity.editor.VelocityFoldingStructureProvider;
 import com.liferay.ide.velocity.vaulttec.ui.VelocityPlugin;
 import com.liferay.ide.velocity.vaulttec.ui.editor.parser.NodeVisitor;
+import com.liferay.ide.velocity.vaulttec.ui.model.Directive;
 import com.liferay.ide.velocity.vaulttec.ui.model.ITreeNode;
 import com.liferay.ide.velocity.vaulttec.ui.model.ITreeVisitor;
 import com.liferay.ide.velocity.vaulttec.ui.model.Template;
 
 /**
- * Reconciler strategy which parses the whole editor's content (a Velocity
- * template) on a document change.
+ * Reconciler strategy which parses the editor's content (a Velocity template)
+ * on a document change. After a successful parse only the top-level nodes
+ * touched by a change are parsed again and spliced into the existing tree;
+ * the whole template is parsed when that is not possible, e.g. the change
+ * doesn't parse on its own or involves a macro definition.
  */
 public class VelocityReconcilingStrategy implements IReconcilingStrategy,
     IReconcilingStrategyExtension
 {
+  private static final String HTML_CHARS = "<>\"'";
+
   private VelocityEditor fEditor;
   private Template fTemplate;
   private Template fLastTemplate;
   private String fError;
   private IDocument fDocument;
   private VelocityFoldingStructureProvider fFoldingStructureProvider;
+  /** Text of the last successful parse */
+  private String fText;
+  /** Line ranges of the top-level nodes of the last successful parse */
+  private List fSegments;
 
   public VelocityReconcilingStrategy(VelocityEditor anEditor)
   {
@@ -64,6 +79,7 @@ public class VelocityReconcilingStrategy implements IReconcilingStrategy,
   {
     fDocument = aDocument;
     fFoldingStructureProvider.setDocument(fDocument);
+    fText = null;
     parse();
   }
 
@@ -94,22 +110,44 @@ public class VelocityReconcilingStrategy implements IReconcilingStrategy,
   private List htmlTags = null;
 
   private void parse()
+  {
+    // The changed region is computed from the text of the last parse, as the
+    // document may already contain the changes of later dirty regions
+    String text = fDocument.get();
+    if (!parseIncremental(text))
+    {
+      parseFull(text);
+    }
+    // Update outline view and display error message in status line
+    Display.getDefault().syncExec(new Runnable()
+    {
+      public void run()
+      {
+        fEditor.updateOutlinePage();
+        fEditor.displayErrorMessage(fError);
+      }
+    });
+    reconcile();
+  }
+
+  private void parseFull(String aText)
   {
     String name = fEditor.getEditorInput().getName();
-    Reader reader = new StringReader(fEditor.getDocument().get());
+    Reader reader = new StringReader(aText);
     Template template = null;
+    List segments = null;
     try
     {
-      parseHtml();
-      if (fEditor.getEditorInput() instanceof IFileEditorInput)
-        ((IFileEditorInput) fEditor.getEditorInput()).getFile().deleteMarkers(
-            IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+      parseHtml(aText);
+      deleteMarkers();
+      addHtmlMarkers();
       RuntimeInstance runtime = VelocityEditorEnvironment.getParser();
       SimpleNode root = runtime.parse(reader, name);
       // Create tree model
       NodeVisitor visitor = new NodeVisitor(name);
       root.jjtAccept(visitor, null);
       template = visitor.getTemplate();
+      segments = getSegments(root);
       fError = "";
     }
     catch (ParseException e)
@@ -156,27 +194,272 @@ public class VelocityReconcilingStrategy implements IReconcilingStrategy,
         fTemplate = template;
         // Save last successful parse tree
         fLastTemplate = template;
+        fText = aText;
+        fSegments = segments;
       }
       else
       {
         fTemplate = null;
+        fText = null;
+        fSegments = null;
       }
     }
-    // Update outline view and display error message in status line
-    Display.getDefault().syncExec(new Runnable()
+  }
+
+  /**
+   * Parses the top-level nodes of the last parse tree which are touched by
+   * the changes since then and splices the result into a copy of the tree.
+   * 
+   * @return <code>false</code> if the whole template has to be parsed
+   */
+  private boolean parseIncremental(String aText)
+  {
+    Template lastTemplate;
+    String lastText;
+    List lastSegments;
+    synchronized (this)
     {
-      public void run()
+      lastTemplate = fTemplate;
+      lastText = fText;
+      lastSegments = fSegments;
+    }
+    if (lastTemplate == null || lastText == null || lastSegments == null)
+    {
+      return false;
+    }
+    if (aText.equals(lastText))
+    {
+      return true;
+    }
+    // Find the changed range, [prefix, lastText.length() - suffix) in the
+    // old text and [prefix, aText.length() - suffix) in the new one
+    int max = Math.min(lastText.length(), aText.length());
+    int prefix = 0;
+    while (prefix < max && lastText.charAt(prefix) == aText.charAt(prefix))
+    {
+      prefix++;
+    }
+    int suffix = 0;
+    while (suffix < max - prefix
+        && lastText.charAt(lastText.length() - suffix - 1) == aText.charAt(aText.length() - suffix - 1))
+    {
+      suffix++;
+    }
+    int oldEnd = lastText.length() - suffix;
+    int newEnd = aText.length() - suffix;
+    int firstLine = getLine(lastText, prefix);
+    int lastOldLine = getLine(lastText, oldEnd);
+    int lineDelta = getLine(aText, newEnd) - lastOldLine;
+    // Extend the changed lines to whole top-level nodes
+    int lo = firstLine;
+    int hi = lastOldLine;
+    boolean extended = true;
+    while (extended)
+    {
+      extended = false;
+      for (Iterator iter = lastSegments.iterator(); iter.hasNext();)
       {
-        fEditor.updateOutlinePage();
-        fEditor.displayErrorMessage(fError);
+        Segment segment = (Segment) iter.next();
+        if (segment.fBeginLine <= hi && segment.fEndLine >= lo)
+        {
+          if (segment.fMacro)
+          {
+            // Macro definitions change how the rest of the template parses
+            return false;
+          }
+          if (segment.fBeginLine < lo || segment.fEndLine > hi)
+          {
+            lo = Math.min(lo, segment.fBeginLine);
+            hi = Math.max(hi, segment.fEndLine);
+            extended = true;
+          }
+        }
       }
-    });
-    reconcile();
+    }
+    // Parse the new text of these lines, padded so that the line numbers
+    // match the ones in the document
+    StringBuffer fragment = new StringBuffer();
+    for (int i = 1; i < lo; i++)
+    {
+      fragment.append('\n');
+    }
+    fragment.append(aText.substring(getLineOffset(aText, lo), getLineOffset(aText, hi + lineDelta + 1)));
+    String name = fEditor.getEditorInput().getName();
+    Template fragmentTemplate;
+    List fragmentSegments;
+    try
+    {
+      RuntimeInstance runtime = VelocityEditorEnvironment.getParser();
+      // Keep the macros of the rest of the template
+      SimpleNode root = runtime.parse(new StringReader(fragment.toString()), name, false);
+      fragmentSegments = getSegments(root);
+      for (Iterator iter = fragmentSegments.iterator(); iter.hasNext();)
+      {
+        if (((Segment) iter.next()).fMacro)
+        {
+          return false;
+        }
+      }
+      NodeVisitor visitor = new NodeVisitor(name);
+      root.jjtAccept(visitor, null);
+      fragmentTemplate = visitor.getTemplate();
+    }
+    catch (ParseException e)
+    {
+      // May be caused by the rest of the template, leave error reporting to
+      // the full parse
+      return false;
+    }
+    catch (TokenMgrError e)
+    {
+      return false;
+    }
+    catch (RuntimeException e)
+    {
+      return false;
+    }
+    if (fragmentTemplate == null)
+    {
+      return false;
+    }
+    // Splice the new nodes into a copy of the tree, moving the ones below
+    Template template = new Template(name);
+    List segments = new ArrayList();
+    Object[] directives = lastTemplate.getChildren();
+    int index = 0;
+    while (index < directives.length && ((Directive) directives[index]).getStartLine() < lo)
+    {
+      template.addDirective(((Directive) directives[index++]).copy(template, 0));
+    }
+    Object[] fragmentDirectives = fragmentTemplate.getChildren();
+    for (int i = 0; i < fragmentDirectives.length; i++)
+    {
+      template.addDirective(((Directive) fragmentDirectives[i]).copy(template, 0));
+    }
+    for (; index < directives.length; index++)
+    {
+      Directive directive = (Directive) directives[index];
+      if (directive.getStartLine() > hi)
+      {
+        template.addDirective(directive.copy(template, lineDelta));
+      }
+    }
+    for (Iterator iter = lastSegments.iterator(); iter.hasNext();)
+    {
+      Segment segment = (Segment) iter.next();
+      if (segment.fEndLine < lo)
+      {
+        segments.add(segment);
+      }
+    }
+    segments.addAll(fragmentSegments);
+    for (Iterator iter = lastSegments.iterator(); iter.hasNext();)
+    {
+      Segment segment = (Segment) iter.next();
+      if (segment.fBeginLine > hi)
+      {
+        segments.add(new Segment(segment.fBeginLine + lineDelta, segment.fEndLine + lineDelta, false));
+      }
+    }
+    updateHtml(aText, lastText, prefix, oldEnd, newEnd, lineDelta);
+    fError = "";
+    synchronized (this)
+    {
+      fTemplate = template;
+      fLastTemplate = template;
+      fText = aText;
+      fSegments = segments;
+    }
+    return true;
+  }
+
+  /**
+   * Returns the line ranges of the top-level nodes of the given parse tree,
+   * except for plain text which can be split at any line.
+   */
+  private static List getSegments(SimpleNode aRoot)
+  {
+    List segments = new ArrayList();
+    for (int i = 0; i < aRoot.jjtGetNumChildren(); i++)
+    {
+      org.apache.velocity.runtime.parser.node.Node node = aRoot.jjtGetChild(i);
+      if (!(node instanceof ASTText) && node.getFirstToken() != null && node.getLastToken() != null)
+      {
+        boolean macro = node instanceof ASTDirective
+            && "macro".equals(((ASTDirective) node).getDirectiveName());
+        segments.add(new Segment(node.getFirstToken().beginLine, node.getLastToken().endLine, macro));
+      }
+    }
+    return segments;
+  }
+
+  /**
+   * Returns the 1-based line of the given offset, counting line delimiters
+   * the way the Velocity parser does.
+   */
+  private static int getLine(String aText, int anOffset)
+  {
+    int line = 1;
+    for (int i = 0; i < anOffset; i++)
+    {
+      char c = aText.charAt(i);
+      if (c == '\n' || (c == '\r' && (i + 1 >= aText.length() || aText.charAt(i + 1) != '\n')))
+      {
+        line++;
+      }
+    }
+    return line;
+  }
+
+  /**
+   * Returns the offset of the given 1-based line, or the length of the text
+   * if it has fewer lines.
+   */
+  private static int getLineOffset(String aText, int aLine)
+  {
+    int line = 1;
+    for (int i = 0; i < aText.length() && line < aLine; i++)
+    {
+      char c = aText.charAt(i);
+      if (c == '\n' || (c == '\r' && (i + 1 >= aText.length() || aText.charAt(i + 1) != '\n')))
+      {
+        line++;
+        if (line == aLine)
+        {
+          return i + 1;
+        }
+      }
+    }
+    return (line == aLine) ? 0 : aText.length();
+  }
+
+  /**
+   * Line range of a top-level node of the parse tree.
+   */
+  private static class Segment
+  {
+    private final int fBeginLine;
+    private final int fEndLine;
+    private final boolean fMacro;
+
+    Segment(int aBeginLine, int anEndLine, boolean aMacro)
+    {
+      fBeginLine = aBeginLine;
+      fEndLine = anEndLine;
+      fMacro = aMacro;
+    }
   }
 
   private class HtmlNode implements ITreeNode
   {
     private Tag arg0 = null;
+    private int fStartLine;
+    private int fEndLine;
+    private int fStartOffset;
+    private int fEndOffset;
+    private int fEndTagStartOffset = -1;
+    private int fEndTagEndOffset = -1;
+    private boolean fUnclosed;
 
     /**
 	 * 
@@ -184,6 +467,64 @@ public class VelocityReconcilingStrategy implements IReconcilingStrategy,
     public HtmlNode(Tag arg0)
     {
       this.arg0 = arg0;
+      fStartLine = arg0.getStartingLineNumber() + 1;
+      fEndLine = fStartLine;
+      fStartOffset = arg0.getStartPosition();
+      fEndOffset = arg0.getEndPosition();
+      Tag endTag = arg0.getEndTag();
+      if (endTag != null)
+      {
+        fEndLine = endTag.getEndingLineNumber();
+        fEndTagStartOffset = endTag.getStartPosition();
+        fEndTagEndOffset = endTag.getEndPosition();
+        fUnclosed = fEndTagStartOffset == fEndTagEndOffset;
+      }
+    }
+
+    private HtmlNode(HtmlNode aNode)
+    {
+      arg0 = aNode.arg0;
+      fStartLine = aNode.fStartLine;
+      fEndLine = aNode.fEndLine;
+      fStartOffset = aNode.fStartOffset;
+      fEndOffset = aNode.fEndOffset;
+      fEndTagStartOffset = aNode.fEndTagStartOffset;
+      fEndTagEndOffset = aNode.fEndTagEndOffset;
+      fUnclosed = aNode.fUnclosed;
+    }
+
+    /**
+     * Returns whether the tag or its end tag overlap the given range.
+     */
+    boolean overlaps(int aStart, int anEnd)
+    {
+      return (fStartOffset < anEnd && fEndOffset > aStart)
+          || (fEndTagStartOffset >= 0 && fEndTagStartOffset < anEnd && fEndTagEndOffset > aStart);
+    }
+
+    /**
+     * Returns a copy of this node with everything at or after the given
+     * offset moved by the given number of characters and lines.
+     */
+    HtmlNode move(int anOffset, int anOffsetDelta, int aLineDelta)
+    {
+      HtmlNode node = new HtmlNode(this);
+      if (fStartOffset >= anOffset)
+      {
+        node.fStartLine += aLineDelta;
+        node.fStartOffset += anOffsetDelta;
+        node.fEndOffset += anOffsetDelta;
+      }
+      if (fEndTagStartOffset >= 0 ? fEndTagStartOffset >= anOffset : fStartOffset >= anOffset)
+      {
+        node.fEndLine += aLineDelta;
+      }
+      if (fEndTagStartOffset >= anOffset)
+      {
+        node.fEndTagStartOffset += anOffsetDelta;
+        node.fEndTagEndOffset += anOffsetDelta;
+      }
+      return node;
     }
 
     public String getName()
@@ -213,24 +554,12 @@ public class VelocityReconcilingStrategy implements IReconcilingStrategy,
 
     public int getStartLine()
     {
-      return arg0.getStartingLineNumber() + 1;
+      return fStartLine;
     }
 
     public int getEndLine()
     {
-      int nr = arg0.getStartingLineNumber() + 1;
-      int nrE = nr;
-      Tag endTag = arg0.getEndTag();
-      if (endTag != null)
-      {
-        nrE = endTag.getEndingLineNumber();
-        int offset = endTag.getStartPosition() - endTag.getEndPosition();
-        if (offset == 0)
-          fEditor.addProblemMarker(endTag.getTagName().toLowerCase()
-              + " is not correctly closed proposed line for closing is line "
-              + nrE, nr, IMarker.SEVERITY_WARNING);
-      }
-      return nrE;
+      return fEndLine;
     }
 
     public boolean accept(ITreeVisitor aVisitor)
@@ -251,11 +580,11 @@ public class VelocityReconcilingStrategy implements IReconcilingStrategy,
   /**
    * @throws ParserException
    */
-  private void parseHtml() throws ParserException
+  private void parseHtml(String aText) throws ParserException
   {
     htmlTags = new ArrayList();
     Parser parser = new Parser();
-    parser.setInputHTML(fDocument.get());
+    parser.setInputHTML(aText);
     for (NodeIterator e = parser.elements(); e.hasMoreNodes();)
     {
       Node node = e.nextNode();
@@ -264,6 +593,85 @@ public class VelocityReconcilingStrategy implements IReconcilingStrategy,
     }
   }
 
+  /**
+   * Moves the HTML tags behind a change, or parses the HTML again if the
+   * change may affect its structure.
+   */
+  private void updateHtml(String aText, String aLastText, int aStart, int anOldEnd, int aNewEnd, int aLineDelta)
+  {
+    boolean reparse = htmlTags == null
+        || containsAny(aLastText, aStart, anOldEnd, HTML_CHARS)
+        || containsAny(aText, aStart, aNewEnd, HTML_CHARS);
+    List moved = new ArrayList();
+    if (!reparse)
+    {
+      for (Iterator iter = htmlTags.iterator(); iter.hasNext();)
+      {
+        HtmlNode node = (HtmlNode) iter.next();
+        if (node.overlaps(aStart, anOldEnd))
+        {
+          reparse = true;
+          break;
+        }
+        moved.add(node.move(anOldEnd, aNewEnd - anOldEnd, aLineDelta));
+      }
+    }
+    if (!reparse)
+    {
+      htmlTags = moved;
+      return;
+    }
+    try
+    {
+      parseHtml(aText);
+      // The last parse was successful, so the only problem markers are the
+      // ones of the HTML tags
+      deleteMarkers();
+      addHtmlMarkers();
+    }
+    catch (Exception e)
+    {
+      VelocityPlugin.log(e);
+    }
+  }
+
+  private static boolean containsAny(String aText, int aStart, int anEnd, String aChars)
+  {
+    for (int i = aStart; i < anEnd; i++)
+    {
+      if (aChars.indexOf(aText.charAt(i)) >= 0)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void deleteMarkers() throws CoreException
+  {
+    if (fEditor.getEditorInput() instanceof IFileEditorInput)
+      ((IFileEditorInput) fEditor.getEditorInput()).getFile().deleteMarkers(
+          IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+  }
+
+  private void addHtmlMarkers()
+  {
+    if (!(fEditor.getEditorInput() instanceof IFileEditorInput))
+    {
+      return;
+    }
+    for (Iterator iter = htmlTags.iterator(); iter.hasNext();)
+    {
+      HtmlNode node = (HtmlNode) iter.next();
+      if (node.fUnclosed)
+      {
+        fEditor.addProblemMarker(node.arg0.getEndTag().getTagName().toLowerCase()
+            + " is not correctly closed proposed line for closing is line "
+            + node.fEndLine, node.fStartLine, IMarker.SEVERITY_WARNING);
+      }
+    }
+  }
+
   /**
    * Returns root elements of current parse tree.
    */
@@ -302,11 +710,12 @@ public class VelocityReconcilingStrategy implements IReconcilingStrategy,
 
   private void reconcile()
   {
-    if (fTemplate != null && htmlTags != null)
-      htmlTags.add(fTemplate);
     if (htmlTags != null)
     {
-      fFoldingStructureProvider.updateFoldingRegions(htmlTags.toArray());// TODO
+      List nodes = new ArrayList(htmlTags);
+      if (fTemplate != null)
+        nodes.add(fTemplate);
+      fFoldingStructureProvider.updateFoldingRegions(nodes.toArray());// TODO
     }
   }
 
@@ -116,6 +116,32 @@ public class Directive extends AbstractTreeNode implements IBlock
         fDirectives.add(aDirective);
     }
 
+    /**
+     * Returns a copy of this directive and all embedded directives with the
+     * given parent, moved by the given number of lines.
+     *
+     * @param aParent
+     *            parent of the copy
+     * @param aLineDelta
+     *            number of lines to move the copy by
+     *
+     * @return the copy
+     */
+    public Directive copy(ITreeNode aParent, int aLineDelta)
+    {
+        Directive copy = new Directive(fType, fName, fId, aParent, getStartLine() + aLineDelta, getEndLine() + aLineDelta);
+        if (fParameters != null)
+        {
+            copy.fParameters = new ArrayList(fParameters);
+        }
+        Iterator iter = fDirectives.iterator();
+        while (iter.hasNext())
+        {
+            copy.addDirective(((Directive) iter.next()).copy(copy, aLineDelta));
+        }
+        return copy;
+    }
+
     /**
      * @see com.liferay.ide.velocity.vaulttec.ui.model.ITreeNode#getName()
      */